@@ -5,10 +5,12 @@ import elemental2.dom.DOMRect;
 import elemental2.dom.DomGlobal;
 import elemental2.dom.HTMLCanvasElement;
 import elemental2.dom.HTMLHtmlElement;
-import elemental2.dom.HTMLImageElement;
 import elemental2.dom.KeyboardEvent;
 import elemental2.dom.MouseEvent;
 import javax.annotation.Nonnull;
+import org.realityforge.arcade.render.ImageLoader;
+import org.realityforge.arcade.render.Sprite;
+import org.realityforge.arcade.render.SpriteAtlas;
 
 public class Adventure
   implements EntryPoint
@@ -16,6 +18,12 @@ public class Adventure
   private static final int FRAMES_PER_SECOND = 30;
   private static final int MILLIS_PER_SECOND = 1000;
   private static final int FRAME_DELAY = MILLIS_PER_SECOND / FRAMES_PER_SECOND;
+  // The name of the performance mark recorded when the first frame has been drawn
+  private static final String FIRST_FRAME_MARK = "first-frame";
+  // The progress bar is drawn below the loading message
+  private static final double LOADING_BAR_GAP = 10D;
+  private static final double LOADING_BAR_WIDTH = 100D;
+  private static final double LOADING_BAR_HEIGHT = 4D;
   private final World _world = new World();
   private final Warrior _warrior = new Warrior( "Blue Storm" );
   private Renderer _renderer;
@@ -25,8 +33,8 @@ public class Adventure
   private boolean _warrior1ToMouse = false;
   private double _mouseX;
   private double _mouseY;
-  private ImageAssets _imageAssets;
-  private final HTMLImageElement[] _tiles = new HTMLImageElement[ World.MAX_CELL_TYPE_COUNT ];
+  private SpriteAtlas _atlas;
+  private final Sprite[] _tiles = new Sprite[ World.MAX_CELL_TYPE_COUNT ];
   private int _keyCount;
 
   @Override
@@ -34,21 +42,53 @@ public class Adventure
   {
     _renderer = new Renderer();
 
-    // Render a loading screen for when the network is slow...
+    // Render a loading screen showing progress for when the network is slow...
+    new ImageLoader()
+      .loadAll( new String[]{ AtlasIndex.IMAGE }, this::drawLoadingScreen )
+      .then( images -> {
+        _atlas = new SpriteAtlas( images[ 0 ], AtlasIndex.NAMES, AtlasIndex.RECTANGLES );
+        onReady();
+        return null;
+      } )
+      // Also catches errors thrown while starting the game so that they do not leave the loading screen up
+      .catch_( error -> {
+        DomGlobal.console.error( "Unable to start the game", error );
+        drawLoadingFailedScreen();
+        return null;
+      } );
+  }
+
+  private void drawLoadingScreen( final int loadedCount, final int totalCount )
+  {
     final HTMLCanvasElement canvas = _renderer.getCanvas();
+    final double progress = 0 == totalCount ? 1D : loadedCount / (double) totalCount;
     _renderer.drawRect( 0, 0, canvas.width, canvas.height, "black" );
     _renderer.drawText( canvas.width / 2D, canvas.height / 2D, "Loading...", "white" );
+    final double barX = canvas.width / 2D;
+    final double barY = canvas.height / 2D + LOADING_BAR_GAP;
+    _renderer.drawRect( barX, barY, LOADING_BAR_WIDTH, LOADING_BAR_HEIGHT, "gray" );
+    _renderer.drawRect( barX, barY, LOADING_BAR_WIDTH * progress, LOADING_BAR_HEIGHT, "white" );
+    _renderer.flush();
+  }
 
-    _imageAssets = new ImageAssets( this::onReady );
+  private void drawLoadingFailedScreen()
+  {
+    final HTMLCanvasElement canvas = _renderer.getCanvas();
+    _renderer.drawRect( 0, 0, canvas.width, canvas.height, "black" );
+    _renderer.drawText( canvas.width / 2D,
+                        canvas.height / 2D,
+                        "Unable to load the game. Reload the page to try again.",
+                        "white" );
+    _renderer.flush();
   }
 
   private void onReady()
   {
-    _tiles[ 0 ] = _imageAssets.getImageByName( "world_road" );
-    _tiles[ 1 ] = _imageAssets.getImageByName( "world_wall" );
-    _tiles[ 2 ] = _imageAssets.getImageByName( "world_goal" );
-    _tiles[ 3 ] = _imageAssets.getImageByName( "world_tree" );
-    _tiles[ 4 ] = _imageAssets.getImageByName( "world_flag" );
+    _tiles[ 0 ] = _atlas.getSprite( "world_road" );
+    _tiles[ 1 ] = _atlas.getSprite( "world_wall" );
+    _tiles[ 2 ] = _atlas.getSprite( "world_goal" );
+    _tiles[ 3 ] = _atlas.getSprite( "world_tree" );
+    _tiles[ 4 ] = _atlas.getSprite( "world_flag" );
     _tiles[ 5 ] = _tiles[ 0 ];
     _tiles[ 6 ] = _tiles[ 0 ];
 
@@ -59,6 +99,9 @@ public class Adventure
     resetGame();
 
     runFrame();
+    // Startup time is measured from the start of navigation to compare the cost of loading assets.
+    // The mark appears in the performance timeline of the developer tools rather than in the console.
+    DomGlobal.performance.mark( FIRST_FRAME_MARK );
     DomGlobal.setInterval( v -> runFrame(), FRAME_DELAY );
   }
 
@@ -225,7 +268,7 @@ public class Adventure
 
     if ( _showMouseCoords )
     {
-      _renderer.drawText( _mouseX, _mouseY, _mouseX + "," + _mouseY, "yellow" );
+      _renderer.drawDebugCoordinates( _mouseX, _mouseY, (int) Math.floor( _mouseX ), (int) Math.floor( _mouseY ) );
     }
     else if ( _showTrackCoords )
     {
@@ -233,16 +276,18 @@ public class Adventure
       final double trackRow = _world.toCellRow( _mouseY );
       if ( _world.isValidCell( trackCol, trackRow ) )
       {
-        _renderer.drawText( _mouseX, _mouseY, Math.floor( trackCol ) + "," + Math.floor( trackRow ), "yellow" );
+        _renderer.drawDebugCoordinates( _mouseX, _mouseY, (int) Math.floor( trackCol ), (int) Math.floor( trackRow ) );
       }
     }
+
+    _renderer.flush();
   }
 
   private void renderWarrior( @Nonnull final Warrior warrior, @Nonnull final String image )
   {
     final Body body = warrior.getBody();
-    final HTMLImageElement warriorImage = _imageAssets.getImageByName( image );
-    _renderer.drawImageWithRotation( warriorImage, body.getX(), body.getY(), body.getAngle() );
+    final Sprite warriorSprite = _atlas.getSprite( image );
+    _renderer.drawImageWithRotation( warriorSprite, body.getX(), body.getY(), body.getAngle() );
   }
 
   private void drawWorld()
@@ -0,0 +1,32 @@
+package org.realityforge.arcade.adventure;
+
+/**
+ * The position of each image in the atlas.
+ * Generated by org.realityforge.arcade.tools.AtlasPacker from the images in the public directory.
+ * Do not edit.
+ */
+final class AtlasIndex
+{
+  static final String IMAGE = "atlas.png";
+  static final String[] NAMES = new String[]{
+    "warrior",
+    "world_flag",
+    "world_goal",
+    "world_road",
+    "world_tree",
+    "world_wall"
+  };
+  // The x, y, width and height of each image in the atlas
+  static final int[] RECTANGLES = new int[]{
+    0, 0, 50, 50,
+    52, 0, 50, 50,
+    0, 52, 50, 50,
+    52, 52, 50, 50,
+    0, 104, 50, 50,
+    52, 104, 50, 50
+  };
+
+  private AtlasIndex()
+  {
+  }
+}
@@ -3,18 +3,29 @@ package org.realityforge.arcade.adventure;
 import elemental2.dom.CanvasRenderingContext2D;
 import elemental2.dom.DomGlobal;
 import elemental2.dom.HTMLCanvasElement;
-import elemental2.dom.HTMLImageElement;
 import javax.annotation.Nonnull;
 import jsinterop.base.Js;
+import org.realityforge.arcade.render.GlyphAtlas;
+import org.realityforge.arcade.render.RenderCommandBuffer;
+import org.realityforge.arcade.render.RotatedSpriteCache;
+import org.realityforge.arcade.render.Sprite;
 
 final class Renderer
 {
   private static final int WORLD_WIDTH = 800;
   private static final int WORLD_HEIGHT = 600;
+  private static final String DEBUG_TEXT_COLOR = "yellow";
   @Nonnull
   private final HTMLCanvasElement _canvas;
   @Nonnull
   private final CanvasRenderingContext2D _context;
+  @Nonnull
+  private final RenderCommandBuffer _commands;
+  // Debug overlays are drawn from an atlas so that coordinates are not formatted into strings every frame
+  @Nonnull
+  private final GlyphAtlas _debugText;
+  @Nonnull
+  private final RotatedSpriteCache _rotations = new RotatedSpriteCache();
 
   Renderer()
   {
@@ -23,6 +34,8 @@ final class Renderer
     _canvas.width = WORLD_WIDTH;
     DomGlobal.document.documentElement.appendChild( _canvas );
     _context = Js.uncheckedCast( _canvas.getContext( "2d" ) );
+    _commands = new RenderCommandBuffer( _context );
+    _debugText = new GlyphAtlas( DEBUG_TEXT_COLOR );
   }
 
   @Nonnull
@@ -31,28 +44,43 @@ final class Renderer
     return _canvas;
   }
 
-  void drawImageWithRotation( @Nonnull final HTMLImageElement image,
+  /**
+   * Draw any buffered fill commands.
+   * Images are drawn immediately so pending fills are flushed first to preserve the drawing order.
+   */
+  void flush()
+  {
+    _commands.flush();
+  }
+
+  /**
+   * Draw the sprite centered on the specified point and rotated to the angle.
+   * The sprite is copied from a cache of pre-rotated sprites rather than drawn by transforming the context.
+   */
+  void drawImageWithRotation( @Nonnull final Sprite sprite,
                               final double centerX,
                               final double centerY,
                               final double angleInRadians )
   {
-    // Save the context and push it onto stack
-    // This is presumable rotation matrix and friends although unclear exactly what is included)
-    _context.save();
-
-    _context.translate( centerX, centerY );
-    _context.rotate( angleInRadians );
-
-    // X/Y indicate center where drawImage is top left corner
-    _context.drawImage( image, -image.width / 2D, -image.height / 2D );
+    flush();
+    final HTMLCanvasElement rotated = _rotations.getRotation( sprite, angleInRadians );
+    // Whole pixel positions avoid filtering the copy
+    _context.drawImage( rotated,
+                        Math.round( centerX - rotated.width / 2D ),
+                        Math.round( centerY - rotated.height / 2D ) );
+  }
 
-    // Pop state to return to transform matrix prior to method call
-    _context.restore();
+  void drawImage( @Nonnull final Sprite sprite, final double topX, final double topY )
+  {
+    flush();
+    drawSprite( sprite, topX, topY );
   }
 
-  void drawImage( @Nonnull final HTMLImageElement image, final double topX, final double topY )
+  private void drawSprite( @Nonnull final Sprite sprite, final double topX, final double topY )
   {
-    _context.drawImage( image, topX, topY );
+    final int width = sprite.getWidth();
+    final int height = sprite.getHeight();
+    _context.drawImage( sprite.getImage(), sprite.getX(), sprite.getY(), width, height, topX, topY, width, height );
   }
 
   @SuppressWarnings( "SameParameterValue" )
@@ -62,8 +90,7 @@ final class Renderer
                  final double height,
                  @Nonnull final String color )
   {
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( color );
-    _context.fillRect( topLeftX, topLeftY, width, height );
+    _commands.fillRect( topLeftX, topLeftY, width, height, color );
   }
 
   @SuppressWarnings( "SameParameterValue" )
@@ -72,7 +99,17 @@ final class Renderer
                  @Nonnull final String text,
                  @Nonnull final String color )
   {
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( color );
-    _context.fillText( text, bottomLeftX, bottomLeftY );
+    _commands.fillText( bottomLeftX, bottomLeftY, text, color );
+  }
+
+  /**
+   * Draw a pair of coordinates, separated by a comma, as debug text.
+   */
+  void drawDebugCoordinates( final double bottomLeftX, final double bottomLeftY, final int first, final int second )
+  {
+    flush();
+    double x = _debugText.drawInt( _context, bottomLeftX, bottomLeftY, first );
+    x = _debugText.drawChar( _context, x, bottomLeftY, ',' );
+    _debugText.drawInt( _context, x, bottomLeftY, second );
   }
 }
@@ -0,0 +1,107 @@
+package org.realityforge.arcade.breakout;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * The balls in play, stored as parallel arrays of primitives rather than an object per ball.
+ * Removing a ball moves the last ball into its slot so the live balls are always packed at the
+ * start of the arrays and the order of balls is not stable across removals.
+ */
+final class Balls
+{
+  private static final int INITIAL_CAPACITY = 8;
+  @Nonnull
+  private double[] _x = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _y = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _speedX = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _speedY = new double[ INITIAL_CAPACITY ];
+  private int _count;
+
+  int getCount()
+  {
+    return _count;
+  }
+
+  double getX( final int index )
+  {
+    return _x[ index ];
+  }
+
+  void setX( final int index, final double x )
+  {
+    _x[ index ] = x;
+  }
+
+  double getY( final int index )
+  {
+    return _y[ index ];
+  }
+
+  void setY( final int index, final double y )
+  {
+    _y[ index ] = y;
+  }
+
+  double getSpeedX( final int index )
+  {
+    return _speedX[ index ];
+  }
+
+  void setSpeedX( final int index, final double speedX )
+  {
+    _speedX[ index ] = speedX;
+  }
+
+  double getSpeedY( final int index )
+  {
+    return _speedY[ index ];
+  }
+
+  void setSpeedY( final int index, final double speedY )
+  {
+    _speedY[ index ] = speedY;
+  }
+
+  /**
+   * Add a ball and return its index.
+   */
+  int add( final double x, final double y, final double speedX, final double speedY )
+  {
+    if ( _count == _x.length )
+    {
+      final int capacity = _count * 2;
+      _x = Arrays.copyOf( _x, capacity );
+      _y = Arrays.copyOf( _y, capacity );
+      _speedX = Arrays.copyOf( _speedX, capacity );
+      _speedY = Arrays.copyOf( _speedY, capacity );
+    }
+    final int index = _count++;
+    _x[ index ] = x;
+    _y[ index ] = y;
+    _speedX[ index ] = speedX;
+    _speedY[ index ] = speedY;
+    return index;
+  }
+
+  /**
+   * Remove the ball at the specified index by moving the last ball into its slot.
+   */
+  void remove( final int index )
+  {
+    assert index >= 0 && index < _count;
+    final int last = --_count;
+    _x[ index ] = _x[ last ];
+    _y[ index ] = _y[ last ];
+    _speedX[ index ] = _speedX[ last ];
+    _speedY[ index ] = _speedY[ last ];
+  }
+
+  void clear()
+  {
+    _count = 0;
+  }
+}
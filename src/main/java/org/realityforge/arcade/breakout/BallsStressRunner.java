@@ -0,0 +1,112 @@
+package org.realityforge.arcade.breakout;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import javax.annotation.Nonnull;
+
+/**
+ * Measures the time and allocation of a simulation tick as the number of balls in play grows, to check that
+ * the cost of a tick scales with the number of balls and that ticks do not allocate per ball.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. The ball counts are passed as
+ * arguments and default to 1, 100, 1000 and 10000, for example:</p>
+ *
+ * <pre>java org.realityforge.arcade.breakout.BallsStressRunner 1 100 1000 10000</pre>
+ *
+ * <p>Balls are played on the standard board and start at random positions with random velocities. Balls that
+ * are missed are replaced after each tick so the number of balls in play stays constant. Only the ticks are
+ * timed. Allocation is measured with the HotSpot thread allocation counter.</p>
+ */
+final class BallsStressRunner
+{
+  private static final double WORLD_WIDTH = 800D;
+  private static final double WORLD_HEIGHT = 600D;
+  private static final int SEED = 42;
+  private static final double MIN_SPEED = 2D;
+  private static final double MAX_SPEED = 10D;
+  private static final int WARMUP_TICKS = 5_000;
+  // Ticks are run until at least this much time has been measured
+  private static final long MIN_MEASURED_NANOS = 2_000_000_000L;
+
+  private BallsStressRunner()
+  {
+  }
+
+  public static void main( final String[] args )
+  {
+    final int[] ballCounts = 0 == args.length ? new int[]{ 1, 100, 1000, 10000 } : new int[ args.length ];
+    for ( int i = 0; i < args.length; i++ )
+    {
+      ballCounts[ i ] = Integer.parseInt( args[ i ] );
+    }
+    for ( final int ballCount : ballCounts )
+    {
+      run( ballCount );
+    }
+  }
+
+  private static void run( final int ballCount )
+  {
+    final BreakoutSimulation simulation = new BreakoutSimulation( WORLD_WIDTH, WORLD_HEIGHT, SEED );
+    final BreakoutInput input = new BreakoutInput();
+    final SplittableRandom random = new SplittableRandom( SEED );
+    final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long threadId = Thread.currentThread().getId();
+    simulation.getBalls().clear();
+    addBalls( simulation.getBalls(), ballCount, random );
+
+    for ( int i = 0; i < WARMUP_TICKS; i++ )
+    {
+      tick( simulation, input, ballCount, random );
+    }
+    final long startBytes = threads.getThreadAllocatedBytes( threadId );
+    long ticks = 0;
+    long elapsed = 0;
+    while ( elapsed < MIN_MEASURED_NANOS )
+    {
+      elapsed += tick( simulation, input, ballCount, random );
+      ticks++;
+    }
+    final long allocated = threads.getThreadAllocatedBytes( threadId ) - startBytes;
+    System.out.printf( Locale.ROOT,
+                       "%6d balls: %10.3f us/tick %8.2f ns/ball %8.2f bytes allocated/tick%n",
+                       ballCount,
+                       elapsed / 1_000D / ticks,
+                       elapsed / (double) ticks / ballCount,
+                       allocated / (double) ticks );
+  }
+
+  /**
+   * Run a single tick and then replace the balls that were missed.
+   *
+   * @return the time, in nanoseconds, taken by the tick.
+   */
+  private static long tick( @Nonnull final BreakoutSimulation simulation,
+                            @Nonnull final BreakoutInput input,
+                            final int ballCount,
+                            @Nonnull final SplittableRandom random )
+  {
+    final long start = System.nanoTime();
+    simulation.tick( input );
+    final long elapsed = System.nanoTime() - start;
+    final Balls balls = simulation.getBalls();
+    addBalls( balls, ballCount - balls.getCount(), random );
+    return elapsed;
+  }
+
+  private static void addBalls( @Nonnull final Balls balls, final int count, @Nonnull final SplittableRandom random )
+  {
+    final double radius = BreakoutSimulation.BALL_RADIUS;
+    for ( int i = 0; i < count; i++ )
+    {
+      final double angle = random.nextDouble( Math.PI * 2D );
+      final double speed = random.nextDouble( MIN_SPEED, MAX_SPEED );
+      balls.add( random.nextDouble( radius, WORLD_WIDTH - radius ),
+                 random.nextDouble( radius, WORLD_HEIGHT / 2D ),
+                 Math.cos( angle ) * speed,
+                 Math.sin( angle ) * speed );
+    }
+  }
+}
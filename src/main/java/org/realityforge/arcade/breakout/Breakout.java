@@ -1,6 +1,8 @@
 package org.realityforge.arcade.breakout;
 
 import com.google.gwt.core.client.EntryPoint;
+import elemental2.core.ArrayBuffer;
+import elemental2.core.Uint8Array;
 import elemental2.dom.CanvasRenderingContext2D;
 import elemental2.dom.DOMRect;
 import elemental2.dom.DomGlobal;
@@ -8,52 +10,44 @@ import elemental2.dom.HTMLCanvasElement;
 import elemental2.dom.HTMLHtmlElement;
 import elemental2.dom.KeyboardEvent;
 import elemental2.dom.MouseEvent;
-import java.util.Arrays;
+import elemental2.dom.Response;
+import elemental2.promise.Promise;
 import javax.annotation.Nonnull;
 import jsinterop.base.Js;
+import org.realityforge.arcade.render.GlyphAtlas;
+import org.realityforge.arcade.render.QueryParameters;
+import org.realityforge.arcade.render.RenderCommandBuffer;
 
 public class Breakout
   implements EntryPoint
 {
   private static final int WORLD_WIDTH = 800;
   private static final int WORLD_HEIGHT = 600;
-  private static final int BRICKS_PER_ROW = 8;
-  private static final int BRICK_ROWS = 14;
-  private static final double BRICK_WIDTH = WORLD_WIDTH * 1D / BRICKS_PER_ROW;
-  private static final double BRICK_HEIGHT = 20D;
-  private static final double BRICK_GAP = 2D;
-  private static final double SPACE_ABOVE_BRICKS = BRICK_HEIGHT * 3;
   private static final int FRAMES_PER_SECOND = 30;
   private static final int MILLIS_PER_SECOND = 1000;
   private static final int FRAME_DELAY = MILLIS_PER_SECOND / FRAMES_PER_SECOND;
-  private static final double BALL_RADIUS = 10D;
-  private static final double PADDLE_HEIGHT = 10D;
-  private static final double PADDLE_WIDTH = 100D;
-  private static final double HALF_PADDLE_WIDTH = PADDLE_WIDTH / 2;
-  private static final double MAX_INITIAL_X_SPEED = 8D;
-  private static final double MIN_INITIAL_X_SPEED = 0.5D;
-  private static final double MAX_INITIAL_Y_SPEED = 12D;
-  private static final double MIN_INITIAL_Y_SPEED = 7D;
-  private static final double MAX_REFLECT_SPEED = 12.5D;
-  // This is multiplied by the distance from the center of the paddle. So maximum force is transfered when you
-  // ht the edges of the paddle while hitting the center of the paddle results in almost vertical reflection
-  private static final double HORIZONTAL_REFLECT_FORCE_TRANSFER = ( 2 * MAX_REFLECT_SPEED ) / PADDLE_WIDTH;
-  // The amount that the paddle is inset from the bottom of the screen
-  private static final double PADDLE_Y_INSET = 50D;
-  private static final boolean[] brickGrid = new boolean[ BRICKS_PER_ROW * BRICK_ROWS ];
-  private static int _bricksLeft;
+  // Past this many regions it is cheaper to copy the entire brick layer than each region
+  private static final int MAX_DIRTY_REGIONS = 64;
+  // The query parameter naming the url of a brick layout to play instead of the standard layout
+  private static final String LEVEL_PARAMETER = "level";
+  // Layouts with urls that end with this suffix are in the binary format, otherwise they are text
+  private static final String BINARY_LEVEL_SUFFIX = ".brk";
+  // The number of cells parsed before yielding to the browser while loading a level
+  private static final int LEVEL_CELLS_PER_SLICE = 64 * 1024;
+  @Nonnull
+  private final BreakoutInput _input = new BreakoutInput();
+  private BreakoutSimulation _simulation;
+  private BreakoutRecorder _recorder;
+  private BrickLayer _brickLayer;
+  private DirtyRegions _dirtyRegions;
   private HTMLCanvasElement _canvas;
   private CanvasRenderingContext2D _context;
-  private double _ballX;
-  private double _ballY;
-  private double _ballSpeedX;
-  private double _ballSpeedY;
-  private double _paddlePositionX;
+  private RenderCommandBuffer _commands;
+  // Debug overlays are drawn from an atlas so that coordinates are not formatted into strings every frame
+  private GlyphAtlas _debugText;
   private boolean _simulationActive = true;
   private boolean _showMouseCoords = false;
   private boolean _showBrickCoords = false;
-  private boolean _ballToMouseLeft = false;
-  private boolean _ballToMouseRight = false;
   private double _mouseX;
   private double _mouseY;
 
@@ -65,23 +59,106 @@ public class Breakout
     _canvas.width = WORLD_WIDTH;
     DomGlobal.document.documentElement.appendChild( _canvas );
     _context = Js.uncheckedCast( _canvas.getContext( "2d" ) );
+    _commands = new RenderCommandBuffer( _context );
+    _debugText = new GlyphAtlas( "yellow" );
 
     // Center paddle
-    _paddlePositionX = _canvas.width / 2D - ( PADDLE_WIDTH / 2D );
+    _input.setMousePosition( _canvas.width / 2D, 0D );
 
     _canvas.addEventListener( "mousemove", e -> calculateMousePosition( (MouseEvent) e ) );
     DomGlobal.document.addEventListener( "keydown", e -> onKeyPress( (KeyboardEvent) e ) );
 
-    resetGame();
+    final String levelUrl = QueryParameters.get( LEVEL_PARAMETER );
+    if ( null == levelUrl )
+    {
+      startGame( BreakoutSimulation.createStandardBricks() );
+    }
+    else
+    {
+      drawLoadingScreen( 0D );
+      final Promise<BrickLayoutLoader> loader =
+        levelUrl.endsWith( BINARY_LEVEL_SUFFIX ) ?
+        DomGlobal.fetch( levelUrl )
+          .then( Response::arrayBuffer )
+          .then( buffer -> Promise.resolve( BrickLayoutLoader.fromBinary( toByteArray( buffer ) ) ) ) :
+        DomGlobal.fetch( levelUrl )
+          .then( Response::text )
+          .then( text -> Promise.resolve( BrickLayoutLoader.fromText( text ) ) );
+      loader
+        .then( l -> {
+          loadLevel( levelUrl, l );
+          return null;
+        } )
+        .catch_( error -> {
+          startStandardGame( levelUrl, error );
+          return null;
+        } );
+    }
+  }
 
-    runFrame();
-    DomGlobal.setInterval( v -> runFrame(), FRAME_DELAY );
+  @Nonnull
+  private static byte[] toByteArray( @Nonnull final ArrayBuffer buffer )
+  {
+    final Uint8Array array = new Uint8Array( buffer );
+    final byte[] data = new byte[ array.length ];
+    for ( int i = 0; i < data.length; i++ )
+    {
+      data[ i ] = array.getAt( i ).byteValue();
+    }
+    return data;
+  }
+
+  /**
+   * Parse the level a slice at a time, yielding between slices so that the page stays responsive.
+   * Later slices run from a timer rather than the promise chain so each slice handles its own errors.
+   */
+  private void loadLevel( @Nonnull final String levelUrl, @Nonnull final BrickLayoutLoader loader )
+  {
+    final boolean complete;
+    try
+    {
+      complete = loader.parse( LEVEL_CELLS_PER_SLICE );
+    }
+    catch ( final IllegalArgumentException e )
+    {
+      startStandardGame( levelUrl, e );
+      return;
+    }
+    if ( complete )
+    {
+      startGame( loader.getBricks() );
+    }
+    else
+    {
+      drawLoadingScreen( loader.getProgress() );
+      DomGlobal.setTimeout( v -> loadLevel( levelUrl, loader ), 0 );
+    }
   }
 
-  private void resetBricks()
+  private void startStandardGame( @Nonnull final String levelUrl, @Nonnull final Object error )
   {
-    _bricksLeft = brickGrid.length;
-    Arrays.fill( brickGrid, true );
+    DomGlobal.console.log( "Failed to load level " + levelUrl + ". Using the standard layout.", error );
+    startGame( BreakoutSimulation.createStandardBricks() );
+  }
+
+  private void drawLoadingScreen( final double progress )
+  {
+    drawRect( 0, 0, _canvas.width, _canvas.height, "black" );
+    drawText( _canvas.width / 2D - 50, _canvas.height / 2D,
+              "Loading level... " + (int) ( progress * 100 ) + "%", "white" );
+    _commands.flush();
+  }
+
+  private void startGame( @Nonnull final BrickGrid bricks )
+  {
+    final int seed = (int) ( Math.random() * Integer.MAX_VALUE );
+    _simulation = new BreakoutSimulation( _canvas.width, _canvas.height, seed, bricks );
+    _recorder = new BreakoutRecorder( seed );
+    _brickLayer = new BrickLayer( _simulation );
+    _dirtyRegions = new DirtyRegions( _canvas.width, _canvas.height, MAX_DIRTY_REGIONS );
+
+    runFrame();
+    DomGlobal.setInterval( v -> runFrame(), FRAME_DELAY );
   }
 
   private void onKeyPress( @Nonnull final KeyboardEvent event )
@@ -105,38 +182,34 @@ public class Breakout
     // the 3 key instantly transports ball to mouse and changes direction to left direction
     else if ( "3".equals( event.key ) )
     {
-      _ballX = _mouseX;
-      _ballY = _mouseY;
-      _ballSpeedX = 4D;
-      _ballSpeedY = -4D;
+      _input.addAction( BreakoutInput.ACTION_BALL_TO_MOUSE_MOVING_RIGHT );
     }
     // the 4 key instantly transports ball to mouse and changes direction to right direction
     else if ( "4".equals( event.key ) )
     {
-      _ballX = _mouseX;
-      _ballY = _mouseY;
-      _ballSpeedX = -4D;
-      _ballSpeedY = -4D;
+      _input.addAction( BreakoutInput.ACTION_BALL_TO_MOUSE_MOVING_LEFT );
     }
     // the 5 key transports ball to mouse when the mouse moves and changes direction to left direction
     // the control is a toggle
     else if ( "5".equals( event.key ) )
     {
-      _ballToMouseLeft = !_ballToMouseLeft;
-      if ( _ballToMouseLeft )
-      {
-        _ballToMouseRight = false;
-      }
+      _input.addAction( BreakoutInput.ACTION_TOGGLE_BALL_FOLLOWS_MOUSE_MOVING_LEFT );
     }
     // the 6 key transports ball to mouse when the mouse moves and changes direction to left direction
     // the control is a toggle
     else if ( "6".equals( event.key ) )
     {
-      _ballToMouseRight = !_ballToMouseRight;
-      if ( _ballToMouseRight )
-      {
-        _ballToMouseLeft = false;
-      }
+      _input.addAction( BreakoutInput.ACTION_TOGGLE_BALL_FOLLOWS_MOUSE_MOVING_RIGHT );
+    }
+    // the 7 key starts multi-ball by serving extra balls
+    else if ( "7".equals( event.key ) )
+    {
+      _input.addAction( BreakoutInput.ACTION_MULTI_BALL );
+    }
+    // the 8 key logs the recording of the session so far so that it can be replayed
+    else if ( "8".equals( event.key ) && null != _recorder )
+    {
+      logRecording();
     }
   }
 
@@ -152,259 +225,116 @@ public class Breakout
     _mouseX = event.clientX - rect.x - root.scrollLeft;
     _mouseY = event.clientY - rect.top - root.scrollTop;
 
-    // Our pointer should be center of paddle and the paddle can not go outside bounds
-    _paddlePositionX = limitPaddleToScreen( _mouseX - HALF_PADDLE_WIDTH );
-
-    if ( _ballToMouseLeft )
-    {
-      _ballX = _mouseX;
-      _ballY = _mouseY;
-      _ballSpeedX = -4D;
-      _ballSpeedY = -4D;
-    }
-    else if ( _ballToMouseRight )
-    {
-      _ballX = _mouseX;
-      _ballY = _mouseY;
-      _ballSpeedX = 4D;
-      _ballSpeedY = -4D;
-    }
+    // The paddle is moved to the pointer when the simulation next ticks
+    _input.mouseMoved( _mouseX, _mouseY );
   }
 
-  // Make sure paddle never goes off screen
-  private double limitPaddleToScreen( final double paddlePosition )
+  private void logRecording()
   {
-    return Math.min( Math.max( 0, paddlePosition ), _canvas.width - PADDLE_WIDTH );
-  }
-
-  private void runFrame()
-  {
-    if ( _simulationActive )
+    final byte[] data = _recorder.toByteArray();
+    final StringBuilder sb = new StringBuilder( data.length );
+    for ( final byte b : data )
     {
-      simulateWorld();
+      sb.append( (char) ( b & 0xFF ) );
     }
-    renderWorld();
-  }
-
-  private void simulateWorld()
-  {
-    moveBall();
-
-    ballBrickCollisionDetection();
-
-    ballPaddleColisionDetection();
+    DomGlobal.console.log( "Recorded " + _recorder.getFrameCount() + " frames in " + data.length + " bytes. " +
+                           "State hash: " + _simulation.computeStateHash() );
+    DomGlobal.console.log( DomGlobal.btoa( sb.toString() ) );
   }
 
-  private void moveBall()
+  private void runFrame()
   {
-    _ballX += _ballSpeedX;
-    _ballY += _ballSpeedY;
-
-    final double ballTopY = _ballY - BALL_RADIUS;
-    final double ballBottomY = _ballY + BALL_RADIUS;
-    final double ballLeftX = _ballX - BALL_RADIUS;
-    final double ballRightX = _ballX + BALL_RADIUS;
-
-    // Bounce off the top edge
-    if ( ballTopY < 0 )
-    {
-      // Ensure that if the ball is coming down because it has somehow got above
-      // the world then let it continue coming down
-      if ( _ballSpeedY < 0 )
-      {
-        _ballSpeedY = -_ballSpeedY;
-      }
-    }
-    // Reset game if missed and ball falls off the bottom edge
-    else if ( ballBottomY > _canvas.height )
+    if ( _simulationActive )
     {
-      resetGame();
+      _recorder.recordTick( _input );
+      _simulation.tick( _input );
+      _input.clearEvents();
     }
-    // Bounce off the side edges
-    else if ( ballRightX > _canvas.width )
+    else
     {
-      // If the ball is outside the world coming in then let
-      // it, otherwise reverse it back towards the world.
-      // Sometimes the paddle will jump it outside the world
-      if ( _ballSpeedX > 0 )
-      {
-        _ballSpeedX = -_ballSpeedX;
-      }
-    }
-    else if ( ballLeftX < 0 )
-    {
-      // If the ball is outside the world coming in then let
-      // it, otherwise reverse it back towards the world.
-      // Sometimes the paddle will jump it outside the world
-      if ( _ballSpeedX < 0 )
-      {
-        _ballSpeedX = -_ballSpeedX;
-      }
-    }
-  }
-
-  private void ballReset()
-  {
-    _ballSpeedX = ( Math.random() < 0.5 ? -1D : 1D ) * randomValue( MIN_INITIAL_X_SPEED, MAX_INITIAL_X_SPEED );
-    _ballSpeedY = randomValue( MIN_INITIAL_Y_SPEED, MAX_INITIAL_Y_SPEED );
-
-    _ballX = _canvas.width / 2D;
-    _ballY = ( BRICK_HEIGHT * BRICK_ROWS ) + SPACE_ABOVE_BRICKS + BRICK_HEIGHT;
-  }
-
-  private void ballBrickCollisionDetection()
-  {
-    final int ballBrickCol = toBrickColumn( _ballX );
-    final int ballBrickRow = toBrickRow( _ballY );
-    if ( isValidBrickCoordinates( ballBrickCol, ballBrickRow ) )
-    {
-      if ( brickGrid[ brickIndex( ballBrickCol, ballBrickRow ) ] )
-      {
-        brickGrid[ brickIndex( ballBrickCol, ballBrickRow ) ] = false;
-        _bricksLeft--;
-
-        final int prevBallBrickCol = toBrickColumn( _ballX - _ballSpeedX );
-        final int prevBallBrickRow = toBrickRow( _ballY - _ballSpeedY );
-        if ( prevBallBrickCol != ballBrickCol )
-        {
-          if (
-            // Don't reflect if we hit a horizontal surface
-            !brickGrid[ brickIndex( prevBallBrickCol, ballBrickRow ) ] ||
-
-            // This next condition handles the scenario where hit inside corner where we still want to reverse
-            brickGrid[ brickIndex( ballBrickCol, prevBallBrickRow ) ] )
-          {
-            _ballSpeedX = -_ballSpeedX;
-          }
-        }
-        if ( prevBallBrickRow != ballBrickRow )
-        {
-          if (
-            // Don't reflect if we hit a vertical surface
-            !brickGrid[ brickIndex( ballBrickCol, prevBallBrickRow ) ] ||
-
-            // This next condition handles the scenario where hit inside corner where we still want to reverse
-            brickGrid[ brickIndex( prevBallBrickCol, ballBrickRow ) ] )
-          {
-            _ballSpeedY = -_ballSpeedY;
-          }
-        }
-      }
+      _recorder.recordPause();
     }
+    renderWorld();
   }
 
-  private void ballPaddleColisionDetection()
+  private void renderWorld()
   {
-    final double ballTopY = _ballY - BALL_RADIUS;
-    final double ballBottomY = _ballY + BALL_RADIUS;
-    final double ballLeftX = _ballX - BALL_RADIUS;
-    final double ballRightX = _ballX + BALL_RADIUS;
+    // Patch any cleared bricks into the cached layer, marking their cells as dirty
+    _brickLayer.update( _dirtyRegions );
 
-    final double paddleTopY = _canvas.height - PADDLE_Y_INSET;
-    final double paddleBottomY = paddleTopY + PADDLE_HEIGHT;
-    final double paddleLeftX = _paddlePositionX;
-    final double paddleRightX = _paddlePositionX + PADDLE_WIDTH;
+    // Restore the background and bricks wherever something was drawn over them last frame
+    repaintDirtyRegions();
 
-    if ( ballRightX > paddleLeftX &&
-         ballLeftX < paddleRightX &&
-         ballTopY < paddleBottomY &&
-         ballBottomY > paddleTopY )
+    // Player Paddle
+    final double paddleX = _simulation.getPaddlePositionX();
+    final double paddleY = _simulation.getPaddleTopY();
+    drawRect( paddleX, paddleY, BreakoutSimulation.PADDLE_WIDTH, BreakoutSimulation.PADDLE_HEIGHT, "white" );
+    _dirtyRegions.add( paddleX, paddleY, BreakoutSimulation.PADDLE_WIDTH, BreakoutSimulation.PADDLE_HEIGHT );
+
+    // Balls
+    final Balls balls = _simulation.getBalls();
+    final int ballCount = balls.getCount();
+    for ( int i = 0; i < ballCount; i++ )
     {
-      // If we have emptied out all the blocks then the next time it bounces off the paddle the game is won
-      // and the board is reset
-      if ( 0 == _bricksLeft )
-      {
-        resetGame();
-      }
-      else
-      {
-        _ballSpeedY = -_ballSpeedY;
-
-        // This gives ball control as in Tennis game
-        final double paddleCenter = _paddlePositionX + HALF_PADDLE_WIDTH;
-        final double ballDistanceFromPaddleCenter = _ballX - paddleCenter;
-        _ballSpeedX = ballDistanceFromPaddleCenter * HORIZONTAL_REFLECT_FORCE_TRANSFER;
-      }
+      final double ballX = balls.getX( i );
+      final double ballY = balls.getY( i );
+      drawCircle( ballX, ballY, BreakoutSimulation.BALL_RADIUS, "red" );
+      _dirtyRegions.add( ballX - BreakoutSimulation.BALL_RADIUS,
+                         ballY - BreakoutSimulation.BALL_RADIUS,
+                         BreakoutSimulation.BALL_RADIUS * 2,
+                         BreakoutSimulation.BALL_RADIUS * 2 );
     }
-  }
-
-  private void resetGame()
-  {
-    resetBricks();
-    ballReset();
-  }
-
-  private double randomValue( final double min, final double max )
-  {
-    return ( Math.random() * ( max - min ) ) + min;
-  }
-
-  private void renderWorld()
-  {
-    // Background
-    clearBackground();
-
-    // Player Paddle
-    drawRect( _paddlePositionX, _canvas.height - PADDLE_Y_INSET, PADDLE_WIDTH, PADDLE_HEIGHT, "white" );
-
-    drawBricks();
 
-    // Ball
-    drawCircle( _ballX, _ballY, BALL_RADIUS, "red" );
+    _commands.flush();
 
     if ( _showMouseCoords )
     {
-      drawText( _mouseX, _mouseY, _mouseX + "," + _mouseY, "yellow" );
+      drawDebugCoordinates( _mouseX, _mouseY, (int) Math.floor( _mouseX ), (int) Math.floor( _mouseY ) );
+      // Text extents are not tracked so the next frame repaints everything
+      _dirtyRegions.markAllDirty();
     }
     else if ( _showBrickCoords )
     {
-      final double brickCol = toBrickColumn( _mouseX );
-      final double brickRow = toBrickRow( _mouseY );
-      if ( isValidBrickCoordinates( brickCol, brickRow ) )
+      final double brickCol = _simulation.toBrickColumn( _mouseX );
+      final double brickRow = _simulation.toBrickRow( _mouseY );
+      if ( _simulation.isValidBrickCoordinates( brickCol, brickRow ) )
       {
-        drawText( _mouseX, _mouseY, Math.floor( brickCol ) + "," + Math.floor( brickRow ), "yellow" );
+        drawDebugCoordinates( _mouseX, _mouseY, (int) Math.floor( brickCol ), (int) Math.floor( brickRow ) );
+        _dirtyRegions.markAllDirty();
       }
     }
   }
 
-  private boolean isValidBrickCoordinates( final double brickCol, final double brickRow )
+  private void drawDebugCoordinates( final double bottomLeftX,
+                                     final double bottomLeftY,
+                                     final int first,
+                                     final int second )
   {
-    return brickCol >= 0 && brickCol < BRICKS_PER_ROW && brickRow >= 0 && brickRow < BRICK_ROWS;
+    double x = _debugText.drawInt( _context, bottomLeftX, bottomLeftY, first );
+    x = _debugText.drawChar( _context, x, bottomLeftY, ',' );
+    _debugText.drawInt( _context, x, bottomLeftY, second );
   }
 
-  private int toBrickRow( final double mouseY )
+  private void repaintDirtyRegions()
   {
-    return (int) Math.floor( ( mouseY - SPACE_ABOVE_BRICKS ) / BRICK_HEIGHT );
-  }
-
-  private int toBrickColumn( final double x )
-  {
-    return (int) Math.floor( x / BRICK_WIDTH );
-  }
-
-  private void drawBricks()
-  {
-    for ( int i = 0; i < BRICK_ROWS; i++ )
+    final HTMLCanvasElement layer = _brickLayer.getCanvas();
+    if ( _dirtyRegions.isOverflowed() )
+    {
+      _context.drawImage( layer, 0D, 0D );
+    }
+    else
     {
-      final double rowY = SPACE_ABOVE_BRICKS + i * BRICK_HEIGHT;
-      for ( int j = 0; j < BRICKS_PER_ROW; j++ )
+      final int count = _dirtyRegions.getCount();
+      for ( int i = 0; i < count; i++ )
       {
-        if ( brickGrid[ brickIndex( j, i ) ] )
-        {
-          drawRect( BRICK_WIDTH * j, rowY, BRICK_WIDTH - BRICK_GAP, BRICK_HEIGHT - BRICK_GAP, "blue" );
-        }
+        final double x = _dirtyRegions.getX( i );
+        final double y = _dirtyRegions.getY( i );
+        final double width = _dirtyRegions.getWidth( i );
+        final double height = _dirtyRegions.getHeight( i );
+        _context.drawImage( layer, x, y, width, height, x, y, width, height );
       }
     }
-  }
-
-  private int brickIndex( final int column, final int row )
-  {
-    return row * BRICKS_PER_ROW + column;
-  }
-
-  private void clearBackground()
-  {
-    drawRect( 0D, 0D, _canvas.width, _canvas.height, "black" );
+    _dirtyRegions.clear();
   }
 
   @SuppressWarnings( "SameParameterValue" )
@@ -413,8 +343,7 @@ public class Breakout
                          @Nonnull final String text,
                          @Nonnull final String color )
   {
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( color );
-    _context.fillText( text, bottomLeftX, bottomLeftY );
+    _commands.fillText( bottomLeftX, bottomLeftY, text, color );
   }
 
   @SuppressWarnings( "SameParameterValue" )
@@ -423,10 +352,7 @@ public class Breakout
                            final double radius,
                            @Nonnull final String color )
   {
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( color );
-    _context.beginPath();
-    _context.arc( centerX, centerY, radius, 0, Math.PI * 2 );
-    _context.fill();
+    _commands.fillCircle( centerX, centerY, radius, color );
   }
 
   @SuppressWarnings( "SameParameterValue" )
@@ -436,7 +362,6 @@ public class Breakout
                          final double height,
                          @Nonnull final String color )
   {
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( color );
-    _context.fillRect( topLeftX, topLeftY, width, height );
+    _commands.fillRect( topLeftX, topLeftY, width, height, color );
   }
 }
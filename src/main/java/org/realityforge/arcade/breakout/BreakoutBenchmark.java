@@ -0,0 +1,111 @@
+package org.realityforge.arcade.breakout;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import javax.annotation.Nonnull;
+
+/**
+ * Measures how many simulation ticks per second a single core can run, and how many bytes each tick allocates,
+ * for boards of different sizes. This is the rate at which recorded sessions can be verified by replaying them.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. The board sizes are passed as
+ * arguments of the form columnsxrows and default to the standard board, 256x256 and 1000x1000, for
+ * example:</p>
+ *
+ * <pre>java org.realityforge.arcade.breakout.BreakoutBenchmark 8x14 256x256 1000x1000</pre>
+ *
+ * <p>Every cell of the board holds a brick. The paddle follows the ball, offset by a random amount so that the
+ * ball rebounds at varied angles and keeps clearing bricks. Allocation is measured with the HotSpot thread
+ * allocation counter.</p>
+ */
+final class BreakoutBenchmark
+{
+  private static final double WORLD_WIDTH = 800D;
+  private static final double WORLD_HEIGHT = 600D;
+  private static final int SEED = 42;
+  // The largest distance between the ball and the center of the paddle, which is within the paddle
+  private static final double MAX_PADDLE_OFFSET = BreakoutSimulation.PADDLE_WIDTH * 0.4D;
+  private static final int WARMUP_TICKS = 50_000;
+  // Ticks are run in batches until at least this much time has been measured
+  private static final int TICKS_PER_BATCH = 10_000;
+  private static final long MIN_MEASURED_NANOS = 2_000_000_000L;
+
+  private BreakoutBenchmark()
+  {
+  }
+
+  public static void main( final String[] args )
+  {
+    final String[] sizes = 0 == args.length ? new String[]{ "8x14", "256x256", "1000x1000" } : args;
+    for ( final String size : sizes )
+    {
+      final int separator = size.indexOf( 'x' );
+      if ( -1 == separator )
+      {
+        throw new IllegalArgumentException( "Expected a board size of the form columnsxrows but got '" + size + "'" );
+      }
+      run( Integer.parseInt( size.substring( 0, separator ) ), Integer.parseInt( size.substring( separator + 1 ) ) );
+    }
+  }
+
+  private static void run( final int columns, final int rows )
+  {
+    final BrickGrid bricks = new BrickGrid( columns, rows );
+    bricks.fillInitial();
+    bricks.reset();
+    final BreakoutSimulation simulation = new BreakoutSimulation( WORLD_WIDTH, WORLD_HEIGHT, SEED, bricks );
+    final BreakoutInput input = new BreakoutInput();
+    final SplittableRandom random = new SplittableRandom( SEED );
+    final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long threadId = Thread.currentThread().getId();
+
+    tick( simulation, input, random, WARMUP_TICKS );
+    final long startBytes = threads.getThreadAllocatedBytes( threadId );
+    final long start = System.nanoTime();
+    long ticks = 0;
+    long bricksCleared = 0;
+    long elapsed;
+    do
+    {
+      bricksCleared += tick( simulation, input, random, TICKS_PER_BATCH );
+      ticks += TICKS_PER_BATCH;
+      elapsed = System.nanoTime() - start;
+    }
+    while ( elapsed < MIN_MEASURED_NANOS );
+    final long allocated = threads.getThreadAllocatedBytes( threadId ) - startBytes;
+    final double seconds = elapsed / 1_000_000_000D;
+    System.out.printf( Locale.ROOT,
+                       "%5dx%-5d board: %10.0f ticks/s %8.3f us/tick %8.2f bytes allocated/tick (%d bricks cleared)%n",
+                       columns,
+                       rows,
+                       ticks / seconds,
+                       seconds * 1_000_000D / ticks,
+                       allocated / (double) ticks,
+                       bricksCleared );
+  }
+
+  /**
+   * @return the number of bricks cleared.
+   */
+  private static int tick( @Nonnull final BreakoutSimulation simulation,
+                           @Nonnull final BreakoutInput input,
+                           @Nonnull final SplittableRandom random,
+                           final int ticks )
+  {
+    int bricksCleared = 0;
+    for ( int tick = 0; tick < ticks; tick++ )
+    {
+      // Keep the paddle under the ball
+      final double offset = ( random.nextDouble() * 2D - 1D ) * MAX_PADDLE_OFFSET;
+      input.setMousePosition( simulation.getBalls().getX( 0 ) + offset, 0D );
+      final int bricksLeft = simulation.getBricksLeft();
+      simulation.tick( input );
+      input.clearEvents();
+      // The bricks are restored when the game is reset
+      bricksCleared += Math.max( 0, bricksLeft - simulation.getBricksLeft() );
+    }
+    return bricksCleared;
+  }
+}
@@ -0,0 +1,93 @@
+package org.realityforge.arcade.breakout;
+
+/**
+ * The input applied to the simulation in a single tick.
+ * The instance is mutable so that the same snapshot can be reused every tick without allocating.
+ * Positions are quantized so that they can be recorded compactly and replayed exactly.
+ */
+final class BreakoutInput
+{
+  // Actions are triggered by the debug keys and applied at the start of the next tick
+  // Transport the ball to the mouse and send it up and to the right
+  static final int ACTION_BALL_TO_MOUSE_MOVING_RIGHT = 1;
+  // Transport the ball to the mouse and send it up and to the left
+  static final int ACTION_BALL_TO_MOUSE_MOVING_LEFT = 1 << 1;
+  // Toggle transporting the ball to the mouse, moving up and to the left, whenever the mouse moves
+  static final int ACTION_TOGGLE_BALL_FOLLOWS_MOUSE_MOVING_LEFT = 1 << 2;
+  // Toggle transporting the ball to the mouse, moving up and to the right, whenever the mouse moves
+  static final int ACTION_TOGGLE_BALL_FOLLOWS_MOUSE_MOVING_RIGHT = 1 << 3;
+  // Serve extra balls
+  static final int ACTION_MULTI_BALL = 1 << 4;
+  static final int ACTION_COUNT = 5;
+  // The number of quantization steps per pixel
+  static final double POSITION_SCALE = 4D;
+  private double _mouseX;
+  private double _mouseY;
+  private boolean _mouseMoved;
+  private int _actions;
+
+  /**
+   * Return the x coordinate of the mouse. This is where the player wants the center of the paddle.
+   */
+  double getMouseX()
+  {
+    return _mouseX;
+  }
+
+  double getMouseY()
+  {
+    return _mouseY;
+  }
+
+  /**
+   * Set the mouse position without it counting as a mouse move.
+   */
+  void setMousePosition( final double mouseX, final double mouseY )
+  {
+    _mouseX = quantize( mouseX );
+    _mouseY = quantize( mouseY );
+  }
+
+  /**
+   * Return true if the mouse has moved since the last tick.
+   */
+  boolean isMouseMoved()
+  {
+    return _mouseMoved;
+  }
+
+  void mouseMoved( final double mouseX, final double mouseY )
+  {
+    setMousePosition( mouseX, mouseY );
+    _mouseMoved = true;
+  }
+
+  int getActions()
+  {
+    return _actions;
+  }
+
+  boolean hasAction( final int action )
+  {
+    return 0 != ( _actions & action );
+  }
+
+  void addAction( final int action )
+  {
+    _actions |= action;
+  }
+
+  /**
+   * Forget the mouse moves and actions that have been applied by a tick.
+   */
+  void clearEvents()
+  {
+    _mouseMoved = false;
+    _actions = 0;
+  }
+
+  static double quantize( final double value )
+  {
+    return Math.floor( value * POSITION_SCALE + 0.5D ) / POSITION_SCALE;
+  }
+}
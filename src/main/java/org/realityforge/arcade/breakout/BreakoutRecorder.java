@@ -0,0 +1,123 @@
+package org.realityforge.arcade.breakout;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Records the input of a breakout session in a compact binary form so that it can be replayed by
+ * {@link BreakoutReplayer}. The log starts with a format version and the seed of the simulation followed
+ * by one entry per frame. Each entry is a flags byte optionally followed by the change in mouse position,
+ * encoded as zig-zag variable length integers in quantized units.
+ */
+final class BreakoutRecorder
+{
+  static final int FORMAT_VERSION = 1;
+  // The simulation was paused and did not tick this frame
+  static final int FLAG_PAUSED = 1;
+  // The mouse position differs from the previous frame and the change follows the flags
+  static final int FLAG_POSITION_CHANGED = 1 << 1;
+  // The mouse was moved
+  static final int FLAG_MOUSE_MOVED = 1 << 2;
+  // The actions of the frame are stored in the remaining bits
+  static final int ACTIONS_SHIFT = 3;
+  private static final int INITIAL_CAPACITY = 1024;
+  @Nonnull
+  private byte[] _data = new byte[ INITIAL_CAPACITY ];
+  private int _size;
+  private int _frameCount;
+  // The last recorded position in quantized units
+  private int _lastX;
+  private int _lastY;
+
+  BreakoutRecorder( final int seed )
+  {
+    writeByte( FORMAT_VERSION );
+    writeByte( seed >>> 24 );
+    writeByte( seed >>> 16 );
+    writeByte( seed >>> 8 );
+    writeByte( seed );
+  }
+
+  int getFrameCount()
+  {
+    return _frameCount;
+  }
+
+  /**
+   * Return the size of the recording in bytes.
+   */
+  int getSize()
+  {
+    return _size;
+  }
+
+  @Nonnull
+  byte[] toByteArray()
+  {
+    return Arrays.copyOf( _data, _size );
+  }
+
+  /**
+   * Record a frame in which the simulation was ticked with the specified input.
+   */
+  void recordTick( @Nonnull final BreakoutInput input )
+  {
+    _frameCount++;
+    final int x = toQuantized( input.getMouseX() );
+    final int y = toQuantized( input.getMouseY() );
+    final boolean positionChanged = x != _lastX || y != _lastY;
+    int flags = input.getActions() << ACTIONS_SHIFT;
+    if ( positionChanged )
+    {
+      flags |= FLAG_POSITION_CHANGED;
+    }
+    if ( input.isMouseMoved() )
+    {
+      flags |= FLAG_MOUSE_MOVED;
+    }
+    writeByte( flags );
+    if ( positionChanged )
+    {
+      writeVarInt( x - _lastX );
+      writeVarInt( y - _lastY );
+      _lastX = x;
+      _lastY = y;
+    }
+  }
+
+  /**
+   * Record a frame in which the simulation was paused.
+   * The input is not recorded as it is retained and applied on the next tick.
+   */
+  void recordPause()
+  {
+    _frameCount++;
+    writeByte( FLAG_PAUSED );
+  }
+
+  static int toQuantized( final double position )
+  {
+    return (int) Math.floor( position * BreakoutInput.POSITION_SCALE + 0.5D );
+  }
+
+  private void writeVarInt( final int value )
+  {
+    // Zig-zag encode so that small negative deltas are also small
+    int v = ( value << 1 ) ^ ( value >> 31 );
+    while ( 0 != ( v & ~0x7F ) )
+    {
+      writeByte( ( v & 0x7F ) | 0x80 );
+      v >>>= 7;
+    }
+    writeByte( v );
+  }
+
+  private void writeByte( final int value )
+  {
+    if ( _size == _data.length )
+    {
+      _data = Arrays.copyOf( _data, _size * 2 );
+    }
+    _data[ _size++ ] = (byte) value;
+  }
+}
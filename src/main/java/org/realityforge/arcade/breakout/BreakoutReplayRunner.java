@@ -0,0 +1,76 @@
+package org.realityforge.arcade.breakout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.Locale;
+import javax.annotation.Nonnull;
+
+/**
+ * Replays recorded sessions and reports how fast each replays and the hash of its final state, so that a
+ * change to the simulation can be checked against the hashes logged when the sessions were recorded.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. Each argument is a file that
+ * contains a recording, either as the base64 text logged by pressing 8 during a game or as raw bytes,
+ * for example:</p>
+ *
+ * <pre>java org.realityforge.arcade.breakout.BreakoutReplayRunner session1.txt session2.txt</pre>
+ *
+ * <p>Sessions are replayed against the standard brick layout on an 800x600 court, as played by default.</p>
+ */
+final class BreakoutReplayRunner
+{
+  private static final double WORLD_WIDTH = 800D;
+  private static final double WORLD_HEIGHT = 600D;
+  // Each session is replayed several times and the fastest run kept so that compilation is not measured
+  private static final int RUNS = 5;
+
+  private BreakoutReplayRunner()
+  {
+  }
+
+  public static void main( final String[] args )
+    throws IOException
+  {
+    if ( 0 == args.length )
+    {
+      System.err.println( "Usage: BreakoutReplayRunner <recording>..." );
+      System.exit( 1 );
+    }
+    for ( final String file : args )
+    {
+      final byte[] data = readRecording( Files.readAllBytes( Paths.get( file ) ) );
+      BreakoutSimulation simulation = null;
+      long fastest = Long.MAX_VALUE;
+      for ( int run = 0; run < RUNS; run++ )
+      {
+        final long start = System.nanoTime();
+        simulation = BreakoutReplayer.replay( data, WORLD_WIDTH, WORLD_HEIGHT );
+        fastest = Math.min( fastest, Math.max( 1, System.nanoTime() - start ) );
+      }
+      final long ticks = simulation.getTickCount();
+      System.out.printf( Locale.ROOT,
+                         "%s: %d ticks, %.0f ticks/s, state hash %d%n",
+                         file, ticks, ticks * 1_000_000_000D / fastest, simulation.computeStateHash() );
+    }
+  }
+
+  /**
+   * Return the recording in the file, decoding it if it is the base64 text logged by the game.
+   */
+  @Nonnull
+  private static byte[] readRecording( @Nonnull final byte[] contents )
+  {
+    // A raw recording starts with the format version which is never a base64 character
+    if ( contents.length > 0 && BreakoutRecorder.FORMAT_VERSION == contents[ 0 ] )
+    {
+      return contents;
+    }
+    else
+    {
+      return Base64.getDecoder().decode( new String( contents, StandardCharsets.US_ASCII ).trim() );
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package org.realityforge.arcade.breakout;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Replays a session recorded by {@link BreakoutRecorder} against a fresh simulation as fast as possible.
+ * No rendering occurs so a session replays far faster than it was played.
+ */
+final class BreakoutReplayer
+{
+  @Nonnull
+  private final byte[] _data;
+  private int _offset;
+
+  private BreakoutReplayer( @Nonnull final byte[] data )
+  {
+    _data = data;
+  }
+
+  /**
+   * Replay the recorded session and return the simulation in its final state.
+   * The caller can then compare {@link BreakoutSimulation#computeStateHash()} against an expected value.
+   */
+  @Nonnull
+  static BreakoutSimulation replay( @Nonnull final byte[] data, final double width, final double height )
+  {
+    return replay( data, width, height, BreakoutSimulation.createStandardBricks() );
+  }
+
+  /**
+   * Replay a session that was recorded against the specified brick layout.
+   */
+  @Nonnull
+  static BreakoutSimulation replay( @Nonnull final byte[] data,
+                                    final double width,
+                                    final double height,
+                                    @Nonnull final BrickGrid bricks )
+  {
+    return new BreakoutReplayer( data ).run( width, height, bricks );
+  }
+
+  @Nonnull
+  private BreakoutSimulation run( final double width, final double height, @Nonnull final BrickGrid bricks )
+  {
+    final int version = readByte();
+    if ( BreakoutRecorder.FORMAT_VERSION != version )
+    {
+      throw new IllegalStateException( "Unsupported recording format version " + version );
+    }
+    final int seed = ( readByte() << 24 ) | ( readByte() << 16 ) | ( readByte() << 8 ) | readByte();
+
+    final BreakoutSimulation simulation = new BreakoutSimulation( width, height, seed, bricks );
+    final BreakoutInput input = new BreakoutInput();
+    int x = 0;
+    int y = 0;
+    while ( _offset < _data.length )
+    {
+      final int flags = readByte();
+      if ( 0 == ( flags & BreakoutRecorder.FLAG_PAUSED ) )
+      {
+        if ( 0 != ( flags & BreakoutRecorder.FLAG_POSITION_CHANGED ) )
+        {
+          x += readVarInt();
+          y += readVarInt();
+        }
+        final double mouseX = x / BreakoutInput.POSITION_SCALE;
+        final double mouseY = y / BreakoutInput.POSITION_SCALE;
+        if ( 0 != ( flags & BreakoutRecorder.FLAG_MOUSE_MOVED ) )
+        {
+          input.mouseMoved( mouseX, mouseY );
+        }
+        else
+        {
+          input.setMousePosition( mouseX, mouseY );
+        }
+        input.addAction( flags >>> BreakoutRecorder.ACTIONS_SHIFT );
+        simulation.tick( input );
+        input.clearEvents();
+      }
+    }
+    return simulation;
+  }
+
+  private int readVarInt()
+  {
+    int v = 0;
+    int shift = 0;
+    int b;
+    do
+    {
+      b = readByte();
+      v |= ( b & 0x7F ) << shift;
+      shift += 7;
+    }
+    while ( 0 != ( b & 0x80 ) );
+    return ( v >>> 1 ) ^ -( v & 1 );
+  }
+
+  private int readByte()
+  {
+    if ( _offset >= _data.length )
+    {
+      throw new IllegalStateException( "Recording truncated at offset " + _offset );
+    }
+    return _data[ _offset++ ] & 0xFF;
+  }
+}
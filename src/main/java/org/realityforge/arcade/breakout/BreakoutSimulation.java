@@ -0,0 +1,625 @@
+package org.realityforge.arcade.breakout;
+
+import javax.annotation.Nonnull;
+
+/**
+ * The state and rules of the breakout game.
+ * The simulation has no dependency on the DOM so that it can also be run on the JVM.
+ */
+final class BreakoutSimulation
+{
+  private static final int BRICKS_PER_ROW = 8;
+  private static final int BRICK_ROWS = 14;
+  // The height of bricks on the standard board. Bricks are made shorter on boards with more rows.
+  private static final double MAX_BRICK_HEIGHT = 20D;
+  private static final double MAX_BRICK_GAP = 2D;
+  // The height available to the bricks, which is the height of the bricks on the standard board
+  private static final double BRICK_AREA_HEIGHT = MAX_BRICK_HEIGHT * BRICK_ROWS;
+  static final double SPACE_ABOVE_BRICKS = MAX_BRICK_HEIGHT * 3;
+  static final double BALL_RADIUS = 10D;
+  static final double PADDLE_HEIGHT = 10D;
+  static final double PADDLE_WIDTH = 100D;
+  private static final double HALF_PADDLE_WIDTH = PADDLE_WIDTH / 2;
+  private static final double MAX_INITIAL_X_SPEED = 8D;
+  private static final double MIN_INITIAL_X_SPEED = 0.5D;
+  private static final double MAX_INITIAL_Y_SPEED = 12D;
+  private static final double MIN_INITIAL_Y_SPEED = 7D;
+  private static final double MAX_REFLECT_SPEED = 12.5D;
+  // This is multiplied by the distance from the center of the paddle. So maximum force is transfered when you
+  // ht the edges of the paddle while hitting the center of the paddle results in almost vertical reflection
+  private static final double HORIZONTAL_REFLECT_FORCE_TRANSFER = ( 2 * MAX_REFLECT_SPEED ) / PADDLE_WIDTH;
+  // The amount that the paddle is inset from the bottom of the screen
+  static final double PADDLE_Y_INSET = 50D;
+  // The distance the ball is kept outside a brick cell after it collides with the brick
+  private static final double BOUNDARY_EPSILON = 0.001D;
+  // The number of extra balls served when multi-ball is triggered
+  private static final int MULTI_BALL_COUNT = 2;
+  // The speed of the ball when transported to the mouse by the debug controls
+  private static final double DEBUG_BALL_SPEED = 4D;
+  private final double _width;
+  private final double _height;
+  private final double _brickWidth;
+  private final double _brickHeight;
+  private final double _brickGap;
+  @Nonnull
+  private final BrickGrid _bricks;
+  @Nonnull
+  private final Balls _balls = new Balls();
+  @Nonnull
+  private final SeededRandom _random;
+  private double _paddlePositionX;
+  private boolean _ballFollowsMouseMovingLeft;
+  private boolean _ballFollowsMouseMovingRight;
+  private long _tickCount;
+
+  /**
+   * Create a simulation using the standard board where every cell contains a brick.
+   */
+  BreakoutSimulation( final double width, final double height, final int seed )
+  {
+    this( width, height, seed, createStandardBricks() );
+  }
+
+  /**
+   * Create a simulation using the supplied bricks.
+   * The bricks are sized so that the board spans the width of the world and fits above the paddle.
+   */
+  BreakoutSimulation( final double width, final double height, final int seed, @Nonnull final BrickGrid bricks )
+  {
+    _random = new SeededRandom( seed );
+    _width = width;
+    _height = height;
+    _bricks = bricks;
+    _brickWidth = width / bricks.getColumns();
+    _brickHeight = Math.min( MAX_BRICK_HEIGHT, BRICK_AREA_HEIGHT / bricks.getRows() );
+    // Gaps are dropped on dense boards where they would hide the bricks
+    final double minBrickSize = Math.min( _brickWidth, _brickHeight );
+    _brickGap = minBrickSize >= MAX_BRICK_GAP * 4 ? MAX_BRICK_GAP : 0D;
+
+    // Center paddle
+    _paddlePositionX = width / 2D - ( PADDLE_WIDTH / 2D );
+
+    resetGame();
+  }
+
+  double getWidth()
+  {
+    return _width;
+  }
+
+  double getHeight()
+  {
+    return _height;
+  }
+
+  double getBrickWidth()
+  {
+    return _brickWidth;
+  }
+
+  double getBrickHeight()
+  {
+    return _brickHeight;
+  }
+
+  double getBrickGap()
+  {
+    return _brickGap;
+  }
+
+  @Nonnull
+  Balls getBalls()
+  {
+    return _balls;
+  }
+
+  double getPaddlePositionX()
+  {
+    return _paddlePositionX;
+  }
+
+  double getPaddleTopY()
+  {
+    return _height - PADDLE_Y_INSET;
+  }
+
+  @Nonnull
+  BrickGrid getBricks()
+  {
+    return _bricks;
+  }
+
+  int getBricksLeft()
+  {
+    return _bricks.getCount();
+  }
+
+  long getTickCount()
+  {
+    return _tickCount;
+  }
+
+  /**
+   * Move the first ball to the specified position and velocity.
+   * This is used by the debug controls to set up specific scenarios.
+   */
+  private void placeBall( final double x, final double y, final double speedX, final double speedY )
+  {
+    _balls.setX( 0, x );
+    _balls.setY( 0, y );
+    _balls.setSpeedX( 0, speedX );
+    _balls.setSpeedY( 0, speedY );
+  }
+
+  /**
+   * Add the specified number of balls, served from the same position as a ball after a reset.
+   * This is used by the multi-ball mode and to stress the simulation.
+   */
+  private void addBalls( final int count )
+  {
+    for ( int i = 0; i < count; i++ )
+    {
+      addServedBall();
+    }
+  }
+
+  /**
+   * Advance the simulation a single tick using the supplied input.
+   */
+  void tick( @Nonnull final BreakoutInput input )
+  {
+    _tickCount++;
+
+    applyInput( input );
+
+    // Iterate in reverse so that removing a ball, which moves the last ball into its slot, does not skip a ball
+    for ( int i = _balls.getCount() - 1; i >= 0; i-- )
+    {
+      final double startX = _balls.getX( i );
+      final double startY = _balls.getY( i );
+      if ( moveBall( i ) )
+      {
+        ballBrickCollisionDetection( i, startX, startY );
+
+        if ( ballPaddleColisionDetection( i ) )
+        {
+          // The game was won and has been reset
+          return;
+        }
+      }
+      else
+      {
+        // The ball has been missed and is removed from play
+        _balls.remove( i );
+        if ( 0 == _balls.getCount() )
+        {
+          // Reset game once the last ball has been missed
+          resetGame();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute a hash of the simulation state.
+   * Replays of the same session produce the same hash, on the JVM or in the browser.
+   */
+  int computeStateHash()
+  {
+    int hash = (int) ( _tickCount ^ ( _tickCount >>> 32 ) );
+    hash = 31 * hash + hashDouble( _paddlePositionX );
+    hash = 31 * hash + ( _ballFollowsMouseMovingLeft ? 1 : 0 );
+    hash = 31 * hash + ( _ballFollowsMouseMovingRight ? 1 : 0 );
+    final int rows = _bricks.getRows();
+    final int columns = _bricks.getColumns();
+    for ( int row = 0; row < rows; row++ )
+    {
+      for ( int column = _bricks.nextSetColumn( row, 0 );
+            -1 != column;
+            column = _bricks.nextSetColumn( row, column + 1 ) )
+      {
+        hash = 31 * hash + ( row * columns + column );
+      }
+    }
+    final int ballCount = _balls.getCount();
+    hash = 31 * hash + ballCount;
+    for ( int i = 0; i < ballCount; i++ )
+    {
+      hash = 31 * hash + hashDouble( _balls.getX( i ) );
+      hash = 31 * hash + hashDouble( _balls.getY( i ) );
+      hash = 31 * hash + hashDouble( _balls.getSpeedX( i ) );
+      hash = 31 * hash + hashDouble( _balls.getSpeedY( i ) );
+    }
+    return hash;
+  }
+
+  void resetGame()
+  {
+    resetBricks();
+    ballReset();
+  }
+
+  boolean isValidBrickCoordinates( final double brickCol, final double brickRow )
+  {
+    return brickCol >= 0 && brickCol < _bricks.getColumns() && brickRow >= 0 && brickRow < _bricks.getRows();
+  }
+
+  int toBrickRow( final double y )
+  {
+    return (int) Math.floor( ( y - SPACE_ABOVE_BRICKS ) / _brickHeight );
+  }
+
+  int toBrickColumn( final double x )
+  {
+    return (int) Math.floor( x / _brickWidth );
+  }
+
+  /**
+   * Create the layout used when no level is specified, a full wall of bricks.
+   */
+  @Nonnull
+  static BrickGrid createStandardBricks()
+  {
+    final BrickGrid bricks = new BrickGrid( BRICKS_PER_ROW, BRICK_ROWS );
+    bricks.fillInitial();
+    return bricks;
+  }
+
+  private void resetBricks()
+  {
+    _bricks.reset();
+  }
+
+  private void applyInput( @Nonnull final BreakoutInput input )
+  {
+    final double mouseX = input.getMouseX();
+    final double mouseY = input.getMouseY();
+
+    // Our pointer should be center of paddle and the paddle can not go outside bounds
+    _paddlePositionX = limitPaddleToScreen( mouseX - HALF_PADDLE_WIDTH );
+
+    if ( input.hasAction( BreakoutInput.ACTION_BALL_TO_MOUSE_MOVING_RIGHT ) )
+    {
+      placeBall( mouseX, mouseY, DEBUG_BALL_SPEED, -DEBUG_BALL_SPEED );
+    }
+    if ( input.hasAction( BreakoutInput.ACTION_BALL_TO_MOUSE_MOVING_LEFT ) )
+    {
+      placeBall( mouseX, mouseY, -DEBUG_BALL_SPEED, -DEBUG_BALL_SPEED );
+    }
+    if ( input.hasAction( BreakoutInput.ACTION_TOGGLE_BALL_FOLLOWS_MOUSE_MOVING_LEFT ) )
+    {
+      _ballFollowsMouseMovingLeft = !_ballFollowsMouseMovingLeft;
+      if ( _ballFollowsMouseMovingLeft )
+      {
+        _ballFollowsMouseMovingRight = false;
+      }
+    }
+    if ( input.hasAction( BreakoutInput.ACTION_TOGGLE_BALL_FOLLOWS_MOUSE_MOVING_RIGHT ) )
+    {
+      _ballFollowsMouseMovingRight = !_ballFollowsMouseMovingRight;
+      if ( _ballFollowsMouseMovingRight )
+      {
+        _ballFollowsMouseMovingLeft = false;
+      }
+    }
+    if ( input.hasAction( BreakoutInput.ACTION_MULTI_BALL ) )
+    {
+      addBalls( MULTI_BALL_COUNT );
+    }
+
+    if ( input.isMouseMoved() )
+    {
+      if ( _ballFollowsMouseMovingLeft )
+      {
+        placeBall( mouseX, mouseY, -DEBUG_BALL_SPEED, -DEBUG_BALL_SPEED );
+      }
+      else if ( _ballFollowsMouseMovingRight )
+      {
+        placeBall( mouseX, mouseY, DEBUG_BALL_SPEED, -DEBUG_BALL_SPEED );
+      }
+    }
+  }
+
+  // Make sure paddle never goes off screen
+  private double limitPaddleToScreen( final double paddlePosition )
+  {
+    return Math.min( Math.max( 0, paddlePosition ), _width - PADDLE_WIDTH );
+  }
+
+  /**
+   * Move the ball and bounce it off the edges of the world.
+   *
+   * @return false if the ball fell off the bottom edge, true otherwise.
+   */
+  private boolean moveBall( final int index )
+  {
+    final double ballX = _balls.getX( index ) + _balls.getSpeedX( index );
+    final double ballY = _balls.getY( index ) + _balls.getSpeedY( index );
+    _balls.setX( index, ballX );
+    _balls.setY( index, ballY );
+
+    final double ballTopY = ballY - BALL_RADIUS;
+    final double ballBottomY = ballY + BALL_RADIUS;
+    final double ballLeftX = ballX - BALL_RADIUS;
+    final double ballRightX = ballX + BALL_RADIUS;
+
+    // Bounce off the top edge
+    if ( ballTopY < 0 )
+    {
+      // Ensure that if the ball is coming down because it has somehow got above
+      // the world then let it continue coming down
+      if ( _balls.getSpeedY( index ) < 0 )
+      {
+        _balls.setSpeedY( index, -_balls.getSpeedY( index ) );
+      }
+    }
+    // The ball is missed if it falls off the bottom edge
+    else if ( ballBottomY > _height )
+    {
+      return false;
+    }
+    // Bounce off the side edges
+    else if ( ballRightX > _width )
+    {
+      // If the ball is outside the world coming in then let
+      // it, otherwise reverse it back towards the world.
+      // Sometimes the paddle will jump it outside the world
+      if ( _balls.getSpeedX( index ) > 0 )
+      {
+        _balls.setSpeedX( index, -_balls.getSpeedX( index ) );
+      }
+    }
+    else if ( ballLeftX < 0 )
+    {
+      // If the ball is outside the world coming in then let
+      // it, otherwise reverse it back towards the world.
+      // Sometimes the paddle will jump it outside the world
+      if ( _balls.getSpeedX( index ) < 0 )
+      {
+        _balls.setSpeedX( index, -_balls.getSpeedX( index ) );
+      }
+    }
+    return true;
+  }
+
+  private void ballReset()
+  {
+    _balls.clear();
+    addServedBall();
+  }
+
+  private void addServedBall()
+  {
+    final double speedX =
+      ( _random.nextDouble() < 0.5 ? -1D : 1D ) * randomValue( MIN_INITIAL_X_SPEED, MAX_INITIAL_X_SPEED );
+    final double speedY = randomValue( MIN_INITIAL_Y_SPEED, MAX_INITIAL_Y_SPEED );
+
+    final double x = _width / 2D;
+    final double y = ( _brickHeight * _bricks.getRows() ) + SPACE_ABOVE_BRICKS + MAX_BRICK_HEIGHT;
+    _balls.add( x, y, speedX, speedY );
+  }
+
+  /**
+   * Detect whether the ball hit a brick while moving from the specified start position to the current position.
+   * The ball is swept along its path against every brick within a ball radius of the path so that fast balls
+   * can not pass through bricks between ticks and a ball that clips the edge or corner of a brick hits it even
+   * when its center never enters the brick's cell. The first brick hit is removed, the ball is placed where it
+   * first touched the brick and the velocity is reflected about the normal of the touched face or corner.
+   * Bricks that the ball already overlaps at the start of the move are ignored unless the ball center is inside
+   * the brick, so a ball is never hit twice by one brick.
+   */
+  private void ballBrickCollisionDetection( final int index, final double startX, final double startY )
+  {
+    if ( _bricks.clear( toBrickColumn( startX ), toBrickRow( startY ) ) )
+    {
+      // The ball started inside a brick (i.e. it was placed there) so there is no crossed boundary to reflect
+      // off. Send it back the way it came vertically.
+      _balls.setSpeedY( index, -_balls.getSpeedY( index ) );
+      return;
+    }
+
+    final double endX = _balls.getX( index );
+    final double endY = _balls.getY( index );
+    final double deltaX = endX - startX;
+    final double deltaY = endY - startY;
+    // The bricks that the ball can touch are those within a ball radius of the path
+    final int minColumn = Math.max( 0, toBrickColumn( Math.min( startX, endX ) - BALL_RADIUS ) );
+    final int maxColumn =
+      Math.min( _bricks.getColumns() - 1, toBrickColumn( Math.max( startX, endX ) + BALL_RADIUS ) );
+    final int minRow = Math.max( 0, toBrickRow( Math.min( startY, endY ) - BALL_RADIUS ) );
+    final int maxRow = Math.min( _bricks.getRows() - 1, toBrickRow( Math.max( startY, endY ) + BALL_RADIUS ) );
+
+    // The fraction of the move at which the ball first touches a brick
+    double hitTime = Double.POSITIVE_INFINITY;
+    int hitColumn = -1;
+    int hitRow = -1;
+    for ( int row = minRow; row <= maxRow; row++ )
+    {
+      for ( int column = _bricks.nextSetColumn( row, minColumn );
+            -1 != column && column <= maxColumn;
+            column = _bricks.nextSetColumn( row, column + 1 ) )
+      {
+        final double time = sweepBrick( column, row, startX, startY, deltaX, deltaY );
+        if ( time < hitTime )
+        {
+          hitTime = time;
+          hitColumn = column;
+          hitRow = row;
+        }
+      }
+    }
+
+    if ( -1 != hitColumn )
+    {
+      _bricks.clear( hitColumn, hitRow );
+      final double hitX = startX + deltaX * hitTime;
+      final double hitY = startY + deltaY * hitTime;
+      // The normal points from the closest point of the brick to the ball center
+      final double left = hitColumn * _brickWidth;
+      final double top = SPACE_ABOVE_BRICKS + hitRow * _brickHeight;
+      final double offsetX = hitX - Math.min( Math.max( hitX, left ), left + _brickWidth );
+      final double offsetY = hitY - Math.min( Math.max( hitY, top ), top + _brickHeight );
+      final double offsetLength = Math.sqrt( offsetX * offsetX + offsetY * offsetY );
+      final double normalX = offsetX / offsetLength;
+      final double normalY = offsetY / offsetLength;
+      _balls.setX( index, hitX + normalX * BOUNDARY_EPSILON );
+      _balls.setY( index, hitY + normalY * BOUNDARY_EPSILON );
+      final double speedX = _balls.getSpeedX( index );
+      final double speedY = _balls.getSpeedY( index );
+      final double speedIntoBrick = speedX * normalX + speedY * normalY;
+      if ( speedIntoBrick < 0 )
+      {
+        _balls.setSpeedX( index, speedX - 2 * speedIntoBrick * normalX );
+        _balls.setSpeedY( index, speedY - 2 * speedIntoBrick * normalY );
+      }
+    }
+  }
+
+  /**
+   * Return the fraction of the move at which the ball first touches the brick, or positive infinity if the ball
+   * does not touch the brick during the move. The ball touches the brick when its center enters the brick
+   * widened by the ball radius, with the corners of the widened brick rounded.
+   */
+  private double sweepBrick( final int column,
+                             final int row,
+                             final double startX,
+                             final double startY,
+                             final double deltaX,
+                             final double deltaY )
+  {
+    final double left = column * _brickWidth;
+    final double right = left + _brickWidth;
+    final double top = SPACE_ABOVE_BRICKS + row * _brickHeight;
+    final double bottom = top + _brickHeight;
+    final double enterX = slabEntry( startX, deltaX, left - BALL_RADIUS, right + BALL_RADIUS );
+    final double enterY = slabEntry( startY, deltaY, top - BALL_RADIUS, bottom + BALL_RADIUS );
+    final double enter = Math.max( enterX, enterY );
+    final double exit = Math.min( slabExit( startX, deltaX, left - BALL_RADIUS, right + BALL_RADIUS ),
+                                  slabExit( startY, deltaY, top - BALL_RADIUS, bottom + BALL_RADIUS ) );
+    if ( enter < 0D || enter > 1D || enter > exit )
+    {
+      return Double.POSITIVE_INFINITY;
+    }
+    final double x = startX + deltaX * enter;
+    final double y = startY + deltaY * enter;
+    if ( ( x < left || x > right ) && ( y < top || y > bottom ) )
+    {
+      // The center entered a corner of the widened brick so the ball only touches if it reaches the corner
+      return sweepCorner( startX - ( x < left ? left : right ), startY - ( y < top ? top : bottom ), deltaX, deltaY );
+    }
+    else
+    {
+      return enter;
+    }
+  }
+
+  /**
+   * Return the fraction of the move at which the ball, starting at the specified offset from a corner, first
+   * touches the corner, or positive infinity if it does not touch the corner during the move.
+   */
+  private static double sweepCorner( final double offsetX,
+                                     final double offsetY,
+                                     final double deltaX,
+                                     final double deltaY )
+  {
+    // Solve |offset + delta * t| = radius for the smallest t
+    final double a = deltaX * deltaX + deltaY * deltaY;
+    final double b = 2 * ( offsetX * deltaX + offsetY * deltaY );
+    final double c = offsetX * offsetX + offsetY * offsetY - BALL_RADIUS * BALL_RADIUS;
+    final double discriminant = b * b - 4 * a * c;
+    if ( discriminant < 0 )
+    {
+      return Double.POSITIVE_INFINITY;
+    }
+    final double time = ( -b - Math.sqrt( discriminant ) ) / ( 2 * a );
+    return time >= 0D && time <= 1D ? time : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Return the fraction of a move along one axis at which the position enters the range [min, max].
+   * A move that never enters the range returns positive infinity.
+   */
+  private static double slabEntry( final double start, final double delta, final double min, final double max )
+  {
+    if ( 0 == delta )
+    {
+      return start > min && start < max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+    else
+    {
+      return ( ( delta > 0 ? min : max ) - start ) / delta;
+    }
+  }
+
+  /**
+   * Return the fraction of a move along one axis at which the position leaves the range [min, max].
+   * A move that never enters the range returns negative infinity.
+   */
+  private static double slabExit( final double start, final double delta, final double min, final double max )
+  {
+    if ( 0 == delta )
+    {
+      return start > min && start < max ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+    }
+    else
+    {
+      return ( ( delta > 0 ? max : min ) - start ) / delta;
+    }
+  }
+
+  /**
+   * Bounce the ball off the paddle if they overlap.
+   *
+   * @return true if the ball hit the paddle after all the bricks were cleared and thus the game was reset.
+   */
+  private boolean ballPaddleColisionDetection( final int index )
+  {
+    final double ballX = _balls.getX( index );
+    final double ballY = _balls.getY( index );
+    final double ballTopY = ballY - BALL_RADIUS;
+    final double ballBottomY = ballY + BALL_RADIUS;
+    final double ballLeftX = ballX - BALL_RADIUS;
+    final double ballRightX = ballX + BALL_RADIUS;
+
+    final double paddleTopY = getPaddleTopY();
+    final double paddleBottomY = paddleTopY + PADDLE_HEIGHT;
+    final double paddleLeftX = _paddlePositionX;
+    final double paddleRightX = _paddlePositionX + PADDLE_WIDTH;
+
+    if ( ballRightX > paddleLeftX &&
+         ballLeftX < paddleRightX &&
+         ballTopY < paddleBottomY &&
+         ballBottomY > paddleTopY )
+    {
+      // If we have emptied out all the blocks then the next time it bounces off the paddle the game is won
+      // and the board is reset
+      if ( 0 == _bricks.getCount() )
+      {
+        resetGame();
+        return true;
+      }
+      else
+      {
+        _balls.setSpeedY( index, -_balls.getSpeedY( index ) );
+
+        // This gives ball control as in Tennis game
+        final double paddleCenter = _paddlePositionX + HALF_PADDLE_WIDTH;
+        final double ballDistanceFromPaddleCenter = ballX - paddleCenter;
+        _balls.setSpeedX( index, ballDistanceFromPaddleCenter * HORIZONTAL_REFLECT_FORCE_TRANSFER );
+      }
+    }
+    return false;
+  }
+
+  private double randomValue( final double min, final double max )
+  {
+    return ( _random.nextDouble() * ( max - min ) ) + min;
+  }
+
+  private static int hashDouble( final double value )
+  {
+    final long bits = Double.doubleToLongBits( value );
+    return (int) ( bits ^ ( bits >>> 32 ) );
+  }
+}
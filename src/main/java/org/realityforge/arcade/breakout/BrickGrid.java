@@ -0,0 +1,253 @@
+package org.realityforge.arcade.breakout;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * The grid of bricks stored as a packed bitset in row-major order.
+ * Population counts are maintained per row so that callers can skip empty rows without scanning the bits.
+ */
+final class BrickGrid
+{
+  private static final int BITS_PER_WORD = 64;
+  private static final int WORD_SHIFT = 6;
+  private static final int WORD_MASK = BITS_PER_WORD - 1;
+  private static final int INITIAL_CLEARED_CELLS_CAPACITY = 16;
+  // The largest grid supported, which keeps cell indexes within an int and bounds the memory used by a layout
+  static final int MAX_CELLS = 1 << 24;
+  private final int _columns;
+  private final int _rows;
+  // The bricks present at the start of a game. Used to reset the grid.
+  @Nonnull
+  private final long[] _initialBits;
+  @Nonnull
+  private final long[] _bits;
+  @Nonnull
+  private final int[] _initialRowCounts;
+  @Nonnull
+  private final int[] _rowCounts;
+  private int _initialCount;
+  private int _count;
+  // Cells cleared since the log was last drained. Views of the grid use this to update incrementally.
+  // Each cell is cleared at most once between resets so the log never exceeds the size of the grid.
+  @Nonnull
+  private int[] _clearedCells = new int[ INITIAL_CLEARED_CELLS_CAPACITY ];
+  private int _clearedCellCount;
+  // Incremented every time the grid is reset so that views know to rebuild from scratch
+  private int _resetCount;
+
+  BrickGrid( final int columns, final int rows )
+  {
+    assert columns > 0;
+    assert rows > 0;
+    if ( (long) columns * rows > MAX_CELLS )
+    {
+      throw new IllegalArgumentException( "Brick grid of " + columns + "x" + rows + " exceeds the limit of " +
+                                          MAX_CELLS + " cells" );
+    }
+    _columns = columns;
+    _rows = rows;
+    final int wordCount = ( columns * rows + WORD_MASK ) >>> WORD_SHIFT;
+    _initialBits = new long[ wordCount ];
+    _bits = new long[ wordCount ];
+    _initialRowCounts = new int[ rows ];
+    _rowCounts = new int[ rows ];
+  }
+
+  int getColumns()
+  {
+    return _columns;
+  }
+
+  int getRows()
+  {
+    return _rows;
+  }
+
+  /**
+   * Return the number of bricks remaining.
+   */
+  int getCount()
+  {
+    return _count;
+  }
+
+  int getRowCount( final int row )
+  {
+    return _rowCounts[ row ];
+  }
+
+  boolean isValid( final int column, final int row )
+  {
+    return column >= 0 && column < _columns && row >= 0 && row < _rows;
+  }
+
+  /**
+   * Return true if there is a brick at the specified cell.
+   * Cells outside the grid never contain a brick.
+   */
+  boolean isSet( final int column, final int row )
+  {
+    if ( isValid( column, row ) )
+    {
+      final int index = index( column, row );
+      return 0 != ( _bits[ index >>> WORD_SHIFT ] & ( 1L << ( index & WORD_MASK ) ) );
+    }
+    else
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Remove the brick at the specified cell.
+   *
+   * @return true if a brick was present and has been removed.
+   */
+  boolean clear( final int column, final int row )
+  {
+    if ( isSet( column, row ) )
+    {
+      final int index = index( column, row );
+      _bits[ index >>> WORD_SHIFT ] &= ~( 1L << ( index & WORD_MASK ) );
+      _rowCounts[ row ]--;
+      _count--;
+      if ( _clearedCellCount == _clearedCells.length )
+      {
+        _clearedCells = Arrays.copyOf( _clearedCells, _clearedCellCount * 2 );
+      }
+      _clearedCells[ _clearedCellCount++ ] = index;
+      return true;
+    }
+    else
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Return the first column at or after the specified column in the row that contains a brick,
+   * or -1 if there is no such column. This skips whole words of empty cells at a time.
+   */
+  int nextSetColumn( final int row, final int fromColumn )
+  {
+    if ( fromColumn >= _columns || 0 == _rowCounts[ row ] )
+    {
+      return -1;
+    }
+    final int rowStart = row * _columns;
+    final int rowEnd = rowStart + _columns;
+    int index = rowStart + Math.max( 0, fromColumn );
+    int wordIndex = index >>> WORD_SHIFT;
+    long word = _bits[ wordIndex ] & ( -1L << ( index & WORD_MASK ) );
+    while ( true )
+    {
+      if ( 0 != word )
+      {
+        index = ( wordIndex << WORD_SHIFT ) + Long.numberOfTrailingZeros( word );
+        return index < rowEnd ? index - rowStart : -1;
+      }
+      wordIndex++;
+      if ( ( wordIndex << WORD_SHIFT ) >= rowEnd )
+      {
+        return -1;
+      }
+      word = _bits[ wordIndex ];
+    }
+  }
+
+  /**
+   * Set or clear the brick in the initial layout that the grid returns to on {@link #reset()}.
+   */
+  void setInitial( final int column, final int row, final boolean present )
+  {
+    assert isValid( column, row );
+    final int index = index( column, row );
+    final int wordIndex = index >>> WORD_SHIFT;
+    final long mask = 1L << ( index & WORD_MASK );
+    final boolean wasPresent = 0 != ( _initialBits[ wordIndex ] & mask );
+    if ( present && !wasPresent )
+    {
+      _initialBits[ wordIndex ] |= mask;
+      _initialRowCounts[ row ]++;
+      _initialCount++;
+    }
+    else if ( !present && wasPresent )
+    {
+      _initialBits[ wordIndex ] &= ~mask;
+      _initialRowCounts[ row ]--;
+      _initialCount--;
+    }
+  }
+
+  /**
+   * Return true if the initial layout has a brick at the specified cell.
+   */
+  boolean isSetInitial( final int column, final int row )
+  {
+    assert isValid( column, row );
+    final int index = index( column, row );
+    return 0 != ( _initialBits[ index >>> WORD_SHIFT ] & ( 1L << ( index & WORD_MASK ) ) );
+  }
+
+  /**
+   * Make every cell in the initial layout contain a brick.
+   */
+  void fillInitial()
+  {
+    Arrays.fill( _initialBits, -1L );
+    // Clear the unused bits in the last word so that they are never reported as bricks
+    final int usedBits = ( _columns * _rows ) & WORD_MASK;
+    if ( 0 != usedBits )
+    {
+      _initialBits[ _initialBits.length - 1 ] = ( 1L << usedBits ) - 1;
+    }
+    Arrays.fill( _initialRowCounts, _columns );
+    _initialCount = _columns * _rows;
+  }
+
+  /**
+   * Restore the grid to the initial layout.
+   */
+  void reset()
+  {
+    System.arraycopy( _initialBits, 0, _bits, 0, _bits.length );
+    System.arraycopy( _initialRowCounts, 0, _rowCounts, 0, _rows );
+    _count = _initialCount;
+    _clearedCellCount = 0;
+    _resetCount++;
+  }
+
+  int getResetCount()
+  {
+    return _resetCount;
+  }
+
+  /**
+   * Return the number of cells cleared since the last reset or call to {@link #drainClearedCells()}.
+   */
+  int getClearedCellCount()
+  {
+    return _clearedCellCount;
+  }
+
+  int getClearedCellColumn( final int clearedCell )
+  {
+    return _clearedCells[ clearedCell ] % _columns;
+  }
+
+  int getClearedCellRow( final int clearedCell )
+  {
+    return _clearedCells[ clearedCell ] / _columns;
+  }
+
+  void drainClearedCells()
+  {
+    _clearedCellCount = 0;
+  }
+
+  private int index( final int column, final int row )
+  {
+    return row * _columns + column;
+  }
+}
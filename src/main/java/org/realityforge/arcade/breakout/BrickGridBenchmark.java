@@ -0,0 +1,245 @@
+package org.realityforge.arcade.breakout;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import javax.annotation.Nonnull;
+
+/**
+ * Compares the memory used by, and the cost of the operations a game performs on, a brick grid against the
+ * layout that grids previously used, a boolean per cell and a count of the bricks left maintained by hand.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. The grid sizes are passed as
+ * arguments of the form columnsxrows and default to the standard grid, 256x256 and 1000x1000, for
+ * example:</p>
+ *
+ * <pre>java org.realityforge.arcade.breakout.BrickGridBenchmark 8x14 256x256 1000x1000</pre>
+ *
+ * <p>Drawing visits every brick that remains, and is measured on a full grid and on grids where most rows
+ * have been cleared, as happens late in a game on a large board.</p>
+ */
+final class BrickGridBenchmark
+{
+  private static final long SEED = 42;
+  private static final int CELL_LOOKUPS = 20_000_000;
+  // Each operation is repeated until it has been measured for at least this long
+  private static final long MIN_MEASURED_NANOS = 200_000_000L;
+  // The fraction of rows that still contain bricks in the partially cleared grids
+  private static final double[] OCCUPIED_ROWS = { 1D, 0.1D, 0.01D };
+
+  private BrickGridBenchmark()
+  {
+  }
+
+  public static void main( final String[] args )
+  {
+    final String[] sizes = 0 == args.length ? new String[]{ "8x14", "256x256", "1000x1000" } : args;
+    for ( final String size : sizes )
+    {
+      final int separator = size.indexOf( 'x' );
+      if ( -1 == separator )
+      {
+        throw new IllegalArgumentException( "Expected a grid size of the form columnsxrows but got '" + size + "'" );
+      }
+      run( Integer.parseInt( size.substring( 0, separator ) ), Integer.parseInt( size.substring( separator + 1 ) ) );
+    }
+  }
+
+  private static void run( final int columns, final int rows )
+  {
+    final BooleanGrid booleanGrid = new BooleanGrid( columns, rows );
+    final BrickGrid bitGrid = new BrickGrid( columns, rows );
+    bitGrid.fillInitial();
+    bitGrid.reset();
+
+    System.out.printf( Locale.ROOT, "%dx%d grid%n", columns, rows );
+    System.out.printf( Locale.ROOT, "  storage:            boolean[] %10d bytes   bitset %10d bytes%n",
+                       (long) columns * rows,
+                       ( ( (long) columns * rows + 63 ) / 64 ) * Long.BYTES + (long) rows * Integer.BYTES );
+
+    final SplittableRandom random = new SplittableRandom( SEED );
+    final int[] lookupColumns = new int[ 1024 ];
+    final int[] lookupRows = new int[ lookupColumns.length ];
+    for ( int i = 0; i < lookupColumns.length; i++ )
+    {
+      lookupColumns[ i ] = random.nextInt( columns );
+      lookupRows[ i ] = random.nextInt( rows );
+    }
+    // Run each measurement twice and report the second so that the first includes compilation
+    double booleanRate = 0;
+    double bitRate = 0;
+    for ( int run = 0; run < 2; run++ )
+    {
+      long start = System.nanoTime();
+      long checksum = 0;
+      for ( int i = 0; i < CELL_LOOKUPS; i++ )
+      {
+        checksum += booleanGrid.isSet( lookupColumns[ i & 1023 ], lookupRows[ i & 1023 ] ) ? 1 : 0;
+      }
+      booleanRate = CELL_LOOKUPS / ( ( System.nanoTime() - start ) / 1_000_000_000D );
+      start = System.nanoTime();
+      for ( int i = 0; i < CELL_LOOKUPS; i++ )
+      {
+        checksum -= bitGrid.isSet( lookupColumns[ i & 1023 ], lookupRows[ i & 1023 ] ) ? 1 : 0;
+      }
+      bitRate = CELL_LOOKUPS / ( ( System.nanoTime() - start ) / 1_000_000_000D );
+      if ( 0 != checksum )
+      {
+        throw new IllegalStateException( "Layouts disagree on the bricks of the grid" );
+      }
+    }
+    System.out.printf( Locale.ROOT, "  random cell:        boolean[] %10.1fM/s      bitset %10.1fM/s%n",
+                       booleanRate / 1_000_000D, bitRate / 1_000_000D );
+
+    double booleanMicros = 0;
+    double bitMicros = 0;
+    for ( int run = 0; run < 2; run++ )
+    {
+      booleanMicros = measure( booleanGrid::reset );
+      bitMicros = measure( bitGrid::reset );
+    }
+    System.out.printf( Locale.ROOT, "  reset:              boolean[] %10.3f us        bitset %10.3f us%n",
+                       booleanMicros, bitMicros );
+
+    for ( final double occupiedRows : OCCUPIED_ROWS )
+    {
+      booleanGrid.reset();
+      bitGrid.reset();
+      clearRows( booleanGrid, bitGrid, occupiedRows, random );
+      final long[] bricks = new long[ 2 ];
+      for ( int run = 0; run < 2; run++ )
+      {
+        booleanMicros = measure( () -> bricks[ 0 ] = booleanGrid.countByScanning() );
+        bitMicros = measure( () -> bricks[ 1 ] = countBySkipping( bitGrid ) );
+      }
+      if ( bricks[ 0 ] != bricks[ 1 ] || bricks[ 0 ] != bitGrid.getCount() )
+      {
+        throw new IllegalStateException( "Layouts disagree on the bricks to draw" );
+      }
+      System.out.printf( Locale.ROOT, "  draw %3.0f%% of rows:  boolean[] %10.3f us        bitset %10.3f us%n",
+                         occupiedRows * 100D, booleanMicros, bitMicros );
+    }
+  }
+
+  /**
+   * Clear every brick outside a random selection of rows, in both grids.
+   */
+  private static void clearRows( @Nonnull final BooleanGrid booleanGrid,
+                                 @Nonnull final BrickGrid bitGrid,
+                                 final double occupiedRows,
+                                 @Nonnull final SplittableRandom random )
+  {
+    final int columns = bitGrid.getColumns();
+    final int rows = bitGrid.getRows();
+    for ( int row = 0; row < rows; row++ )
+    {
+      if ( random.nextDouble() >= occupiedRows )
+      {
+        for ( int column = 0; column < columns; column++ )
+        {
+          booleanGrid.clear( column, row );
+          bitGrid.clear( column, row );
+        }
+      }
+    }
+    bitGrid.drainClearedCells();
+  }
+
+  /**
+   * Visit the bricks the way the brick layer does when it draws the whole grid.
+   *
+   * @return the number of bricks visited.
+   */
+  private static long countBySkipping( @Nonnull final BrickGrid grid )
+  {
+    long count = 0;
+    final int rows = grid.getRows();
+    for ( int i = 0; i < rows; i++ )
+    {
+      if ( 0 != grid.getRowCount( i ) )
+      {
+        for ( int j = grid.nextSetColumn( i, 0 ); -1 != j; j = grid.nextSetColumn( i, j + 1 ) )
+        {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Repeat the operation until it has been measured for long enough.
+   *
+   * @return the average time, in microseconds, taken by the operation.
+   */
+  private static double measure( @Nonnull final Runnable operation )
+  {
+    final long start = System.nanoTime();
+    long iterations = 0;
+    long elapsed;
+    do
+    {
+      operation.run();
+      iterations++;
+      elapsed = System.nanoTime() - start;
+    }
+    while ( elapsed < MIN_MEASURED_NANOS );
+    return elapsed / 1_000D / iterations;
+  }
+
+  /**
+   * The layout that grids used before bricks were packed into a bitset.
+   */
+  private static final class BooleanGrid
+  {
+    private final int _columns;
+    private final int _rows;
+    @Nonnull
+    private final boolean[] _bricks;
+    private int _bricksLeft;
+
+    BooleanGrid( final int columns, final int rows )
+    {
+      _columns = columns;
+      _rows = rows;
+      _bricks = new boolean[ columns * rows ];
+      reset();
+    }
+
+    boolean isSet( final int column, final int row )
+    {
+      return column >= 0 && column < _columns && row >= 0 && row < _rows && _bricks[ row * _columns + column ];
+    }
+
+    void clear( final int column, final int row )
+    {
+      if ( isSet( column, row ) )
+      {
+        _bricks[ row * _columns + column ] = false;
+        _bricksLeft--;
+      }
+    }
+
+    void reset()
+    {
+      Arrays.fill( _bricks, true );
+      _bricksLeft = _bricks.length;
+    }
+
+    long countByScanning()
+    {
+      long count = 0;
+      for ( int i = 0; i < _rows; i++ )
+      {
+        for ( int j = 0; j < _columns; j++ )
+        {
+          if ( _bricks[ i * _columns + j ] )
+          {
+            count++;
+          }
+        }
+      }
+      return count;
+    }
+  }
+}
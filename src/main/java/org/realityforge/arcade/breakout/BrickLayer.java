@@ -0,0 +1,105 @@
+package org.realityforge.arcade.breakout;
+
+import elemental2.dom.CanvasRenderingContext2D;
+import elemental2.dom.DomGlobal;
+import elemental2.dom.HTMLCanvasElement;
+import javax.annotation.Nonnull;
+import jsinterop.base.Js;
+import org.realityforge.arcade.render.RenderCommandBuffer;
+
+/**
+ * An offscreen canvas containing the background and the bricks.
+ * The layer is drawn once when the bricks are reset and afterwards only the cells of bricks that
+ * have been cleared are patched, so each frame can copy the layer rather than redraw every brick.
+ */
+final class BrickLayer
+{
+  @Nonnull
+  private final BreakoutSimulation _simulation;
+  @Nonnull
+  private final HTMLCanvasElement _canvas;
+  @Nonnull
+  private final RenderCommandBuffer _commands;
+  // The reset count of the grid when the layer was last fully drawn
+  private int _resetCount = -1;
+
+  BrickLayer( @Nonnull final BreakoutSimulation simulation )
+  {
+    _simulation = simulation;
+    _canvas = (HTMLCanvasElement) DomGlobal.document.createElement( "canvas" );
+    _canvas.width = (int) simulation.getWidth();
+    _canvas.height = (int) simulation.getHeight();
+    final CanvasRenderingContext2D context = Js.uncheckedCast( _canvas.getContext( "2d" ) );
+    _commands = new RenderCommandBuffer( context );
+  }
+
+  @Nonnull
+  HTMLCanvasElement getCanvas()
+  {
+    return _canvas;
+  }
+
+  /**
+   * Bring the layer up to date with the brick grid.
+   * The cells of any cleared bricks are added to the dirty regions and if the grid has been reset
+   * then the layer is redrawn and all regions are marked as dirty.
+   */
+  void update( @Nonnull final DirtyRegions dirtyRegions )
+  {
+    final BrickGrid bricks = _simulation.getBricks();
+    if ( _resetCount != bricks.getResetCount() )
+    {
+      _resetCount = bricks.getResetCount();
+      drawAll();
+      dirtyRegions.markAllDirty();
+    }
+    else
+    {
+      final double brickWidth = _simulation.getBrickWidth();
+      final double brickHeight = _simulation.getBrickHeight();
+      final int clearedCellCount = bricks.getClearedCellCount();
+      for ( int i = 0; i < clearedCellCount; i++ )
+      {
+        final double x = bricks.getClearedCellColumn( i ) * brickWidth;
+        final double y = BreakoutSimulation.SPACE_ABOVE_BRICKS + bricks.getClearedCellRow( i ) * brickHeight;
+        drawRect( x, y, brickWidth, brickHeight, "black" );
+        dirtyRegions.add( x, y, brickWidth, brickHeight );
+      }
+    }
+    bricks.drainClearedCells();
+    _commands.flush();
+  }
+
+  private void drawAll()
+  {
+    // Background
+    drawRect( 0D, 0D, _canvas.width, _canvas.height, "black" );
+
+    final BrickGrid bricks = _simulation.getBricks();
+    final double brickWidth = _simulation.getBrickWidth();
+    final double brickHeight = _simulation.getBrickHeight();
+    final double brickGap = _simulation.getBrickGap();
+    final int rows = bricks.getRows();
+    for ( int i = 0; i < rows; i++ )
+    {
+      // Rows that have been cleared are skipped without scanning their cells
+      if ( 0 != bricks.getRowCount( i ) )
+      {
+        final double rowY = BreakoutSimulation.SPACE_ABOVE_BRICKS + i * brickHeight;
+        for ( int j = bricks.nextSetColumn( i, 0 ); -1 != j; j = bricks.nextSetColumn( i, j + 1 ) )
+        {
+          drawRect( brickWidth * j, rowY, brickWidth - brickGap, brickHeight - brickGap, "blue" );
+        }
+      }
+    }
+  }
+
+  private void drawRect( final double topLeftX,
+                         final double topLeftY,
+                         final double width,
+                         final double height,
+                         @Nonnull final String color )
+  {
+    _commands.fillRect( topLeftX, topLeftY, width, height, color );
+  }
+}
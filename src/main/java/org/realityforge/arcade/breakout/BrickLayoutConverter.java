@@ -0,0 +1,58 @@
+package org.realityforge.arcade.breakout;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import javax.annotation.Nonnull;
+
+/**
+ * Converts a brick layout from the text format to the smaller binary format that Breakout loads when the
+ * level url ends with ".brk".
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module, for example:</p>
+ *
+ * <pre>java org.realityforge.arcade.breakout.BrickLayoutConverter level.txt level.brk</pre>
+ */
+final class BrickLayoutConverter
+{
+  private BrickLayoutConverter()
+  {
+  }
+
+  public static void main( final String[] args )
+    throws IOException
+  {
+    if ( 2 != args.length )
+    {
+      System.err.println( "Usage: BrickLayoutConverter <text layout> <binary layout>" );
+      System.exit( 1 );
+    }
+    final String text = new String( Files.readAllBytes( Paths.get( args[ 0 ] ) ), StandardCharsets.UTF_8 );
+    final BrickGrid bricks = parse( BrickLayoutLoader.fromText( text ) );
+    final byte[] data = BrickLayoutLoader.toBinary( bricks );
+    // Check that the binary layout loads back to the same bricks before writing it
+    final BrickGrid reloaded = parse( BrickLayoutLoader.fromBinary( data ) );
+    for ( int row = 0; row < bricks.getRows(); row++ )
+    {
+      for ( int column = 0; column < bricks.getColumns(); column++ )
+      {
+        if ( bricks.isSetInitial( column, row ) != reloaded.isSetInitial( column, row ) )
+        {
+          throw new IllegalStateException( "Binary layout differs at column " + column + " row " + row );
+        }
+      }
+    }
+    Files.write( Paths.get( args[ 1 ] ), data );
+    System.out.println( "Converted a " + bricks.getColumns() + "x" + bricks.getRows() + " layout of " +
+                        text.length() + " characters to " + data.length + " bytes" );
+  }
+
+  @Nonnull
+  private static BrickGrid parse( @Nonnull final BrickLayoutLoader loader )
+  {
+    // The whole layout is parsed in a single slice
+    loader.parse( Integer.MAX_VALUE );
+    return loader.getBricks();
+  }
+}
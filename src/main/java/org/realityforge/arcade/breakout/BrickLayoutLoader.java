@@ -0,0 +1,402 @@
+package org.realityforge.arcade.breakout;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Loads a brick layout incrementally so that large boards can be parsed a slice at a time between frames.
+ * The dimensions are read when the loader is created and the cells are parsed by repeated calls to
+ * {@link #parse(int)} until it returns true. Two formats are supported.
+ *
+ * <p>The text format starts with a line containing the number of columns and rows separated by whitespace,
+ * followed by one line per row where '#' or 'X' is a brick and '.' or ' ' is an empty cell. Short rows are
+ * padded with empty cells and lines starting with ';' are comments.</p>
+ *
+ * <p>The binary format is the bytes "BRK", a format version, the columns and rows as variable length
+ * integers and then the lengths of alternating runs of empty cells and bricks, starting with empty cells,
+ * in row-major order. Cells not covered by a run are empty.</p>
+ */
+abstract class BrickLayoutLoader
+{
+  private static final byte[] BINARY_MAGIC = new byte[]{ 'B', 'R', 'K' };
+  private static final int BINARY_FORMAT_VERSION = 1;
+  @Nonnull
+  private final BrickGrid _bricks;
+  private final int _cellCount;
+  private int _parsedCellCount;
+
+  BrickLayoutLoader( final int columns, final int rows )
+  {
+    if ( columns <= 0 || rows <= 0 )
+    {
+      throw new IllegalArgumentException( "Invalid brick layout dimensions " + columns + "x" + rows );
+    }
+    // The grid rejects layouts with too many cells so the count of cells cannot overflow
+    _bricks = new BrickGrid( columns, rows );
+    _cellCount = columns * rows;
+  }
+
+  @Nonnull
+  static BrickLayoutLoader fromText( @Nonnull final String text )
+  {
+    return new TextLoader( text );
+  }
+
+  @Nonnull
+  static BrickLayoutLoader fromBinary( @Nonnull final byte[] data )
+  {
+    return new BinaryLoader( data );
+  }
+
+  /**
+   * Encode the initial layout of the grid in the binary format.
+   */
+  @Nonnull
+  static byte[] toBinary( @Nonnull final BrickGrid bricks )
+  {
+    final ByteWriter writer = new ByteWriter();
+    for ( final byte b : BINARY_MAGIC )
+    {
+      writer.writeByte( b );
+    }
+    writer.writeByte( BINARY_FORMAT_VERSION );
+    final int columns = bricks.getColumns();
+    final int rows = bricks.getRows();
+    writer.writeVarInt( columns );
+    writer.writeVarInt( rows );
+
+    boolean brick = false;
+    int runLength = 0;
+    for ( int row = 0; row < rows; row++ )
+    {
+      for ( int column = 0; column < columns; column++ )
+      {
+        if ( bricks.isSetInitial( column, row ) != brick )
+        {
+          writer.writeVarInt( runLength );
+          brick = !brick;
+          runLength = 0;
+        }
+        runLength++;
+      }
+    }
+    // A trailing run of empty cells is implied
+    if ( brick )
+    {
+      writer.writeVarInt( runLength );
+    }
+    return writer.toByteArray();
+  }
+
+  /**
+   * Return the grid being loaded. It is only complete once {@link #parse(int)} has returned true.
+   */
+  @Nonnull
+  final BrickGrid getBricks()
+  {
+    return _bricks;
+  }
+
+  /**
+   * Return the fraction of cells parsed so far, in the range [0, 1].
+   */
+  final double getProgress()
+  {
+    return _parsedCellCount / (double) _cellCount;
+  }
+
+  /**
+   * Parse up to the specified number of cells.
+   *
+   * @return true if the layout has been completely parsed.
+   */
+  final boolean parse( final int maxCells )
+  {
+    if ( _parsedCellCount < _cellCount )
+    {
+      final int cellCount = Math.min( maxCells, _cellCount - _parsedCellCount );
+      final int parsed = parseCells( _parsedCellCount, cellCount );
+      _parsedCellCount = parsed < cellCount ? _cellCount : _parsedCellCount + parsed;
+      if ( _parsedCellCount == _cellCount )
+      {
+        _bricks.reset();
+      }
+    }
+    return _parsedCellCount == _cellCount;
+  }
+
+  /**
+   * Parse the specified number of cells starting at the specified row-major cell index.
+   *
+   * @return the number of cells parsed. A value less than requested indicates the input ended and
+   * the remaining cells are empty.
+   */
+  abstract int parseCells( int firstCell, int cellCount );
+
+  final void setBrick( final int cell )
+  {
+    final int columns = _bricks.getColumns();
+    _bricks.setInitial( cell % columns, cell / columns, true );
+  }
+
+  private static final class TextLoader
+    extends BrickLayoutLoader
+  {
+    @Nonnull
+    private final String _text;
+    // The offset of the line after the current row
+    private int _offset;
+    private int _rowStart;
+    private int _rowEnd;
+
+    TextLoader( @Nonnull final String text )
+    {
+      this( text, skipComments( text, 0 ) );
+    }
+
+    private TextLoader( @Nonnull final String text, final int headerStart )
+    {
+      super( parseDimension( text, headerStart, 0 ), parseDimension( text, headerStart, 1 ) );
+      _text = text;
+      _offset = nextLine( text, headerStart );
+    }
+
+    @Override
+    int parseCells( final int firstCell, final int cellCount )
+    {
+      final int columns = getBricks().getColumns();
+      final int endCell = firstCell + cellCount;
+      for ( int cell = firstCell; cell < endCell; cell++ )
+      {
+        final int column = cell % columns;
+        if ( 0 == column && !startRow( columns ) )
+        {
+          return cell - firstCell;
+        }
+        // Short rows are padded with empty cells
+        final int offset = _rowStart + column;
+        if ( offset < _rowEnd )
+        {
+          final char ch = _text.charAt( offset );
+          if ( '#' == ch || 'X' == ch )
+          {
+            setBrick( cell );
+          }
+          else if ( '.' != ch && ' ' != ch )
+          {
+            throw new IllegalArgumentException( "Unexpected character '" + ch + "' in brick layout" );
+          }
+        }
+      }
+      return cellCount;
+    }
+
+    /**
+     * Locate the next row in the text, returning false if there are no more rows.
+     */
+    private boolean startRow( final int columns )
+    {
+      _offset = skipComments( _text, _offset );
+      if ( _offset >= _text.length() )
+      {
+        return false;
+      }
+      _rowStart = _offset;
+      _offset = nextLine( _text, _offset );
+      _rowEnd = _offset;
+      while ( _rowEnd > _rowStart && isLineTerminator( _text.charAt( _rowEnd - 1 ) ) )
+      {
+        _rowEnd--;
+      }
+      if ( _rowEnd - _rowStart > columns )
+      {
+        throw new IllegalArgumentException( "Brick layout row is longer than " + columns + " columns" );
+      }
+      return true;
+    }
+
+    private static boolean isLineTerminator( final char ch )
+    {
+      return '\n' == ch || '\r' == ch;
+    }
+
+    private static int parseDimension( @Nonnull final String text, final int headerStart, final int field )
+    {
+      final String header = text.substring( headerStart, nextLine( text, headerStart ) ).trim();
+      final String[] parts = header.split( "\\s+" );
+      if ( 2 != parts.length )
+      {
+        throw new IllegalArgumentException( "Brick layout must start with the number of columns and rows" );
+      }
+      try
+      {
+        return Integer.parseInt( parts[ field ] );
+      }
+      catch ( final NumberFormatException nfe )
+      {
+        throw new IllegalArgumentException( "Invalid brick layout dimension '" + parts[ field ] + "'" );
+      }
+    }
+
+    private static int skipComments( @Nonnull final String text, final int offset )
+    {
+      int result = offset;
+      while ( result < text.length() && ';' == text.charAt( result ) )
+      {
+        result = nextLine( text, result );
+      }
+      return result;
+    }
+
+    private static int nextLine( @Nonnull final String text, final int offset )
+    {
+      final int end = text.indexOf( '\n', offset );
+      return -1 == end ? text.length() : end + 1;
+    }
+  }
+
+  private static final class BinaryLoader
+    extends BrickLayoutLoader
+  {
+    @Nonnull
+    private final ByteReader _reader;
+    // The cells remaining in the current run
+    private int _runRemaining;
+    private boolean _brickRun = true;
+
+    BinaryLoader( @Nonnull final byte[] data )
+    {
+      this( readHeader( data ) );
+    }
+
+    private BinaryLoader( @Nonnull final ByteReader reader )
+    {
+      super( reader.readVarInt(), reader.readVarInt() );
+      _reader = reader;
+    }
+
+    @Override
+    int parseCells( final int firstCell, final int cellCount )
+    {
+      final int endCell = firstCell + cellCount;
+      int cell = firstCell;
+      while ( cell < endCell )
+      {
+        if ( 0 == _runRemaining )
+        {
+          if ( !_reader.hasMore() )
+          {
+            // Trailing empty cells are implied
+            break;
+          }
+          _runRemaining = _reader.readVarInt();
+          _brickRun = !_brickRun;
+        }
+        final int count = Math.min( _runRemaining, endCell - cell );
+        if ( _brickRun )
+        {
+          for ( int i = 0; i < count; i++ )
+          {
+            setBrick( cell + i );
+          }
+        }
+        cell += count;
+        _runRemaining -= count;
+      }
+      return cell - firstCell;
+    }
+
+    @Nonnull
+    private static ByteReader readHeader( @Nonnull final byte[] data )
+    {
+      final ByteReader reader = new ByteReader( data );
+      for ( final byte b : BINARY_MAGIC )
+      {
+        if ( b != reader.readByte() )
+        {
+          throw new IllegalArgumentException( "Data is not a binary brick layout" );
+        }
+      }
+      final int version = reader.readByte();
+      if ( BINARY_FORMAT_VERSION != version )
+      {
+        throw new IllegalArgumentException( "Unsupported brick layout format version " + version );
+      }
+      return reader;
+    }
+  }
+
+  private static final class ByteWriter
+  {
+    @Nonnull
+    private byte[] _data = new byte[ 64 ];
+    private int _size;
+
+    void writeVarInt( final int value )
+    {
+      int v = value;
+      while ( 0 != ( v & ~0x7F ) )
+      {
+        writeByte( ( v & 0x7F ) | 0x80 );
+        v >>>= 7;
+      }
+      writeByte( v );
+    }
+
+    void writeByte( final int value )
+    {
+      if ( _size == _data.length )
+      {
+        _data = Arrays.copyOf( _data, _size * 2 );
+      }
+      _data[ _size++ ] = (byte) value;
+    }
+
+    @Nonnull
+    byte[] toByteArray()
+    {
+      return Arrays.copyOf( _data, _size );
+    }
+  }
+
+  private static final class ByteReader
+  {
+    @Nonnull
+    private final byte[] _data;
+    private int _offset;
+
+    ByteReader( @Nonnull final byte[] data )
+    {
+      _data = data;
+    }
+
+    boolean hasMore()
+    {
+      return _offset < _data.length;
+    }
+
+    int readVarInt()
+    {
+      int v = 0;
+      int shift = 0;
+      int b;
+      do
+      {
+        b = readByte();
+        v |= ( b & 0x7F ) << shift;
+        shift += 7;
+      }
+      while ( 0 != ( b & 0x80 ) );
+      return v;
+    }
+
+    int readByte()
+    {
+      if ( _offset >= _data.length )
+      {
+        throw new IllegalArgumentException( "Brick layout truncated at offset " + _offset );
+      }
+      return _data[ _offset++ ] & 0xFF;
+    }
+  }
+}
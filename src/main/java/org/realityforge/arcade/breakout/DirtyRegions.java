@@ -0,0 +1,100 @@
+package org.realityforge.arcade.breakout;
+
+/**
+ * A bounded list of rectangles on the canvas that must be repainted in the next frame.
+ * Rectangles are expanded to whole pixels and clipped to the canvas. If more rectangles are
+ * added than can be tracked then the list is marked as overflowed and the caller is expected
+ * to repaint the entire canvas instead.
+ */
+final class DirtyRegions
+{
+  private final double _width;
+  private final double _height;
+  private final double[] _x;
+  private final double[] _y;
+  private final double[] _regionWidth;
+  private final double[] _regionHeight;
+  private int _count;
+  private boolean _overflowed;
+
+  DirtyRegions( final double width, final double height, final int capacity )
+  {
+    _width = width;
+    _height = height;
+    _x = new double[ capacity ];
+    _y = new double[ capacity ];
+    _regionWidth = new double[ capacity ];
+    _regionHeight = new double[ capacity ];
+  }
+
+  int getCount()
+  {
+    return _count;
+  }
+
+  double getX( final int index )
+  {
+    return _x[ index ];
+  }
+
+  double getY( final int index )
+  {
+    return _y[ index ];
+  }
+
+  double getWidth( final int index )
+  {
+    return _regionWidth[ index ];
+  }
+
+  double getHeight( final int index )
+  {
+    return _regionHeight[ index ];
+  }
+
+  /**
+   * Return true if too many regions were added or the whole canvas was marked dirty.
+   */
+  boolean isOverflowed()
+  {
+    return _overflowed;
+  }
+
+  void markAllDirty()
+  {
+    _overflowed = true;
+  }
+
+  void add( final double x, final double y, final double width, final double height )
+  {
+    if ( !_overflowed )
+    {
+      // Expand to whole pixels so that anti-aliased edges are included in the region
+      final double minX = Math.max( 0, Math.floor( x ) - 1 );
+      final double minY = Math.max( 0, Math.floor( y ) - 1 );
+      final double maxX = Math.min( _width, Math.ceil( x + width ) + 1 );
+      final double maxY = Math.min( _height, Math.ceil( y + height ) + 1 );
+      if ( maxX > minX && maxY > minY )
+      {
+        if ( _count == _x.length )
+        {
+          _overflowed = true;
+        }
+        else
+        {
+          _x[ _count ] = minX;
+          _y[ _count ] = minY;
+          _regionWidth[ _count ] = maxX - minX;
+          _regionHeight[ _count ] = maxY - minY;
+          _count++;
+        }
+      }
+    }
+  }
+
+  void clear()
+  {
+    _count = 0;
+    _overflowed = false;
+  }
+}
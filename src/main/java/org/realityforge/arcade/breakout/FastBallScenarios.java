@@ -0,0 +1,164 @@
+package org.realityforge.arcade.breakout;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Runs a table of scenarios in which a single fast moving ball is stepped once towards bricks, and checks
+ * which bricks were hit and how the ball bounced. The scenarios cover the cases that sampling the ball's cell
+ * at the end of each tick, or walking only the path of the ball's center, gets wrong.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. It exits with a non-zero status
+ * if any scenario fails:</p>
+ *
+ * <pre>java -ea org.realityforge.arcade.breakout.FastBallScenarios</pre>
+ *
+ * <p>Scenarios are played on an 800x600 world with the standard 8x14 grid, where brick (column, row) covers
+ * x from 100 * column to 100 * column + 100 and y from 60 + 20 * row to 80 + 20 * row, unless stated.</p>
+ */
+final class FastBallScenarios
+{
+  private static final double WORLD_WIDTH = 800D;
+  private static final double WORLD_HEIGHT = 600D;
+  private static final int COLUMNS = 8;
+  private static final int ROWS = 14;
+  // The direction of the ball expected along an axis after the tick
+  private static final int UNCHANGED = 0;
+  private static final int POSITIVE = 1;
+  private static final int NEGATIVE = -1;
+  private static int c_failures;
+
+  private FastBallScenarios()
+  {
+  }
+
+  public static void main( final String[] args )
+  {
+    run( "fast ball hits the nearer of two bricks in its path",
+         COLUMNS, ROWS, new int[]{ 3, 10, 3, 5 },
+         350, 400, 0, -120,
+         new int[]{ 3, 10 }, UNCHANGED, POSITIVE );
+    run( "very fast ball does not pass through a brick between ticks",
+         COLUMNS, ROWS, new int[]{ 3, 2 },
+         350, 400, 0, -300,
+         new int[]{ 3, 2 }, UNCHANGED, POSITIVE );
+    run( "ball whose edge clips the corner of a brick hits it and bounces away from the corner",
+         COLUMNS, ROWS, new int[]{ 3, 5 },
+         405, 300, 0, -200,
+         new int[]{ 3, 5 }, POSITIVE, POSITIVE );
+    run( "ball passing further than its radius from a brick misses it",
+         COLUMNS, ROWS, new int[]{ 3, 5 },
+         415, 300, 0, -200,
+         new int[ 0 ], UNCHANGED, NEGATIVE );
+    run( "fast ball hitting the side of a brick bounces back horizontally",
+         COLUMNS, ROWS, new int[]{ 5, 5 },
+         300, 170, 250, 0,
+         new int[]{ 5, 5 }, NEGATIVE, UNCHANGED );
+    run( "fast diagonal ball hits the first brick along its path",
+         COLUMNS, ROWS, new int[]{ 2, 10, 3, 6 },
+         150, 400, 150, -150,
+         new int[]{ 2, 10 }, POSITIVE, POSITIVE );
+    run( "fast ball on a dense 1000x1000 board is stopped by the first brick it reaches",
+         1000, 1000, null,
+         400.4, 400, 0, -100,
+         new int[]{ 500, 999 }, UNCHANGED, POSITIVE );
+    run( "ball passing diagonally just outside the radius of a corner misses the brick",
+         COLUMNS, ROWS, new int[]{ 3, 5 },
+         388, 208, 40, -40,
+         new int[ 0 ], UNCHANGED, UNCHANGED );
+    run( "ball moving away from a brick that it overlaps is not hit",
+         COLUMNS, ROWS, new int[]{ 3, 5 },
+         350, 185, 0, 50,
+         new int[ 0 ], UNCHANGED, POSITIVE );
+
+    if ( 0 != c_failures )
+    {
+      System.out.println( c_failures + " scenarios failed" );
+      System.exit( 1 );
+    }
+  }
+
+  /**
+   * Play a single tick of a scenario and report whether the expected bricks were hit.
+   *
+   * @param bricks        pairs of column and row of the bricks present, or null to fill the grid.
+   * @param expectedHits  pairs of column and row of the bricks expected to be hit.
+   * @param expectedSignX the expected direction of the ball along the x axis after the tick.
+   * @param expectedSignY the expected direction of the ball along the y axis after the tick.
+   */
+  private static void run( @Nonnull final String name,
+                           final int columns,
+                           final int rows,
+                           @Nullable final int[] bricks,
+                           final double x,
+                           final double y,
+                           final double speedX,
+                           final double speedY,
+                           @Nonnull final int[] expectedHits,
+                           final int expectedSignX,
+                           final int expectedSignY )
+  {
+    final BrickGrid grid = new BrickGrid( columns, rows );
+    if ( null == bricks )
+    {
+      grid.fillInitial();
+    }
+    else
+    {
+      for ( int i = 0; i < bricks.length; i += 2 )
+      {
+        grid.setInitial( bricks[ i ], bricks[ i + 1 ], true );
+      }
+    }
+    grid.reset();
+    final BreakoutSimulation simulation = new BreakoutSimulation( WORLD_WIDTH, WORLD_HEIGHT, 0, grid );
+    final Balls balls = simulation.getBalls();
+    balls.clear();
+    balls.add( x, y, speedX, speedY );
+    final int initialCount = grid.getCount();
+
+    // The mouse is at the origin so the paddle stays in the bottom left corner away from the ball
+    simulation.tick( new BreakoutInput() );
+
+    final StringBuilder problems = new StringBuilder();
+    for ( int i = 0; i < expectedHits.length; i += 2 )
+    {
+      if ( grid.isSet( expectedHits[ i ], expectedHits[ i + 1 ] ) )
+      {
+        problems.append( " brick " ).append( expectedHits[ i ] ).append( "," ).append( expectedHits[ i + 1 ] );
+        problems.append( " was not hit;" );
+      }
+    }
+    final int hitCount = initialCount - grid.getCount();
+    if ( expectedHits.length / 2 != hitCount )
+    {
+      problems.append( " " ).append( hitCount ).append( " bricks were hit;" );
+    }
+    checkDirection( problems, "x", speedX, balls.getSpeedX( 0 ), expectedSignX );
+    checkDirection( problems, "y", speedY, balls.getSpeedY( 0 ), expectedSignY );
+
+    if ( 0 == problems.length() )
+    {
+      System.out.println( "PASS " + name );
+    }
+    else
+    {
+      c_failures++;
+      System.out.println( "FAIL " + name + ":" + problems );
+    }
+  }
+
+  private static void checkDirection( @Nonnull final StringBuilder problems,
+                                      @Nonnull final String axis,
+                                      final double initialSpeed,
+                                      final double speed,
+                                      final int expectedSign )
+  {
+    final boolean matches =
+      UNCHANGED == expectedSign ? speed == initialSpeed : Math.signum( speed ) == expectedSign;
+    if ( !matches )
+    {
+      problems.append( " " ).append( axis ).append( " speed is " ).append( speed ).append( ";" );
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package org.realityforge.arcade.breakout;
+
+/**
+ * A small xorshift random number generator.
+ * It only uses 32-bit shifts and exclusive-or so it produces the same sequence when compiled to
+ * JavaScript as it does on the JVM, which allows recorded sessions to be replayed on either.
+ */
+final class SeededRandom
+{
+  private int _state;
+
+  SeededRandom( final int seed )
+  {
+    // A zero state would only ever produce zeros
+    _state = 0 == seed ? 0x9E3779B9 : seed;
+  }
+
+  /**
+   * Return a value in the range [0, 1).
+   */
+  double nextDouble()
+  {
+    int x = _state;
+    x ^= x << 13;
+    x ^= x >>> 17;
+    x ^= x << 5;
+    _state = x;
+    // Use the top 24 bits so the value is exactly representable
+    return ( x >>> 8 ) / (double) ( 1 << 24 );
+  }
+}
@@ -0,0 +1,36 @@
+package org.realityforge.arcade.racing;
+
+/**
+ * The position of each image in the atlas.
+ * Generated by org.realityforge.arcade.tools.AtlasPacker from the images in the public directory.
+ * Do not edit.
+ */
+final class AtlasIndex
+{
+  static final String IMAGE = "atlas.png";
+  static final String[] NAMES = new String[]{
+    "car",
+    "player1car",
+    "player2car",
+    "track_flag",
+    "track_goal",
+    "track_road",
+    "track_tree",
+    "track_wall"
+  };
+  // The x, y, width and height of each image in the atlas
+  static final int[] RECTANGLES = new int[]{
+    42, 166, 30, 16,
+    0, 0, 100, 60,
+    0, 62, 100, 60,
+    102, 62, 40, 40,
+    0, 124, 40, 40,
+    42, 124, 40, 40,
+    84, 124, 40, 40,
+    0, 166, 40, 40
+  };
+
+  private AtlasIndex()
+  {
+  }
+}
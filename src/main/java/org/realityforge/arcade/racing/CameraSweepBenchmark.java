@@ -0,0 +1,69 @@
+package org.realityforge.arcade.racing;
+
+import elemental2.dom.DomGlobal;
+import javax.annotation.Nonnull;
+import org.realityforge.arcade.render.Sprite;
+
+/**
+ * Measures the cost of drawing the track as the camera sweeps diagonally across a large generated track, and
+ * logs the draw calls and frame times to the console. Every frame moves the camera into new rows and columns
+ * of chunks, so this is the worst case for drawing chunks as they come into view.
+ *
+ * <p>The benchmark draws to the screen so it runs in the browser, in place of the game, when Racing is
+ * loaded with ?benchmark=sweep. The time measured is the time taken to prepare and draw the track each frame,
+ * which is the time spent on the main thread each frame.</p>
+ */
+final class CameraSweepBenchmark
+{
+  // The number of cells along each side of the generated track
+  private static final int TRACK_SIZE = 1000;
+  private static final long SEED = 42;
+  // The distance the camera moves along each axis every frame, which is faster than any car
+  private static final double SWEEP_SPEED = 16D;
+  @Nonnull
+  private final Renderer _renderer;
+  @Nonnull
+  private final Sprite[] _tiles;
+
+  CameraSweepBenchmark( @Nonnull final Renderer renderer, @Nonnull final Sprite[] tiles )
+  {
+    _renderer = renderer;
+    _tiles = tiles;
+  }
+
+  void run()
+  {
+    final World world = TrackGenerator.generate( TRACK_SIZE, SEED );
+    final TrackLayer trackLayer = new TrackLayer( world, _tiles );
+    final double viewWidth = _renderer.getViewWidth();
+    final double viewHeight = _renderer.getViewHeight();
+    final double maxX = world.getColumnCount() * World.CELL_WIDTH - viewWidth;
+    final double maxY = world.getRowCount() * World.CELL_HEIGHT - viewHeight;
+    final int frameCount = (int) ( Math.min( maxX, maxY ) / SWEEP_SPEED ) + 1;
+
+    double totalFrameTime = 0;
+    double peakFrameTime = 0;
+    long totalDrawCalls = 0;
+    int peakDrawCalls = 0;
+    for ( int frame = 0; frame < frameCount; frame++ )
+    {
+      final double start = DomGlobal.performance.now();
+      _renderer.resetCounters();
+      _renderer.setCamera( frame * SWEEP_SPEED, frame * SWEEP_SPEED );
+      trackLayer.update( _renderer.getCameraX(), _renderer.getCameraY(), viewWidth, viewHeight );
+      trackLayer.draw( _renderer );
+      _renderer.flush();
+      final double frameTime = DomGlobal.performance.now() - start;
+      final int drawCalls = _renderer.getDrawCalls() + trackLayer.getDrawCalls();
+      totalFrameTime += frameTime;
+      peakFrameTime = Math.max( peakFrameTime, frameTime );
+      totalDrawCalls += drawCalls;
+      peakDrawCalls = Math.max( peakDrawCalls, drawCalls );
+    }
+    DomGlobal.console.log( "Camera swept " + frameCount + " frames across a " + TRACK_SIZE + "x" + TRACK_SIZE +
+                           " track: " + ( Math.round( totalDrawCalls * 10D / frameCount ) / 10D ) +
+                           " draw calls per frame (peak " + peakDrawCalls + "), " +
+                           ( Math.round( totalFrameTime * 1000D / frameCount ) / 1000D ) +
+                           "ms per frame (peak " + ( Math.round( peakFrameTime * 1000D ) / 1000D ) + "ms)" );
+  }
+}
@@ -0,0 +1,219 @@
+package org.realityforge.arcade.racing;
+
+import java.util.Arrays;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+
+/**
+ * The cars in the race, stored as parallel arrays of primitives rather than an object per car so that
+ * large races can be updated without chasing pointers or allocating.
+ * The unit vector of each car's heading is cached when its angle changes so that moving a car every tick
+ * does not need to evaluate trigonometric functions.
+ */
+final class Cars
+{
+  // The controls held by the driver of a car, stored as a bit set per car
+  static final int CONTROL_ACCELERATE = 1;
+  static final int CONTROL_BRAKE = 1 << 1;
+  static final int CONTROL_LEFT = 1 << 2;
+  static final int CONTROL_RIGHT = 1 << 3;
+  private static final int INITIAL_CAPACITY = 8;
+  private static final double TURN_RATE = 0.05D;
+  private static final double DRIVE_POWER = 0.5D;
+  private static final double REVERSE_POWER = 0.2D;
+  private static final double SPEED_DECAY_RATE = 0.04;
+  private static final double MIN_SPEED_TO_TURN = 0.5;
+  @Nonnull
+  private String[] _names = new String[ INITIAL_CAPACITY ];
+  @Nonnull
+  private int[] _startCellTypes = new int[ INITIAL_CAPACITY ];
+  // Whether the controls of a car are chosen by the simulation rather than by a player
+  @Nonnull
+  private boolean[] _computerDriven = new boolean[ INITIAL_CAPACITY ];
+  @Nonnull
+  private int[] _controls = new int[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _x = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _y = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _angle = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _headingX = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _headingY = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _speed = new double[ INITIAL_CAPACITY ];
+  private int _count;
+
+  int getCount()
+  {
+    return _count;
+  }
+
+  /**
+   * Add a car and return its index.
+   *
+   * @param startCellType the type of the cell that the car starts the race in.
+   */
+  int add( @Nonnull final String name, final int startCellType )
+  {
+    if ( _count == _x.length )
+    {
+      final int capacity = _count * 2;
+      _names = Arrays.copyOf( _names, capacity );
+      _startCellTypes = Arrays.copyOf( _startCellTypes, capacity );
+      _computerDriven = Arrays.copyOf( _computerDriven, capacity );
+      _controls = Arrays.copyOf( _controls, capacity );
+      _x = Arrays.copyOf( _x, capacity );
+      _y = Arrays.copyOf( _y, capacity );
+      _angle = Arrays.copyOf( _angle, capacity );
+      _headingX = Arrays.copyOf( _headingX, capacity );
+      _headingY = Arrays.copyOf( _headingY, capacity );
+      _speed = Arrays.copyOf( _speed, capacity );
+    }
+    final int car = _count++;
+    _names[ car ] = Objects.requireNonNull( name );
+    _startCellTypes[ car ] = startCellType;
+    _computerDriven[ car ] = false;
+    _controls[ car ] = 0;
+    _x[ car ] = 0;
+    _y[ car ] = 0;
+    _angle[ car ] = 0;
+    _headingX[ car ] = 1D;
+    _headingY[ car ] = 0;
+    _speed[ car ] = 0;
+    return car;
+  }
+
+  @Nonnull
+  String getName( final int car )
+  {
+    return _names[ car ];
+  }
+
+  int getStartCellType( final int car )
+  {
+    return _startCellTypes[ car ];
+  }
+
+  boolean isComputerDriven( final int car )
+  {
+    return _computerDriven[ car ];
+  }
+
+  void setComputerDriven( final int car, final boolean computerDriven )
+  {
+    _computerDriven[ car ] = computerDriven;
+  }
+
+  boolean isControlHeld( final int car, final int control )
+  {
+    return 0 != ( _controls[ car ] & control );
+  }
+
+  void setControlHeld( final int car, final int control, final boolean held )
+  {
+    if ( held )
+    {
+      _controls[ car ] |= control;
+    }
+    else
+    {
+      _controls[ car ] &= ~control;
+    }
+  }
+
+  /**
+   * Replace all of the controls held for the car.
+   */
+  void setControls( final int car, final int controls )
+  {
+    _controls[ car ] = controls;
+  }
+
+  double getX( final int car )
+  {
+    return _x[ car ];
+  }
+
+  void setX( final int car, final double x )
+  {
+    _x[ car ] = x;
+  }
+
+  double getY( final int car )
+  {
+    return _y[ car ];
+  }
+
+  void setY( final int car, final double y )
+  {
+    _y[ car ] = y;
+  }
+
+  double getAngle( final int car )
+  {
+    return _angle[ car ];
+  }
+
+  void setAngle( final int car, final double angle )
+  {
+    if ( angle != _angle[ car ] )
+    {
+      _angle[ car ] = angle;
+      _headingX[ car ] = Math.cos( angle );
+      _headingY[ car ] = Math.sin( angle );
+    }
+  }
+
+  double getHeadingX( final int car )
+  {
+    return _headingX[ car ];
+  }
+
+  double getHeadingY( final int car )
+  {
+    return _headingY[ car ];
+  }
+
+  double getSpeed( final int car )
+  {
+    return _speed[ car ];
+  }
+
+  void setSpeed( final int car, final double speed )
+  {
+    _speed[ car ] = speed;
+  }
+
+  /**
+   * Apply the controls held by the driver to the angle and speed of the car.
+   * The car is moved by the simulation as the movement depends upon the walls of the world.
+   */
+  void update( final int car )
+  {
+    final int controls = _controls[ car ];
+    double speed = _speed[ car ] * ( 1.0 - SPEED_DECAY_RATE );
+    if ( Math.abs( speed ) > MIN_SPEED_TO_TURN )
+    {
+      if ( 0 != ( controls & CONTROL_LEFT ) )
+      {
+        setAngle( car, _angle[ car ] - TURN_RATE );
+      }
+      if ( 0 != ( controls & CONTROL_RIGHT ) )
+      {
+        setAngle( car, _angle[ car ] + TURN_RATE );
+      }
+    }
+    if ( 0 != ( controls & CONTROL_ACCELERATE ) )
+    {
+      speed += DRIVE_POWER;
+    }
+    if ( 0 != ( controls & CONTROL_BRAKE ) )
+    {
+      speed -= REVERSE_POWER;
+    }
+    _speed[ car ] = speed;
+  }
+}
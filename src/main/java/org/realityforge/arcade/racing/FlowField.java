@@ -0,0 +1,478 @@
+package org.realityforge.arcade.racing;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * The distance, in cells, from every cell of the track to the nearest goal cell and the neighbouring cell
+ * that leads there. The field is computed once per track by a breadth first search out from the goal cells
+ * over the cells that are not solid so that a computer driver decides where to head with a table lookup.
+ * The next cell is stored as one of four directions in two bits so that the field costs little more than
+ * the distances, and the scratch space used to repair the field grows with the size of the repair.
+ *
+ * <p>Cells that change type are invalidated and the next update repairs only the part of the field that
+ * depended upon them. Cells whose route ran through a cell that became solid are cleared and then refilled
+ * from their neighbours, while cells that became passable or became goals are searched outwards from.</p>
+ */
+final class FlowField
+{
+  // The distance of cells that can not reach a goal, including solid cells
+  static final int UNREACHABLE = Integer.MAX_VALUE;
+  // The next cell of goal cells and of cells that can not reach a goal
+  static final int NO_CELL = -1;
+  // The direction of the next cell, packed four cells to a byte
+  private static final int DIRECTION_UP = 0;
+  private static final int DIRECTION_LEFT = 1;
+  private static final int DIRECTION_RIGHT = 2;
+  private static final int DIRECTION_DOWN = 3;
+  private static final int INITIAL_SCRATCH_CAPACITY = 64;
+  @Nonnull
+  private final World _world;
+  private final int _columnCount;
+  private final int _rowCount;
+  @Nonnull
+  private final int[] _distances;
+  @Nonnull
+  private final byte[] _directions;
+  // A ring buffer of the cells waiting to have their neighbours relaxed. A cell is never queued twice.
+  @Nonnull
+  private int[] _queue = new int[ INITIAL_SCRATCH_CAPACITY ];
+  // Bit sets, indexed by cell, of the cells that are queued, changed or dirty
+  @Nonnull
+  private final int[] _queued;
+  private int _queueHead;
+  private int _queueSize;
+  // Scratch space used to clear the cells whose route passed through a cell that became solid
+  @Nonnull
+  private int[] _cleared = new int[ INITIAL_SCRATCH_CAPACITY ];
+  @Nonnull
+  private int[] _clearedDistances = new int[ INITIAL_SCRATCH_CAPACITY ];
+  // The cells whose distance changed during an update and whose next cell must be recomputed.
+  // Changes are not tracked while rebuilding as every cell is recomputed.
+  @Nonnull
+  private int[] _changedCells = new int[ INITIAL_SCRATCH_CAPACITY ];
+  @Nonnull
+  private final int[] _changed;
+  private int _changedCount;
+  private boolean _rebuilding;
+  // The cells that have been invalidated since the last update
+  @Nonnull
+  private int[] _dirtyCells = new int[ INITIAL_SCRATCH_CAPACITY ];
+  @Nonnull
+  private final int[] _dirty;
+  private int _dirtyCount;
+
+  FlowField( @Nonnull final World world )
+  {
+    _world = world;
+    _columnCount = world.getColumnCount();
+    _rowCount = world.getRowCount();
+    final int cellCount = world.getCellCount();
+    _distances = new int[ cellCount ];
+    _directions = new byte[ ( cellCount + 3 ) >> 2 ];
+    final int bitSetSize = ( cellCount + 31 ) >> 5;
+    _queued = new int[ bitSetSize ];
+    _changed = new int[ bitSetSize ];
+    _dirty = new int[ bitSetSize ];
+    rebuild();
+  }
+
+  /**
+   * Return the number of cells between the cell and the nearest goal or {@link #UNREACHABLE}.
+   */
+  int getDistance( final int cell )
+  {
+    return _distances[ cell ];
+  }
+
+  /**
+   * Return the neighbouring cell that is one step closer to a goal or {@link #NO_CELL}.
+   */
+  int getNextCell( final int cell )
+  {
+    final int distance = _distances[ cell ];
+    if ( 0 == distance || UNREACHABLE == distance )
+    {
+      return NO_CELL;
+    }
+    switch ( ( _directions[ cell >> 2 ] >> ( ( cell & 3 ) << 1 ) ) & 3 )
+    {
+      case DIRECTION_UP:
+        return cell - _columnCount;
+      case DIRECTION_LEFT:
+        return cell - 1;
+      case DIRECTION_RIGHT:
+        return cell + 1;
+      default:
+        return cell + _columnCount;
+    }
+  }
+
+  /**
+   * Mark the cell as needing to be recomputed because its type has changed.
+   */
+  void invalidateCell( final int column, final int row )
+  {
+    assert _world.isValidCell( column, row );
+    final int cell = row * _columnCount + column;
+    if ( !isSet( _dirty, cell ) )
+    {
+      set( _dirty, cell );
+      _dirtyCells = ensureCapacity( _dirtyCells, _dirtyCount );
+      _dirtyCells[ _dirtyCount++ ] = cell;
+    }
+  }
+
+  /**
+   * Recompute the whole field from the current state of the world.
+   */
+  void rebuild()
+  {
+    Arrays.fill( _distances, UNREACHABLE );
+    Arrays.fill( _dirty, 0 );
+    _dirtyCount = 0;
+    clearChanged();
+    _rebuilding = true;
+    final int goalCount = _world.getCellCountOfType( World.CELL_GOAL_TYPE );
+    for ( int i = 0; i < goalCount; i++ )
+    {
+      final int cell = _world.getCellOfType( World.CELL_GOAL_TYPE, i );
+      _distances[ cell ] = 0;
+      enqueue( cell );
+    }
+    relax();
+    _rebuilding = false;
+    final int cellCount = _distances.length;
+    for ( int cell = 0; cell < cellCount; cell++ )
+    {
+      updateDirection( cell );
+    }
+  }
+
+  /**
+   * Repair the parts of the field that depend upon cells invalidated since the last update.
+   */
+  void update()
+  {
+    if ( 0 == _dirtyCount )
+    {
+      return;
+    }
+    for ( int i = 0; i < _dirtyCount; i++ )
+    {
+      final int cell = _dirtyCells[ i ];
+      clear( _dirty, cell );
+      final int type = _world.getCellAtIndex( cell );
+      if ( World.CELL_GOAL_TYPE == type )
+      {
+        if ( 0 != _distances[ cell ] )
+        {
+          setDistance( cell, 0 );
+          enqueue( cell );
+        }
+      }
+      else
+      {
+        if ( UNREACHABLE != _distances[ cell ] && ( 0 == _distances[ cell ] || _world.isSolid( type ) ) )
+        {
+          // The cell was a goal or is now solid so every route that ran through it is invalid
+          clearRoutesThrough( cell );
+        }
+        if ( !_world.isSolid( type ) )
+        {
+          enqueueReachableNeighbours( cell );
+        }
+      }
+    }
+    _dirtyCount = 0;
+
+    // Cells cleared above may have another route to a goal through their uncleared neighbours
+    for ( int i = 0; i < _changedCount; i++ )
+    {
+      final int cell = _changedCells[ i ];
+      if ( UNREACHABLE == _distances[ cell ] )
+      {
+        enqueueReachableNeighbours( cell );
+      }
+    }
+    relax();
+
+    // A cell's next cell depends upon the distances of its neighbours
+    for ( int i = 0; i < _changedCount; i++ )
+    {
+      final int cell = _changedCells[ i ];
+      final int column = cell % _columnCount;
+      final int row = cell / _columnCount;
+      updateDirection( cell );
+      if ( row > 0 )
+      {
+        updateDirection( cell - _columnCount );
+      }
+      if ( column > 0 )
+      {
+        updateDirection( cell - 1 );
+      }
+      if ( column < _columnCount - 1 )
+      {
+        updateDirection( cell + 1 );
+      }
+      if ( row < _rowCount - 1 )
+      {
+        updateDirection( cell + _columnCount );
+      }
+    }
+    clearChanged();
+  }
+
+  /**
+   * Clear the distance of the cell and of every cell whose distance was derived from it.
+   * A cell was derived from a neighbour if its distance is one more than the neighbour's distance. A cell
+   * that is also one more than another neighbour that keeps its distance still has a route and is kept.
+   * Cells are visited in order of increasing distance so a neighbour is cleared before it is relied upon.
+   */
+  private void clearRoutesThrough( final int cell )
+  {
+    int head = 0;
+    int size = addCleared( 0, cell, _distances[ cell ] );
+    while ( head < size )
+    {
+      final int current = _cleared[ head ];
+      final int derivedDistance = _clearedDistances[ head++ ] + 1;
+      final int column = current % _columnCount;
+      final int row = current / _columnCount;
+      if ( row > 0 && isUnsupported( current - _columnCount, derivedDistance ) )
+      {
+        size = addCleared( size, current - _columnCount, derivedDistance );
+      }
+      if ( column > 0 && isUnsupported( current - 1, derivedDistance ) )
+      {
+        size = addCleared( size, current - 1, derivedDistance );
+      }
+      if ( column < _columnCount - 1 && isUnsupported( current + 1, derivedDistance ) )
+      {
+        size = addCleared( size, current + 1, derivedDistance );
+      }
+      if ( row < _rowCount - 1 && isUnsupported( current + _columnCount, derivedDistance ) )
+      {
+        size = addCleared( size, current + _columnCount, derivedDistance );
+      }
+    }
+  }
+
+  /**
+   * Clear the distance of the cell and record it so that the cells derived from it are visited.
+   *
+   * @return the number of cells recorded.
+   */
+  private int addCleared( final int size, final int cell, final int previousDistance )
+  {
+    if ( _cleared.length == size )
+    {
+      _cleared = Arrays.copyOf( _cleared, size * 2 );
+      _clearedDistances = Arrays.copyOf( _clearedDistances, size * 2 );
+    }
+    _cleared[ size ] = cell;
+    _clearedDistances[ size ] = previousDistance;
+    setDistance( cell, UNREACHABLE );
+    return size + 1;
+  }
+
+  /**
+   * Return true if the cell was derived at the specified distance and no neighbour still supports it.
+   */
+  private boolean isUnsupported( final int cell, final int distance )
+  {
+    if ( distance != _distances[ cell ] )
+    {
+      return false;
+    }
+    final int column = cell % _columnCount;
+    final int row = cell / _columnCount;
+    final int supportDistance = distance - 1;
+    return !( ( row > 0 && supportDistance == _distances[ cell - _columnCount ] ) ||
+              ( column > 0 && supportDistance == _distances[ cell - 1 ] ) ||
+              ( column < _columnCount - 1 && supportDistance == _distances[ cell + 1 ] ) ||
+              ( row < _rowCount - 1 && supportDistance == _distances[ cell + _columnCount ] ) );
+  }
+
+  /**
+   * Expand outwards from the queued cells, lowering the distance of any neighbour that has a shorter route
+   * through the cell. Cells may be queued with different distances so a cell can be lowered more than once.
+   */
+  private void relax()
+  {
+    while ( _queueSize > 0 )
+    {
+      final int cell = _queue[ _queueHead ];
+      _queueHead = ( _queueHead + 1 ) % _queue.length;
+      _queueSize--;
+      clear( _queued, cell );
+
+      final int distance = _distances[ cell ];
+      if ( UNREACHABLE != distance )
+      {
+        final int column = cell % _columnCount;
+        final int row = cell / _columnCount;
+        if ( row > 0 )
+        {
+          relaxNeighbour( cell - _columnCount, distance + 1 );
+        }
+        if ( column > 0 )
+        {
+          relaxNeighbour( cell - 1, distance + 1 );
+        }
+        if ( column < _columnCount - 1 )
+        {
+          relaxNeighbour( cell + 1, distance + 1 );
+        }
+        if ( row < _rowCount - 1 )
+        {
+          relaxNeighbour( cell + _columnCount, distance + 1 );
+        }
+      }
+    }
+    _queueHead = 0;
+  }
+
+  private void relaxNeighbour( final int cell, final int distance )
+  {
+    if ( distance < _distances[ cell ] && !_world.isSolid( _world.getCellAtIndex( cell ) ) )
+    {
+      setDistance( cell, distance );
+      enqueue( cell );
+    }
+  }
+
+  private void enqueueReachableNeighbours( final int cell )
+  {
+    final int column = cell % _columnCount;
+    final int row = cell / _columnCount;
+    if ( row > 0 )
+    {
+      enqueueIfReachable( cell - _columnCount );
+    }
+    if ( column > 0 )
+    {
+      enqueueIfReachable( cell - 1 );
+    }
+    if ( column < _columnCount - 1 )
+    {
+      enqueueIfReachable( cell + 1 );
+    }
+    if ( row < _rowCount - 1 )
+    {
+      enqueueIfReachable( cell + _columnCount );
+    }
+  }
+
+  private void enqueueIfReachable( final int cell )
+  {
+    if ( UNREACHABLE != _distances[ cell ] )
+    {
+      enqueue( cell );
+    }
+  }
+
+  private void enqueue( final int cell )
+  {
+    if ( !isSet( _queued, cell ) )
+    {
+      set( _queued, cell );
+      if ( _queue.length == _queueSize )
+      {
+        // Unwrap the ring buffer into a larger array so that the queued cells stay in order
+        final int[] queue = new int[ _queueSize * 2 ];
+        for ( int i = 0; i < _queueSize; i++ )
+        {
+          queue[ i ] = _queue[ ( _queueHead + i ) % _queue.length ];
+        }
+        _queue = queue;
+        _queueHead = 0;
+      }
+      _queue[ ( _queueHead + _queueSize ) % _queue.length ] = cell;
+      _queueSize++;
+    }
+  }
+
+  private void setDistance( final int cell, final int distance )
+  {
+    _distances[ cell ] = distance;
+    if ( !_rebuilding && !isSet( _changed, cell ) )
+    {
+      set( _changed, cell );
+      _changedCells = ensureCapacity( _changedCells, _changedCount );
+      _changedCells[ _changedCount++ ] = cell;
+    }
+  }
+
+  private void clearChanged()
+  {
+    for ( int i = 0; i < _changedCount; i++ )
+    {
+      clear( _changed, _changedCells[ i ] );
+    }
+    _changedCount = 0;
+  }
+
+  /**
+   * Point the cell at the neighbour with the lowest distance.
+   * The direction of goal cells and of cells that can not reach a goal is never read.
+   */
+  private void updateDirection( final int cell )
+  {
+    final int distance = _distances[ cell ];
+    if ( 0 == distance || UNREACHABLE == distance )
+    {
+      return;
+    }
+    final int column = cell % _columnCount;
+    final int row = cell / _columnCount;
+    int direction = DIRECTION_UP;
+    int nextDistance = distance;
+    if ( row > 0 && _distances[ cell - _columnCount ] < nextDistance )
+    {
+      nextDistance = _distances[ cell - _columnCount ];
+    }
+    if ( column > 0 && _distances[ cell - 1 ] < nextDistance )
+    {
+      direction = DIRECTION_LEFT;
+      nextDistance = _distances[ cell - 1 ];
+    }
+    if ( column < _columnCount - 1 && _distances[ cell + 1 ] < nextDistance )
+    {
+      direction = DIRECTION_RIGHT;
+      nextDistance = _distances[ cell + 1 ];
+    }
+    if ( row < _rowCount - 1 && _distances[ cell + _columnCount ] < nextDistance )
+    {
+      direction = DIRECTION_DOWN;
+    }
+    final int index = cell >> 2;
+    final int shift = ( cell & 3 ) << 1;
+    _directions[ index ] = (byte) ( ( _directions[ index ] & ~( 3 << shift ) ) | ( direction << shift ) );
+  }
+
+  /**
+   * Return the array, doubled in size if it has no room for another element.
+   */
+  @Nonnull
+  private static int[] ensureCapacity( @Nonnull final int[] array, final int size )
+  {
+    return array.length == size ? Arrays.copyOf( array, size * 2 ) : array;
+  }
+
+  private static boolean isSet( @Nonnull final int[] bits, final int cell )
+  {
+    return 0 != ( bits[ cell >> 5 ] & ( 1 << cell ) );
+  }
+
+  private static void set( @Nonnull final int[] bits, final int cell )
+  {
+    bits[ cell >> 5 ] |= 1 << cell;
+  }
+
+  private static void clear( @Nonnull final int[] bits, final int cell )
+  {
+    bits[ cell >> 5 ] &= ~( 1 << cell );
+  }
+}
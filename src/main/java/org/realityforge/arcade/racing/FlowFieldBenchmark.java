@@ -0,0 +1,129 @@
+package org.realityforge.arcade.racing;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import javax.annotation.Nonnull;
+
+/**
+ * Measures the cost of building the flow field, of repairing it when a cell changes and of computer
+ * drivers looking up the flow field, on large generated tracks.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. The track sizes, in cells
+ * along each side, are passed as arguments and default to 250, 1000 and 2000, for example:</p>
+ *
+ * <pre>java org.realityforge.arcade.racing.FlowFieldBenchmark 250 1000 2000</pre>
+ *
+ * <p>Generated tracks are walled at the edges, scattered with walls and have a block of goal cells in the
+ * bottom right corner.</p>
+ */
+final class FlowFieldBenchmark
+{
+  private static final long SEED = 42;
+  private static final double WALL_DENSITY = 0.25D;
+  private static final int GOAL_SIZE = 4;
+  private static final int BUILD_RUNS = 5;
+  private static final int CELL_CHANGES = 2_000;
+  private static final int DRIVER_COUNT = 10_000;
+  private static final int DRIVER_TICKS = 100;
+
+  private FlowFieldBenchmark()
+  {
+  }
+
+  public static void main( final String[] args )
+  {
+    final int[] sizes = 0 == args.length ? new int[]{ 250, 1000, 2000 } : new int[ args.length ];
+    for ( int i = 0; i < args.length; i++ )
+    {
+      sizes[ i ] = Integer.parseInt( args[ i ] );
+    }
+    for ( final int size : sizes )
+    {
+      run( size );
+    }
+  }
+
+  private static void run( final int size )
+  {
+    final SplittableRandom random = new SplittableRandom( SEED );
+    final World world = generateTrack( size, random );
+
+    long start = System.nanoTime();
+    final FlowField flowField = new FlowField( world );
+    for ( int i = 1; i < BUILD_RUNS; i++ )
+    {
+      flowField.rebuild();
+    }
+    final double buildMillis = ( System.nanoTime() - start ) / 1_000_000D / BUILD_RUNS;
+
+    // Toggle interior cells between wall and road, repairing the field after each change
+    start = System.nanoTime();
+    for ( int i = 0; i < CELL_CHANGES; i++ )
+    {
+      final int column = 1 + random.nextInt( size - 2 - GOAL_SIZE );
+      final int row = 1 + random.nextInt( size - 2 - GOAL_SIZE );
+      world.setCell( column, row, World.CELL_WALL_TYPE == world.getCell( column, row ) ?
+                                  World.CELL_ROAD_TYPE :
+                                  World.CELL_WALL_TYPE );
+      flowField.invalidateCell( column, row );
+      flowField.update();
+    }
+    final double updateMicros = ( System.nanoTime() - start ) / 1_000D / CELL_CHANGES;
+
+    final double decisionsPerSecond = measureDrivers( world, flowField, random );
+
+    System.out.printf( Locale.ROOT,
+                       "%4dx%-4d track: build %8.2f ms, single cell update %8.2f us, %6.1fM driver decisions/s%n",
+                       size, size, buildMillis, updateMicros, decisionsPerSecond / 1_000_000D );
+  }
+
+  private static double measureDrivers( @Nonnull final World world,
+                                        @Nonnull final FlowField flowField,
+                                        @Nonnull final SplittableRandom random )
+  {
+    final Cars cars = new Cars();
+    for ( int i = 0; i < DRIVER_COUNT; i++ )
+    {
+      final int car = cars.add( "Car " + i, World.CELL_ROAD_TYPE );
+      cars.setComputerDriven( car, true );
+      cars.setX( car, random.nextDouble() * world.getColumnCount() * World.CELL_WIDTH );
+      cars.setY( car, random.nextDouble() * world.getRowCount() * World.CELL_HEIGHT );
+      cars.setAngle( car, random.nextDouble() * Math.PI * 2 );
+    }
+    final FlowFieldDriver driver = new FlowFieldDriver( world, flowField );
+    // Warm up so that the measurement does not include compilation
+    for ( int tick = 0; tick < DRIVER_TICKS; tick++ )
+    {
+      driver.drive( cars );
+    }
+    final long start = System.nanoTime();
+    for ( int tick = 0; tick < DRIVER_TICKS; tick++ )
+    {
+      driver.drive( cars );
+    }
+    final double seconds = ( System.nanoTime() - start ) / 1_000_000_000D;
+    return ( (double) DRIVER_COUNT * DRIVER_TICKS ) / seconds;
+  }
+
+  @Nonnull
+  private static World generateTrack( final int size, @Nonnull final SplittableRandom random )
+  {
+    final World world = new World( size, size, World.CELL_WALL_TYPE );
+    for ( int row = 1; row < size - 1; row++ )
+    {
+      for ( int column = 1; column < size - 1; column++ )
+      {
+        final boolean goal = row >= size - 1 - GOAL_SIZE && column >= size - 1 - GOAL_SIZE;
+        if ( goal )
+        {
+          world.setCell( column, row, World.CELL_GOAL_TYPE );
+        }
+        else if ( random.nextDouble() >= WALL_DENSITY )
+        {
+          world.setCell( column, row, World.CELL_ROAD_TYPE );
+        }
+      }
+    }
+    return world;
+  }
+}
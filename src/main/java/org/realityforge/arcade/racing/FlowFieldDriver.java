@@ -0,0 +1,97 @@
+package org.realityforge.arcade.racing;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Drives computer controlled cars towards the goal by steering at the center of the next cell of the
+ * flow field. Each decision is a lookup of the cell under the car so the cost does not depend upon the
+ * size of the track.
+ */
+final class FlowFieldDriver
+{
+  // The car steers when the target is further than this from straight ahead, measured as the sine of the angle
+  private static final double STEERING_THRESHOLD = 0.1D;
+  // Cars stop accelerating when the target is behind them and they are moving faster than this,
+  // so that they turn around in a tighter circle
+  private static final double MAX_TURNING_SPEED = 4D;
+  // Cars slower than this that face a wall within the probe distance reverse so that they can turn away
+  private static final double MIN_TURNING_SPEED = 1D;
+  private static final double WALL_PROBE_DISTANCE = 20D;
+  @Nonnull
+  private final World _world;
+  @Nonnull
+  private final FlowField _flowField;
+
+  FlowFieldDriver( @Nonnull final World world, @Nonnull final FlowField flowField )
+  {
+    _world = world;
+    _flowField = flowField;
+  }
+
+  /**
+   * Choose the controls for every computer controlled car.
+   */
+  void drive( @Nonnull final Cars cars )
+  {
+    final int count = cars.getCount();
+    for ( int car = 0; car < count; car++ )
+    {
+      if ( cars.isComputerDriven( car ) )
+      {
+        drive( cars, car );
+      }
+    }
+  }
+
+  private void drive( @Nonnull final Cars cars, final int car )
+  {
+    final double x = cars.getX( car );
+    final double y = cars.getY( car );
+    final int column = _world.toCellColumn( x );
+    final int row = _world.toCellRow( y );
+    final int nextCell =
+      _world.isValidCell( column, row ) ?
+      _flowField.getNextCell( row * _world.getColumnCount() + column ) :
+      FlowField.NO_CELL;
+    if ( FlowField.NO_CELL == nextCell )
+    {
+      // Off the field so there is no better choice than to keep going
+      cars.setControls( car, Cars.CONTROL_ACCELERATE );
+      return;
+    }
+
+    final int columnCount = _world.getColumnCount();
+    final double dx = ( nextCell % columnCount + 0.5D ) * World.CELL_WIDTH - x;
+    final double dy = ( nextCell / columnCount + 0.5D ) * World.CELL_HEIGHT - y;
+    final double distance = Math.sqrt( dx * dx + dy * dy );
+    final double headingX = cars.getHeadingX( car );
+    final double headingY = cars.getHeadingY( car );
+    // The sine and cosine of the angle between the heading and the target
+    final double cross = ( headingX * dy - headingY * dx ) / distance;
+    final double dot = ( headingX * dx + headingY * dy ) / distance;
+
+    int controls = 0;
+    if ( dot < 0 || cross > STEERING_THRESHOLD )
+    {
+      // Increasing the angle turns the car clockwise on screen
+      controls |= cross >= 0 ? Cars.CONTROL_RIGHT : Cars.CONTROL_LEFT;
+    }
+    else if ( cross < -STEERING_THRESHOLD )
+    {
+      controls |= Cars.CONTROL_LEFT;
+    }
+    final double speed = cars.getSpeed( car );
+    final int cellAhead =
+      _world.getCellAtPosition( x + headingX * WALL_PROBE_DISTANCE, y + headingY * WALL_PROBE_DISTANCE );
+    if ( speed < MIN_TURNING_SPEED && World.CELL_GOAL_TYPE != cellAhead && _world.isSolid( cellAhead ) )
+    {
+      // Cars can only turn while moving so back away from the wall rather than pushing against it
+      controls |= Cars.CONTROL_BRAKE;
+    }
+    else if ( dot >= 0 || speed < MAX_TURNING_SPEED )
+    {
+      controls |= Cars.CONTROL_ACCELERATE;
+    }
+    cars.setControls( car, controls );
+  }
+}
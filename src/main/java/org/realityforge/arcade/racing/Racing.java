@@ -5,10 +5,15 @@ import elemental2.dom.DOMRect;
 import elemental2.dom.DomGlobal;
 import elemental2.dom.HTMLCanvasElement;
 import elemental2.dom.HTMLHtmlElement;
-import elemental2.dom.HTMLImageElement;
 import elemental2.dom.KeyboardEvent;
 import elemental2.dom.MouseEvent;
 import javax.annotation.Nonnull;
+import org.realityforge.arcade.render.FrameStats;
+import org.realityforge.arcade.render.ImageLoader;
+import org.realityforge.arcade.render.QueryParameters;
+import org.realityforge.arcade.render.RotatedSpriteCache;
+import org.realityforge.arcade.render.Sprite;
+import org.realityforge.arcade.render.SpriteAtlas;
 
 public class Racing
   implements EntryPoint
@@ -16,53 +21,180 @@ public class Racing
   private static final int FRAMES_PER_SECOND = 30;
   private static final int MILLIS_PER_SECOND = 1000;
   private static final int FRAME_DELAY = MILLIS_PER_SECOND / FRAMES_PER_SECOND;
-  private final World _world = new World();
-  private final Car _car1 = new Car( "Blue Storm" );
-  private final Car _car2 = new Car( "Green Machine" );
+  // The name of the performance mark recorded when the first frame has been drawn
+  private static final String FIRST_FRAME_MARK = "first-frame";
+  // The progress bar is drawn below the loading message
+  private static final double LOADING_BAR_GAP = 10D;
+  private static final double LOADING_BAR_WIDTH = 100D;
+  private static final double LOADING_BAR_HEIGHT = 4D;
+  // The query parameter that specifies the number of computer controlled cars, e.g. ?drivers=50
+  private static final String DRIVERS_PARAMETER = "drivers";
+  // The query parameter that replaces the standard track with a generated track of the size, e.g. ?track=1000
+  private static final String TRACK_PARAMETER = "track";
+  private static final long GENERATED_TRACK_SEED = 42;
+  // Cars further than this outside the view are not drawn. This is the largest distance that a car
+  // image extends from the center of the car.
+  private static final double CAR_CULL_DISTANCE = 60D;
+  // The query parameter that specifies the number of angles that car sprites are pre-rendered at, e.g. ?rotations=64
+  private static final String ROTATIONS_PARAMETER = "rotations";
+  // The query parameter that runs a benchmark rather than the game. ?benchmark=rotation measures drawing rotated
+  // sprites, ?benchmark=text measures drawing text from a glyph atlas against fillText and ?benchmark=sweep
+  // measures drawing the track as the camera sweeps across a large generated track.
+  private static final String BENCHMARK_PARAMETER = "benchmark";
+  // The opacity of the ghost of player 1's best race
+  private static final double GHOST_ALPHA = 0.4D;
+  // The space initially reserved for recording races, enough for a couple of minutes of racing
+  private static final int RECORDING_TICKS = FRAMES_PER_SECOND * 120;
+  private World _world;
+  private RacingSimulation _simulation;
+  // The number of ticks since the race started
+  private int _raceTick;
+  // Player 1's current race, recorded so that it can replace the ghost if it is faster
+  @Nonnull
+  private final Trajectory _recording = new Trajectory( RECORDING_TICKS );
+  // Player 1's fastest winning race, replayed as a ghost in later races
+  @Nonnull
+  private final Trajectory _ghost = new Trajectory( RECORDING_TICKS );
+  @Nonnull
+  private final TrajectoryPlayer _ghostPlayer = new TrajectoryPlayer( _ghost );
+  private int _car1;
+  private int _car2;
   private Renderer _renderer;
   private boolean _simulationActive = true;
   private boolean _showMouseCoords = false;
   private boolean _showTrackCoords = false;
+  private boolean _showFrameStats = false;
   private boolean _car1ToMouse = false;
   private boolean _car2ToMouse = false;
+  // The position of the mouse on the screen
   private double _mouseX;
   private double _mouseY;
-  private ImageAssets _imageAssets;
-  private final HTMLImageElement[] _tiles = new HTMLImageElement[ World.MAX_CELL_TYPE_COUNT ];
+  private SpriteAtlas _atlas;
+  private final Sprite[] _tiles = new Sprite[ World.MAX_CELL_TYPE_COUNT ];
+  private TrackLayer _trackLayer;
+  // Rotated cars are copied from pre-rotated sprites rather than drawn by transforming the context
+  private RotatedSpriteCache _rotationCache;
+  private boolean _useRotationCache = true;
+  @Nonnull
+  private final FrameStats _frameStats = new FrameStats();
 
   @Override
   public void onModuleLoad()
   {
     _renderer = new Renderer();
+    _rotationCache = new RotatedSpriteCache( getRotationCount(), RotatedSpriteCache.DEFAULT_MAX_ROTATIONS );
+    _world = createWorld();
+    _simulation = new RacingSimulation( _world );
 
-    // Render a loading screen for when the network is slow...
+    // Render a loading screen showing progress for when the network is slow...
+    new ImageLoader()
+      .loadAll( new String[]{ AtlasIndex.IMAGE }, this::drawLoadingScreen )
+      .then( images -> {
+        _atlas = new SpriteAtlas( images[ 0 ], AtlasIndex.NAMES, AtlasIndex.RECTANGLES );
+        onReady();
+        return null;
+      } )
+      // Also catches errors thrown while starting the game so that they do not leave the loading screen up
+      .catch_( error -> {
+        DomGlobal.console.error( "Unable to start the game", error );
+        drawLoadingFailedScreen();
+        return null;
+      } );
+  }
+
+  private void drawLoadingScreen( final int loadedCount, final int totalCount )
+  {
     final HTMLCanvasElement canvas = _renderer.getCanvas();
+    final double progress = 0 == totalCount ? 1D : loadedCount / (double) totalCount;
     _renderer.drawRect( 0, 0, canvas.width, canvas.height, "black" );
     _renderer.drawText( canvas.width / 2D, canvas.height / 2D, "Loading...", "white" );
+    final double barX = canvas.width / 2D;
+    final double barY = canvas.height / 2D + LOADING_BAR_GAP;
+    _renderer.drawRect( barX, barY, LOADING_BAR_WIDTH, LOADING_BAR_HEIGHT, "gray" );
+    _renderer.drawRect( barX, barY, LOADING_BAR_WIDTH * progress, LOADING_BAR_HEIGHT, "white" );
+    _renderer.flush();
+  }
 
-    _imageAssets = new ImageAssets( this::onReady );
+  private void drawLoadingFailedScreen()
+  {
+    final HTMLCanvasElement canvas = _renderer.getCanvas();
+    _renderer.drawRect( 0, 0, canvas.width, canvas.height, "black" );
+    _renderer.drawText( canvas.width / 2D,
+                        canvas.height / 2D,
+                        "Unable to load the game. Reload the page to try again.",
+                        "white" );
+    _renderer.flush();
   }
 
   private void onReady()
   {
-    _tiles[ 0 ] = _imageAssets.getImageByName( "track_road" );
-    _tiles[ 1 ] = _imageAssets.getImageByName( "track_wall" );
-    _tiles[ 2 ] = _imageAssets.getImageByName( "track_goal" );
-    _tiles[ 3 ] = _imageAssets.getImageByName( "track_tree" );
-    _tiles[ 4 ] = _imageAssets.getImageByName( "track_flag" );
+    _tiles[ 0 ] = _atlas.getSprite( "track_road" );
+    _tiles[ 1 ] = _atlas.getSprite( "track_wall" );
+    _tiles[ 2 ] = _atlas.getSprite( "track_goal" );
+    _tiles[ 3 ] = _atlas.getSprite( "track_tree" );
+    _tiles[ 4 ] = _atlas.getSprite( "track_flag" );
     _tiles[ 5 ] = _tiles[ 0 ];
     _tiles[ 6 ] = _tiles[ 0 ];
+    _trackLayer = new TrackLayer( _world, _tiles );
+
+    final String benchmark = QueryParameters.get( BENCHMARK_PARAMETER );
+    if ( "rotation".equals( benchmark ) )
+    {
+      new RotationBenchmark( _renderer, _rotationCache, _atlas.getSprite( "car" ) ).run();
+      return;
+    }
+    else if ( "text".equals( benchmark ) )
+    {
+      new TextBenchmark( _renderer ).run();
+      return;
+    }
+    else if ( "sweep".equals( benchmark ) )
+    {
+      new CameraSweepBenchmark( _renderer, _tiles ).run();
+      return;
+    }
 
     _renderer.getCanvas().addEventListener( "mousemove", e -> calculateMousePosition( (MouseEvent) e ) );
     DomGlobal.document.addEventListener( "keydown", e -> onKeyPress( (KeyboardEvent) e ) );
     DomGlobal.document.addEventListener( "keyup", e -> onKeyRelease( (KeyboardEvent) e ) );
 
-    resetGame();
+    _car1 = _simulation.addCar( "Blue Storm", World.CELL_PLAYER1_START_TYPE );
+    _car2 = _simulation.addCar( "Green Machine", World.CELL_PLAYER2_START_TYPE );
+    final int drivers = getComputerDriverCount();
+    for ( int i = 0; i < drivers; i++ )
+    {
+      // Computer cars share the start cells with the players and are pushed apart as the race begins
+      _simulation.addComputerCar( "Computer " + ( i + 1 ),
+                                  0 == i % 2 ? World.CELL_PLAYER1_START_TYPE : World.CELL_PLAYER2_START_TYPE );
+    }
 
     runFrame();
+    // Startup time is measured from the start of navigation to compare the cost of loading assets.
+    // The mark appears in the performance timeline of the developer tools rather than in the console.
+    DomGlobal.performance.mark( FIRST_FRAME_MARK );
     DomGlobal.setInterval( v -> runFrame(), FRAME_DELAY );
   }
 
+  @Nonnull
+  private World createWorld()
+  {
+    // A size of zero, the default, selects the standard track
+    final int size = QueryParameters.getInt( TRACK_PARAMETER, 0 );
+    return size > 0 ?
+           TrackGenerator.generate( Math.max( TrackGenerator.MIN_SIZE, size ), GENERATED_TRACK_SEED ) :
+           new World();
+  }
+
+  private int getRotationCount()
+  {
+    return Math.max( 1, QueryParameters.getInt( ROTATIONS_PARAMETER, RotatedSpriteCache.DEFAULT_ANGLE_COUNT ) );
+  }
+
+  private int getComputerDriverCount()
+  {
+    return Math.max( 0, QueryParameters.getInt( DRIVERS_PARAMETER, 0 ) );
+  }
+
   private void onKeyPress( @Nonnull final KeyboardEvent event )
   {
     if ( " ".equals( event.key ) )
@@ -100,6 +232,21 @@ public class Racing
     {
       _car2ToMouse = !_car1ToMouse;
     }
+    // the 7 key shows the number of draw calls and the time taken to produce each frame
+    else if ( "7".equals( event.key ) )
+    {
+      _showFrameStats = !_showFrameStats;
+    }
+    // the 8 key switches between copying pre-rotated cars and rotating the context to draw each car
+    else if ( "8".equals( event.key ) )
+    {
+      _useRotationCache = !_useRotationCache;
+    }
+    // the 9 key swaps the cell under the mouse between road and wall
+    else if ( "9".equals( event.key ) )
+    {
+      toggleWallAtMouse();
+    }
     else if ( !controlKey( event, true ) )
     {
       return;
@@ -107,6 +254,29 @@ public class Racing
     event.preventDefault();
   }
 
+  private void toggleWallAtMouse()
+  {
+    final int column = _world.toCellColumn( _mouseX + _renderer.getCameraX() );
+    final int row = _world.toCellRow( _mouseY + _renderer.getCameraY() );
+    if ( _world.isValidCell( column, row ) )
+    {
+      final int type = _world.getCell( column, row );
+      if ( World.CELL_ROAD_TYPE == type || World.CELL_WALL_TYPE == type )
+      {
+        setCell( column, row, World.CELL_ROAD_TYPE == type ? World.CELL_WALL_TYPE : World.CELL_ROAD_TYPE );
+      }
+    }
+  }
+
+  /**
+   * Change the type of a cell and update everything derived from it.
+   */
+  private void setCell( final int column, final int row, final int type )
+  {
+    _simulation.setCell( column, row, type );
+    _trackLayer.invalidateCell( column, row );
+  }
+
   private void onKeyRelease( @Nonnull final KeyboardEvent event )
   {
     controlKey( event, false );
@@ -116,35 +286,35 @@ public class Racing
   {
     if ( "ArrowLeft".equals( event.code ) )
     {
-      _car1.setLeftHeld( hold );
+      _simulation.getCars().setControlHeld( _car1, Cars.CONTROL_LEFT, hold );
     }
     else if ( "ArrowRight".equals( event.code ) )
     {
-      _car1.setRightHeld( hold );
+      _simulation.getCars().setControlHeld( _car1, Cars.CONTROL_RIGHT, hold );
     }
     else if ( "ArrowUp".equals( event.code ) )
     {
-      _car1.setAccelerateHeld( hold );
+      _simulation.getCars().setControlHeld( _car1, Cars.CONTROL_ACCELERATE, hold );
     }
     else if ( "ArrowDown".equals( event.code ) )
     {
-      _car1.setBrakeHeld( hold );
+      _simulation.getCars().setControlHeld( _car1, Cars.CONTROL_BRAKE, hold );
     }
     else if ( "KeyA".equals( event.code ) )
     {
-      _car2.setLeftHeld( hold );
+      _simulation.getCars().setControlHeld( _car2, Cars.CONTROL_LEFT, hold );
     }
     else if ( "KeyD".equals( event.code ) )
     {
-      _car2.setRightHeld( hold );
+      _simulation.getCars().setControlHeld( _car2, Cars.CONTROL_RIGHT, hold );
     }
     else if ( "KeyW".equals( event.code ) )
     {
-      _car2.setAccelerateHeld( hold );
+      _simulation.getCars().setControlHeld( _car2, Cars.CONTROL_ACCELERATE, hold );
     }
     else if ( "KeyS".equals( event.code ) )
     {
-      _car2.setBrakeHeld( hold );
+      _simulation.getCars().setControlHeld( _car2, Cars.CONTROL_BRAKE, hold );
     }
     else
     {
@@ -176,113 +346,175 @@ public class Racing
     }
   }
 
-  private void carToMouse( @Nonnull final Car car )
+  private void carToMouse( final int car )
   {
-    final Body body = car.getBody();
-    body.setX( _mouseX );
-    body.setY( _mouseY );
-    body.setAngle( 0 );
-    body.setSpeed( 0 );
+    final Cars cars = _simulation.getCars();
+    cars.setX( car, _mouseX + _renderer.getCameraX() );
+    cars.setY( car, _mouseY + _renderer.getCameraY() );
+    cars.setAngle( car, 0 );
+    cars.setSpeed( car, 0 );
   }
 
   private void runFrame()
   {
+    _frameStats.beginFrame();
+    _renderer.resetCounters();
     if ( _simulationActive )
     {
       simulateWorld();
     }
     renderWorld();
+    _frameStats.endFrame( _renderer.getDrawCalls() + _trackLayer.getDrawCalls(), _renderer.getStateChanges() );
   }
 
   private void simulateWorld()
   {
-    _car1.update();
-    _car2.update();
-
-    carCollisionDetection( _car1 );
-    carCollisionDetection( _car2 );
-  }
-
-  private void resetCar( @Nonnull final Car car, final int startCellType )
-  {
-    final Body body = car.getBody();
-    body.setSpeed( 0 );
-    body.setAngle( Math.PI * 0.5D );
-
-    final WorldPosition startCell = _world.getFirstCellMatching( startCellType );
-    assert null != startCell;
-    body.setX( startCell.getColumn() * World.CELL_WIDTH + ( World.CELL_WIDTH / 2 ) );
-    body.setY( startCell.getRow() * World.CELL_HEIGHT + ( World.CELL_HEIGHT / 2 ) );
-  }
-
-  private void carCollisionDetection( @Nonnull final Car car )
-  {
-    final Body body = car.getBody();
-    final int cell = _world.getCell( body );
-    if ( World.CELL_GOAL_TYPE == cell )
+    final Cars cars = _simulation.getCars();
+    _recording.record( cars.getX( _car1 ), cars.getY( _car1 ), cars.getAngle( _car1 ) );
+    final int winner = _simulation.tick();
+    if ( RacingSimulation.NO_WINNER != winner )
     {
-      DomGlobal.console.log( car.getName() + " wins!" );
-      resetGame();
+      DomGlobal.console.log( cars.getName( winner ) + " wins!" );
+      if ( _car1 == winner && ( 0 == _ghost.getTickCount() || _recording.getTickCount() < _ghost.getTickCount() ) )
+      {
+        _ghost.copyFrom( _recording );
+        _ghostPlayer.rewind();
+      }
+      _recording.clear();
+      _raceTick = 0;
     }
-    else if ( _world.isSolid( cell ) )
+    else
     {
-      // This is to reverse action of frame to avoid car getting stuck in the wall before we reverse direction
-      // otherwise next frame could see car try to reverse out when inside the wall and not make it out
-      car.reverseMove();
-
-      // The bounce saps some energy
-      body.setSpeed( 0.3 * -body.getSpeed() );
+      _raceTick++;
     }
   }
 
-  private void resetGame()
-  {
-    resetCar( _car1, World.CELL_PLAYER1_START_TYPE );
-    resetCar( _car2, World.CELL_PLAYER2_START_TYPE );
-  }
-
   private void renderWorld()
   {
+    updateCamera();
     drawWorld();
 
-    renderCar( _car1, "car" );
-    renderCar( _car2, "player2car" );
+    final Sprite carSprite = _atlas.getSprite( "car" );
+    final Sprite player2CarSprite = _atlas.getSprite( "player2car" );
+    final Cars cars = _simulation.getCars();
+    final double minX = _renderer.getCameraX() - CAR_CULL_DISTANCE;
+    final double minY = _renderer.getCameraY() - CAR_CULL_DISTANCE;
+    final double maxX = _renderer.getCameraX() + _renderer.getViewWidth() + CAR_CULL_DISTANCE;
+    final double maxY = _renderer.getCameraY() + _renderer.getViewHeight() + CAR_CULL_DISTANCE;
+    // The ghost is only shown until it finishes its race
+    if ( _raceTick < _ghost.getTickCount() )
+    {
+      _ghostPlayer.seek( _raceTick );
+      final double angle = _ghostPlayer.getAngle();
+      _renderer.setImageAlpha( GHOST_ALPHA );
+      if ( _useRotationCache )
+      {
+        _renderer.drawImageWithCachedRotation( _rotationCache,
+                                               carSprite,
+                                               _ghostPlayer.getX(),
+                                               _ghostPlayer.getY(),
+                                               angle );
+      }
+      else
+      {
+        _renderer.drawImageWithRotation( carSprite,
+                                         _ghostPlayer.getX(),
+                                         _ghostPlayer.getY(),
+                                         Math.cos( angle ),
+                                         Math.sin( angle ) );
+      }
+      _renderer.setImageAlpha( 1D );
+    }
+    final int count = cars.getCount();
+    for ( int car = 0; car < count; car++ )
+    {
+      final double x = cars.getX( car );
+      final double y = cars.getY( car );
+      if ( x >= minX && x <= maxX && y >= minY && y <= maxY )
+      {
+        renderCar( car, _car2 == car ? player2CarSprite : carSprite );
+      }
+    }
 
+    // Debug coordinates are positioned on the screen but describe the point in the world under the mouse
+    final double mouseWorldX = _mouseX + _renderer.getCameraX();
+    final double mouseWorldY = _mouseY + _renderer.getCameraY();
     if ( _showMouseCoords )
     {
-      _renderer.drawText( _mouseX, _mouseY, _mouseX + "," + _mouseY, "yellow" );
+      _renderer.drawDebugCoordinates( _mouseX,
+                                      _mouseY,
+                                      (int) Math.floor( mouseWorldX ),
+                                      (int) Math.floor( mouseWorldY ) );
     }
     else if ( _showTrackCoords )
     {
-      final double trackCol = _world.toCellColumn( _mouseX );
-      final double trackRow = _world.toCellRow( _mouseY );
+      final double trackCol = _world.toCellColumn( mouseWorldX );
+      final double trackRow = _world.toCellRow( mouseWorldY );
       if ( _world.isValidCell( trackCol, trackRow ) )
       {
-        _renderer.drawText( _mouseX, _mouseY, Math.floor( trackCol ) + "," + Math.floor( trackRow ), "yellow" );
+        _renderer.drawDebugCoordinates( _mouseX, _mouseY, (int) Math.floor( trackCol ), (int) Math.floor( trackRow ) );
       }
     }
+
+    if ( _showFrameStats )
+    {
+      _renderer.drawDebugStats( 5D,
+                                15D,
+                                _frameStats.getAverageDrawCalls(),
+                                _frameStats.getAverageStateChanges(),
+                                _frameStats.getAverageFrameTime(),
+                                _frameStats.getPeakFrameTime() );
+    }
+
+    _renderer.flush();
   }
 
-  private void renderCar( @Nonnull final Car car, @Nonnull final String image )
+  private void renderCar( final int car, @Nonnull final Sprite sprite )
   {
-    final Body body = car.getBody();
-    final HTMLImageElement carImage = _imageAssets.getImageByName( image );
-    _renderer.drawImageWithRotation( carImage, body.getX(), body.getY(), body.getAngle() );
+    final Cars cars = _simulation.getCars();
+    if ( _useRotationCache )
+    {
+      _renderer.drawImageWithCachedRotation( _rotationCache,
+                                             sprite,
+                                             cars.getX( car ),
+                                             cars.getY( car ),
+                                             cars.getAngle( car ) );
+    }
+    else
+    {
+      _renderer.drawImageWithRotation( sprite,
+                                       cars.getX( car ),
+                                       cars.getY( car ),
+                                       cars.getHeadingX( car ),
+                                       cars.getHeadingY( car ) );
+    }
   }
 
-  private void drawWorld()
+  /**
+   * Center the camera on the car leading the race, without showing anything beyond the edges of the track.
+   */
+  private void updateCamera()
   {
-    int index = 0;
-    double rowY = 0;
-    for ( int i = 0; i < World.ROW_COUNT; i++ )
+    final int leader = _simulation.getLeadingCar();
+    if ( RacingSimulation.NO_CAR != leader )
     {
-      double cellX = 0;
-      for ( int j = 0; j < World.COLUMN_COUNT; j++ )
-      {
-        _renderer.drawImage( _tiles[ _world.getCellAtIndex( index++ ) ], cellX, rowY );
-        cellX += World.CELL_WIDTH;
-      }
-      rowY += World.CELL_HEIGHT;
+      final double viewWidth = _renderer.getViewWidth();
+      final double viewHeight = _renderer.getViewHeight();
+      final double maxX = Math.max( 0, _world.getColumnCount() * World.CELL_WIDTH - viewWidth );
+      final double maxY = Math.max( 0, _world.getRowCount() * World.CELL_HEIGHT - viewHeight );
+      final Cars cars = _simulation.getCars();
+      _renderer.setCamera( Math.max( 0, Math.min( maxX, cars.getX( leader ) - viewWidth / 2 ) ),
+                           Math.max( 0, Math.min( maxY, cars.getY( leader ) - viewHeight / 2 ) ) );
     }
   }
+
+  private void drawWorld()
+  {
+    // The track rarely changes so the chunks in view are drawn into layers that are copied to the screen
+    _trackLayer.update( _renderer.getCameraX(),
+                        _renderer.getCameraY(),
+                        _renderer.getViewWidth(),
+                        _renderer.getViewHeight() );
+    _trackLayer.draw( _renderer );
+  }
 }
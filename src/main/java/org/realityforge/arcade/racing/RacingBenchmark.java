@@ -0,0 +1,127 @@
+package org.realityforge.arcade.racing;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import javax.annotation.Nonnull;
+
+/**
+ * Measures how many simulation ticks per second can be run for races of different sizes.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. The race sizes are passed as
+ * arguments and default to 2, 100, 1000 and 5000 cars, for example:</p>
+ *
+ * <pre>java org.realityforge.arcade.racing.RacingBenchmark 2 100 1000 5000</pre>
+ *
+ * <p>Cars are scattered across the road cells of the track and driven by randomly changing controls.
+ * When a car reaches the goal the cars are scattered again rather than stacked in the start cells.</p>
+ */
+final class RacingBenchmark
+{
+  private static final int WARMUP_TICKS = 500;
+  // Ticks are run in batches until at least this much time has been measured
+  private static final int TICKS_PER_BATCH = 100;
+  private static final long MIN_MEASURED_NANOS = 2_000_000_000L;
+  // The number of ticks that a driver holds the same controls
+  private static final int TICKS_PER_CONTROL_CHANGE = 30;
+  private static final long SEED = 42;
+
+  private RacingBenchmark()
+  {
+  }
+
+  public static void main( final String[] args )
+  {
+    final int[] carCounts = 0 == args.length ? new int[]{ 2, 100, 1000, 5000 } : new int[ args.length ];
+    for ( int i = 0; i < args.length; i++ )
+    {
+      carCounts[ i ] = Integer.parseInt( args[ i ] );
+    }
+    for ( final int carCount : carCounts )
+    {
+      run( carCount );
+    }
+  }
+
+  private static void run( final int carCount )
+  {
+    final World world = new World();
+    final RacingSimulation simulation = new RacingSimulation( world );
+    final SplittableRandom random = new SplittableRandom( SEED );
+    for ( int i = 0; i < carCount; i++ )
+    {
+      simulation.addCar( "Car " + i, World.CELL_PLAYER1_START_TYPE );
+    }
+    scatterCars( simulation, random );
+
+    tick( simulation, random, WARMUP_TICKS );
+    final long start = System.nanoTime();
+    int ticks = 0;
+    int wins = 0;
+    long elapsed;
+    do
+    {
+      wins += tick( simulation, random, TICKS_PER_BATCH );
+      ticks += TICKS_PER_BATCH;
+      elapsed = System.nanoTime() - start;
+    }
+    while ( elapsed < MIN_MEASURED_NANOS );
+    final double seconds = elapsed / 1_000_000_000D;
+    System.out.printf( Locale.ROOT, "%5d cars: %9.0f ticks/s %9.3f ms/tick (%d wins)%n",
+                       carCount, ticks / seconds, seconds * 1000D / ticks, wins );
+  }
+
+  private static int tick( @Nonnull final RacingSimulation simulation,
+                           @Nonnull final SplittableRandom random,
+                           final int ticks )
+  {
+    final Cars cars = simulation.getCars();
+    final int count = cars.getCount();
+    int wins = 0;
+    for ( int tick = 0; tick < ticks; tick++ )
+    {
+      if ( 0 == tick % TICKS_PER_CONTROL_CHANGE )
+      {
+        for ( int car = 0; car < count; car++ )
+        {
+          // Mostly accelerate so that cars cover the track rather than idling
+          final int steering = random.nextInt( 3 );
+          cars.setControls( car,
+                            ( random.nextInt( 4 ) > 0 ? Cars.CONTROL_ACCELERATE : Cars.CONTROL_BRAKE ) |
+                            ( 1 == steering ? Cars.CONTROL_LEFT : 2 == steering ? Cars.CONTROL_RIGHT : 0 ) );
+        }
+      }
+      if ( RacingSimulation.NO_WINNER != simulation.tick() )
+      {
+        wins++;
+        scatterCars( simulation, random );
+      }
+    }
+    return wins;
+  }
+
+  /**
+   * Place every car at a random position within a random road cell.
+   */
+  private static void scatterCars( @Nonnull final RacingSimulation simulation,
+                                   @Nonnull final SplittableRandom random )
+  {
+    final World world = simulation.getWorld();
+    final Cars cars = simulation.getCars();
+    final int count = cars.getCount();
+    for ( int car = 0; car < count; car++ )
+    {
+      int column;
+      int row;
+      do
+      {
+        column = random.nextInt( world.getColumnCount() );
+        row = random.nextInt( world.getRowCount() );
+      }
+      while ( world.isSolid( world.getCell( column, row ) ) );
+      cars.setX( car, ( column + random.nextDouble() ) * World.CELL_WIDTH );
+      cars.setY( car, ( row + random.nextDouble() ) * World.CELL_HEIGHT );
+      cars.setAngle( car, random.nextDouble() * Math.PI * 2 );
+      cars.setSpeed( car, 0 );
+    }
+  }
+}
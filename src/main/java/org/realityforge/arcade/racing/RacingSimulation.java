@@ -0,0 +1,357 @@
+package org.realityforge.arcade.racing;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The state and rules of the race.
+ * The simulation has no dependency on the DOM so that large races can also be run on the JVM.
+ */
+final class RacingSimulation
+{
+  // Returned by tick when no car reached the goal
+  static final int NO_WINNER = -1;
+  // Returned by getLeadingCar when there are no cars
+  static final int NO_CAR = -1;
+  // Cars are treated as circles of this radius when they collide with each other
+  static final double CAR_RADIUS = 10D;
+  private static final double CAR_DIAMETER_SQUARED = ( 2 * CAR_RADIUS ) * ( 2 * CAR_RADIUS );
+  // Cars are treated as squares of this half size when they collide with walls
+  private static final double CAR_HALF_SIZE = CAR_RADIUS;
+  // The fraction of speed retained after bouncing off a wall
+  private static final double WALL_BOUNCE = 0.3D;
+  // Cars that hit a wall closer to straight on than this, measured as the cosine of the angle between the
+  // movement and the wall's normal, bounce off the wall rather than sliding along it
+  private static final double HEAD_ON_IMPACT = 0.95D;
+  // The gap left between a car and the wall it hits so that sliding along the wall does not touch it
+  private static final double WALL_GAP = 0.01D;
+  // The number of walls that a car can slide along in a single step, such as when driving into a corner
+  private static final int MAX_SLIDES = 3;
+  // The fraction of speed retained by each car after colliding with another car
+  private static final double CAR_BOUNCE = 0.7D;
+  @Nonnull
+  private final World _world;
+  @Nonnull
+  private final Cars _cars = new Cars();
+  @Nonnull
+  private final SpatialHash _spatialHash;
+  // The flow field and its driver are only built once a computer car joins the race as the field is
+  // proportional to the size of the track
+  @Nullable
+  private FlowField _flowField;
+  @Nullable
+  private FlowFieldDriver _driver;
+  @Nonnull
+  private final SweepResult _sweep = new SweepResult();
+
+  RacingSimulation( @Nonnull final World world )
+  {
+    _world = world;
+    _spatialHash =
+      new SpatialHash( world.getColumnCount(), world.getRowCount(), World.CELL_WIDTH, World.CELL_HEIGHT );
+  }
+
+  @Nonnull
+  World getWorld()
+  {
+    return _world;
+  }
+
+  @Nonnull
+  Cars getCars()
+  {
+    return _cars;
+  }
+
+  @Nullable
+  FlowField getFlowField()
+  {
+    return _flowField;
+  }
+
+  /**
+   * Add a car to the race, placed in the first cell of the specified type.
+   */
+  int addCar( @Nonnull final String name, final int startCellType )
+  {
+    final int car = _cars.add( name, startCellType );
+    resetCar( car );
+    return car;
+  }
+
+  /**
+   * Add a car to the race that is driven along the flow field towards the goal.
+   */
+  int addComputerCar( @Nonnull final String name, final int startCellType )
+  {
+    if ( null == _flowField )
+    {
+      _flowField = new FlowField( _world );
+      _driver = new FlowFieldDriver( _world, _flowField );
+    }
+    final int car = addCar( name, startCellType );
+    _cars.setComputerDriven( car, true );
+    return car;
+  }
+
+  /**
+   * Change the type of a cell. The flow field is repaired before the next step of the race.
+   * Layers that draw the world must also be invalidated by the caller.
+   */
+  void setCell( final int column, final int row, final int type )
+  {
+    _world.setCell( column, row, type );
+    if ( null != _flowField )
+    {
+      _flowField.invalidateCell( column, row );
+    }
+  }
+
+  /**
+   * Return every car to its start cell.
+   */
+  void resetGame()
+  {
+    final int count = _cars.getCount();
+    for ( int car = 0; car < count; car++ )
+    {
+      resetCar( car );
+    }
+  }
+
+  /**
+   * Return the car that is closest to the goal, measured along the track, or {@link #NO_CAR} if there
+   * are no cars. Cars that can not reach the goal are only chosen if no car can.
+   * Races without computer cars have no flow field so cars are ranked by the straight line distance to the
+   * nearest goal cell instead.
+   */
+  int getLeadingCar()
+  {
+    if ( null == _flowField )
+    {
+      return getClosestCarToGoal();
+    }
+    final int columnCount = _world.getColumnCount();
+    final int count = _cars.getCount();
+    int leader = NO_CAR;
+    long leaderDistance = Long.MAX_VALUE;
+    for ( int car = 0; car < count; car++ )
+    {
+      final int column = _world.toCellColumn( _cars.getX( car ) );
+      final int row = _world.toCellRow( _cars.getY( car ) );
+      // Widen the distance so that unreachable cars still rank ahead of the initial value
+      final long distance =
+        _world.isValidCell( column, row ) ? _flowField.getDistance( row * columnCount + column ) : Integer.MAX_VALUE;
+      if ( distance < leaderDistance )
+      {
+        leader = car;
+        leaderDistance = distance;
+      }
+    }
+    return leader;
+  }
+
+  private int getClosestCarToGoal()
+  {
+    final int goalCount = _world.getCellCountOfType( World.CELL_GOAL_TYPE );
+    final int columnCount = _world.getColumnCount();
+    final int count = _cars.getCount();
+    // A track without goals has no leader so the first car leads
+    int leader = count > 0 ? 0 : NO_CAR;
+    double leaderDistance = Double.MAX_VALUE;
+    for ( int car = 0; car < count; car++ )
+    {
+      for ( int i = 0; i < goalCount; i++ )
+      {
+        final int cell = _world.getCellOfType( World.CELL_GOAL_TYPE, i );
+        final double dx = ( cell % columnCount + 0.5D ) * World.CELL_WIDTH - _cars.getX( car );
+        final double dy = ( cell / columnCount + 0.5D ) * World.CELL_HEIGHT - _cars.getY( car );
+        final double distance = dx * dx + dy * dy;
+        if ( distance < leaderDistance )
+        {
+          leader = car;
+          leaderDistance = distance;
+        }
+      }
+    }
+    return leader;
+  }
+
+  /**
+   * Advance the race by a single step.
+   * If a car reaches the goal the race is reset and the winning car is returned.
+   *
+   * @return the car that won the race in this step or {@link #NO_WINNER}.
+   */
+  int tick()
+  {
+    if ( null != _flowField )
+    {
+      assert null != _driver;
+      _flowField.update();
+      _driver.drive( _cars );
+    }
+    final int count = _cars.getCount();
+    for ( int car = 0; car < count; car++ )
+    {
+      _cars.update( car );
+      moveCar( car );
+    }
+    for ( int car = 0; car < count; car++ )
+    {
+      if ( World.CELL_GOAL_TYPE == _world.getCellAtPosition( _cars.getX( car ), _cars.getY( car ) ) )
+      {
+        resetGame();
+        return car;
+      }
+    }
+    carCollisionDetection();
+    return NO_WINNER;
+  }
+
+  /**
+   * Move the car along its heading, stopping at the first wall in its path rather than sampling the cell
+   * that it ends up in, so that fast cars can not pass through walls. A car that hits a wall at an angle
+   * slides along the wall for the rest of the step, while a car that hits a wall head on bounces off it.
+   */
+  private void moveCar( final int car )
+  {
+    final double speed = _cars.getSpeed( car );
+    double x = _cars.getX( car );
+    double y = _cars.getY( car );
+    double dx = _cars.getHeadingX( car ) * speed;
+    double dy = _cars.getHeadingY( car ) * speed;
+    for ( int i = 0; i < MAX_SLIDES && ( 0 != dx || 0 != dy ); i++ )
+    {
+      if ( !_world.sweepBox( x, y, CAR_HALF_SIZE, dx, dy, _sweep ) )
+      {
+        x += dx;
+        y += dy;
+        break;
+      }
+      final double normalX = _sweep.getNormalX();
+      final double normalY = _sweep.getNormalY();
+      final double distance = Math.sqrt( dx * dx + dy * dy );
+      final double travelled = Math.max( 0, _sweep.getTime() - WALL_GAP / distance );
+      x += dx * travelled;
+      y += dy * travelled;
+
+      // The cosine of the angle between the movement and the wall
+      final double impact = -( dx * normalX + dy * normalY ) / distance;
+      if ( 0 == i )
+      {
+        if ( impact > HEAD_ON_IMPACT )
+        {
+          // The bounce saps some energy
+          _cars.setSpeed( car, WALL_BOUNCE * -speed );
+          break;
+        }
+        // Only the part of the movement along the wall is kept
+        _cars.setSpeed( car, speed * Math.sqrt( 1 - impact * impact ) );
+      }
+
+      // Slide along the wall for the remainder of the step by removing the movement into the wall
+      final double remaining = 1 - travelled;
+      dx *= remaining;
+      dy *= remaining;
+      final double into = dx * normalX + dy * normalY;
+      dx -= into * normalX;
+      dy -= into * normalY;
+    }
+    _cars.setX( car, x );
+    _cars.setY( car, y );
+  }
+
+  /**
+   * Push apart any cars that overlap. Each car is only tested against cars in its own and the neighbouring
+   * cells, and each pair is tested once by only testing against cars with a higher index.
+   */
+  private void carCollisionDetection()
+  {
+    _spatialHash.build( _cars );
+    final int columns = _spatialHash.getColumns();
+    final int rows = _spatialHash.getRows();
+    final int count = _cars.getCount();
+    for ( int car = 0; car < count; car++ )
+    {
+      final int cell = _spatialHash.getCarCell( car );
+      if ( SpatialHash.NO_CELL != cell )
+      {
+        final int column = cell % columns;
+        final int row = cell / columns;
+        final int minRow = Math.max( 0, row - 1 );
+        final int maxRow = Math.min( rows - 1, row + 1 );
+        final int minColumn = Math.max( 0, column - 1 );
+        final int maxColumn = Math.min( columns - 1, column + 1 );
+        for ( int r = minRow; r <= maxRow; r++ )
+        {
+          for ( int c = minColumn; c <= maxColumn; c++ )
+          {
+            final int bucket = _spatialHash.findBucket( r * columns + c );
+            if ( SpatialHash.NO_BUCKET != bucket )
+            {
+              final int end = _spatialHash.getBucketEnd( bucket );
+              for ( int i = _spatialHash.getBucketStart( bucket ); i < end; i++ )
+              {
+                final int other = _spatialHash.getCar( i );
+                if ( other > car )
+                {
+                  separateCars( car, other );
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void separateCars( final int car, final int other )
+  {
+    final double dx = _cars.getX( other ) - _cars.getX( car );
+    final double dy = _cars.getY( other ) - _cars.getY( car );
+    final double distanceSquared = dx * dx + dy * dy;
+    if ( distanceSquared < CAR_DIAMETER_SQUARED )
+    {
+      final double distance = Math.sqrt( distanceSquared );
+      // Cars at exactly the same position are pushed apart horizontally
+      final double normalX = 0 == distance ? 1D : dx / distance;
+      final double normalY = 0 == distance ? 0D : dy / distance;
+      final double push = ( 2 * CAR_RADIUS - distance ) / 2D;
+      pushCar( car, -normalX * push, -normalY * push );
+      pushCar( other, normalX * push, normalY * push );
+      _cars.setSpeed( car, _cars.getSpeed( car ) * CAR_BOUNCE );
+      _cars.setSpeed( other, _cars.getSpeed( other ) * CAR_BOUNCE );
+    }
+  }
+
+  /**
+   * Move the car unless doing so would push it into a wall.
+   */
+  private void pushCar( final int car, final double dx, final double dy )
+  {
+    final double x = _cars.getX( car ) + dx;
+    final double y = _cars.getY( car ) + dy;
+    if ( _world.isBoxClear( x, y, CAR_HALF_SIZE ) )
+    {
+      _cars.setX( car, x );
+      _cars.setY( car, y );
+    }
+  }
+
+  private void resetCar( final int car )
+  {
+    _cars.setSpeed( car, 0 );
+    _cars.setAngle( car, Math.PI * 0.5D );
+    // Human controls track the keys that are held so they are kept across a reset
+    if ( _cars.isComputerDriven( car ) )
+    {
+      _cars.setControls( car, 0 );
+    }
+
+    final WorldPosition startCell = _world.getFirstCellMatching( _cars.getStartCellType( car ) );
+    assert null != startCell;
+    _cars.setX( car, startCell.getColumn() * World.CELL_WIDTH + ( World.CELL_WIDTH / 2 ) );
+    _cars.setY( car, startCell.getRow() * World.CELL_HEIGHT + ( World.CELL_HEIGHT / 2 ) );
+  }
+}
@@ -3,18 +3,38 @@ package org.realityforge.arcade.racing;
 import elemental2.dom.CanvasRenderingContext2D;
 import elemental2.dom.DomGlobal;
 import elemental2.dom.HTMLCanvasElement;
-import elemental2.dom.HTMLImageElement;
 import javax.annotation.Nonnull;
 import jsinterop.base.Js;
+import org.realityforge.arcade.render.GlyphAtlas;
+import org.realityforge.arcade.render.RenderCommandBuffer;
+import org.realityforge.arcade.render.RotatedSpriteCache;
+import org.realityforge.arcade.render.Sprite;
 
+/**
+ * Draws to the screen. Images are positioned in world coordinates and drawn relative to the camera, which is
+ * the position in the world of the top left corner of the screen. Rectangles, text and debug overlays are
+ * positioned in screen coordinates.
+ */
 final class Renderer
 {
   private static final int WORLD_WIDTH = 800;
   private static final int WORLD_HEIGHT = 600;
+  private static final String DEBUG_TEXT_COLOR = "yellow";
   @Nonnull
   private final HTMLCanvasElement _canvas;
   @Nonnull
   private final CanvasRenderingContext2D _context;
+  @Nonnull
+  private final RenderCommandBuffer _commands;
+  // Debug overlays are drawn from an atlas so that coordinates are not formatted into strings every frame
+  @Nonnull
+  private final GlyphAtlas _debugText;
+  // The number of images drawn since the counters were last reset
+  private int _imageDrawCalls;
+  // The number of transform and alpha changes made since the counters were last reset
+  private int _imageStateChanges;
+  private double _cameraX;
+  private double _cameraY;
 
   Renderer()
   {
@@ -23,6 +43,8 @@ final class Renderer
     _canvas.width = WORLD_WIDTH;
     DomGlobal.document.documentElement.appendChild( _canvas );
     _context = Js.uncheckedCast( _canvas.getContext( "2d" ) );
+    _commands = new RenderCommandBuffer( _context );
+    _debugText = new GlyphAtlas( DEBUG_TEXT_COLOR );
   }
 
   @Nonnull
@@ -31,28 +53,148 @@ final class Renderer
     return _canvas;
   }
 
-  void drawImageWithRotation( @Nonnull final HTMLImageElement image,
+  int getViewWidth()
+  {
+    return _canvas.width;
+  }
+
+  int getViewHeight()
+  {
+    return _canvas.height;
+  }
+
+  double getCameraX()
+  {
+    return _cameraX;
+  }
+
+  double getCameraY()
+  {
+    return _cameraY;
+  }
+
+  /**
+   * Move the camera so that the top left corner of the screen shows the specified world position.
+   * The position is rounded to whole pixels so that the edges of tiles stay sharp and aligned.
+   */
+  void setCamera( final double x, final double y )
+  {
+    _cameraX = Math.round( x );
+    _cameraY = Math.round( y );
+  }
+
+  /**
+   * Draw any buffered fill commands.
+   * Images are drawn immediately so pending fills are flushed first to preserve the drawing order.
+   */
+  void flush()
+  {
+    _commands.flush();
+  }
+
+  /**
+   * Draw the image centered on the specified point and rotated to face along the heading.
+   * The heading is a unit vector so the rotation is applied as a transform without evaluating trigonometric
+   * functions or saving and restoring the context.
+   */
+  void drawImageWithRotation( @Nonnull final Sprite sprite,
                               final double centerX,
                               final double centerY,
-                              final double angleInRadians )
+                              final double headingX,
+                              final double headingY )
   {
-    // Save the context and push it onto stack
-    // This is presumable rotation matrix and friends although unclear exactly what is included)
-    _context.save();
+    flush();
 
-    _context.translate( centerX, centerY );
-    _context.rotate( angleInRadians );
+    // Rotate by the heading about the origin and then translate the origin to the center of the image
+    _context.setTransform( headingX, headingY, -headingY, headingX, centerX - _cameraX, centerY - _cameraY );
+    _imageStateChanges++;
 
     // X/Y indicate center where drawImage is top left corner
-    _context.drawImage( image, -image.width / 2D, -image.height / 2D );
+    drawSprite( _context, sprite, -sprite.getWidth() / 2D, -sprite.getHeight() / 2D );
+    _imageDrawCalls++;
+
+    // Return to the identity transform
+    _context.setTransform( 1, 0, 0, 1, 0, 0 );
+    _imageStateChanges++;
+  }
 
-    // Pop state to return to transform matrix prior to method call
-    _context.restore();
+  /**
+   * Draw the sprite centered on the specified point and rotated to the angle by copying a pre-rotated sprite
+   * from the cache, which avoids transforming the context. The angle is rounded to the nearest angle cached.
+   */
+  void drawImageWithCachedRotation( @Nonnull final RotatedSpriteCache cache,
+                                    @Nonnull final Sprite sprite,
+                                    final double centerX,
+                                    final double centerY,
+                                    final double angle )
+  {
+    flush();
+    final HTMLCanvasElement rotated = cache.getRotation( sprite, angle );
+    // Whole pixel positions avoid filtering the copy
+    _context.drawImage( rotated,
+                        Math.round( centerX - _cameraX - rotated.width / 2D ),
+                        Math.round( centerY - _cameraY - rotated.height / 2D ) );
+    _imageDrawCalls++;
   }
 
-  void drawImage( @Nonnull final HTMLImageElement image, final double topX, final double topY )
+  /**
+   * Set the opacity of the images drawn after this call, from 0 for transparent to 1 for opaque.
+   */
+  void setImageAlpha( final double alpha )
   {
-    _context.drawImage( image, topX, topY );
+    flush();
+    _context.globalAlpha = alpha;
+    _imageStateChanges++;
+  }
+
+  void drawImage( @Nonnull final Sprite sprite, final double topX, final double topY )
+  {
+    flush();
+    drawSprite( _context, sprite, topX - _cameraX, topY - _cameraY );
+    _imageDrawCalls++;
+  }
+
+  /**
+   * Copy the sprite from its atlas to the context without scaling.
+   */
+  static void drawSprite( @Nonnull final CanvasRenderingContext2D context,
+                          @Nonnull final Sprite sprite,
+                          final double topX,
+                          final double topY )
+  {
+    final int width = sprite.getWidth();
+    final int height = sprite.getHeight();
+    context.drawImage( sprite.getImage(), sprite.getX(), sprite.getY(), width, height, topX, topY, width, height );
+  }
+
+  void drawCanvas( @Nonnull final HTMLCanvasElement canvas, final double topX, final double topY )
+  {
+    flush();
+    _context.drawImage( canvas, topX - _cameraX, topY - _cameraY );
+    _imageDrawCalls++;
+  }
+
+  /**
+   * Return the number of draw calls made against the screen since the counters were last reset.
+   */
+  int getDrawCalls()
+  {
+    return _imageDrawCalls + _commands.getDrawCalls();
+  }
+
+  /**
+   * Return the number of changes made to the state of the screen context since the counters were last reset.
+   */
+  int getStateChanges()
+  {
+    return _imageStateChanges + _commands.getStateChanges();
+  }
+
+  void resetCounters()
+  {
+    _imageDrawCalls = 0;
+    _imageStateChanges = 0;
+    _commands.resetCounters();
   }
 
   @SuppressWarnings( "SameParameterValue" )
@@ -62,8 +204,7 @@ final class Renderer
                  final double height,
                  @Nonnull final String color )
   {
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( color );
-    _context.fillRect( topLeftX, topLeftY, width, height );
+    _commands.fillRect( topLeftX, topLeftY, width, height, color );
   }
 
   @SuppressWarnings( "SameParameterValue" )
@@ -72,7 +213,39 @@ final class Renderer
                  @Nonnull final String text,
                  @Nonnull final String color )
   {
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( color );
-    _context.fillText( text, bottomLeftX, bottomLeftY );
+    _commands.fillText( bottomLeftX, bottomLeftY, text, color );
+  }
+
+  /**
+   * Draw the frame statistics as debug text.
+   */
+  void drawDebugStats( final double bottomLeftX,
+                       final double bottomLeftY,
+                       final double drawCalls,
+                       final double stateChanges,
+                       final double frameTime,
+                       final double peakFrameTime )
+  {
+    flush();
+    double x = _debugText.drawText( _context, bottomLeftX, bottomLeftY, "draws " );
+    x = _debugText.drawDecimal( _context, x, bottomLeftY, drawCalls, 1 );
+    x = _debugText.drawText( _context, x, bottomLeftY, "  states " );
+    x = _debugText.drawDecimal( _context, x, bottomLeftY, stateChanges, 1 );
+    x = _debugText.drawText( _context, x, bottomLeftY, "  frame " );
+    x = _debugText.drawDecimal( _context, x, bottomLeftY, frameTime, 2 );
+    x = _debugText.drawText( _context, x, bottomLeftY, "ms  peak " );
+    x = _debugText.drawDecimal( _context, x, bottomLeftY, peakFrameTime, 2 );
+    _debugText.drawText( _context, x, bottomLeftY, "ms" );
+  }
+
+  /**
+   * Draw a pair of coordinates, separated by a comma, as debug text.
+   */
+  void drawDebugCoordinates( final double bottomLeftX, final double bottomLeftY, final int first, final int second )
+  {
+    flush();
+    double x = _debugText.drawInt( _context, bottomLeftX, bottomLeftY, first );
+    x = _debugText.drawChar( _context, x, bottomLeftY, ',' );
+    _debugText.drawInt( _context, x, bottomLeftY, second );
   }
 }
@@ -0,0 +1,122 @@
+package org.realityforge.arcade.racing;
+
+import elemental2.dom.DomGlobal;
+import java.util.Random;
+import javax.annotation.Nonnull;
+import org.realityforge.arcade.render.RotatedSpriteCache;
+import org.realityforge.arcade.render.Sprite;
+
+/**
+ * Measures how many rotated cars can be drawn in the time available for a frame, both by transforming the
+ * context for each car and by copying pre-rotated cars from the cache, and logs the results to the console.
+ *
+ * <p>The benchmark draws to the screen so it runs in the browser, in place of the game, when Racing is
+ * loaded with ?benchmark=rotation. The time measured is the time taken to issue the draw calls, which is
+ * the time spent on the main thread each frame.</p>
+ */
+final class RotationBenchmark
+{
+  private static final double FRAME_TIME = 1000D / 30D;
+  private static final int INITIAL_SPRITE_COUNT = 64;
+  private static final int MAX_SPRITE_COUNT = 1 << 20;
+  // Each measurement is repeated and the fastest run kept to reduce the noise from garbage collection
+  private static final int RUNS = 5;
+  private static final long SEED = 42;
+  private static final double TURN = Math.PI * 2D;
+  @Nonnull
+  private final Renderer _renderer;
+  @Nonnull
+  private final RotatedSpriteCache _cache;
+  @Nonnull
+  private final Sprite _sprite;
+  @Nonnull
+  private final Random _random = new Random( SEED );
+
+  RotationBenchmark( @Nonnull final Renderer renderer,
+                     @Nonnull final RotatedSpriteCache cache,
+                     @Nonnull final Sprite sprite )
+  {
+    _renderer = renderer;
+    _cache = cache;
+    _sprite = sprite;
+  }
+
+  void run()
+  {
+    // Render every rotation first so that the cached measurement is of copies rather than of filling the cache
+    final int angleCount = _cache.getAngleCount();
+    for ( int i = 0; i < angleCount; i++ )
+    {
+      _cache.getRotation( _sprite, i * TURN / angleCount );
+    }
+    _cache.resetCounters();
+
+    final int transformed = measure( false );
+    final int cached = measure( true );
+    DomGlobal.console.log( "Rotated sprites drawn per " + Math.round( FRAME_TIME ) + "ms frame: " +
+                           transformed + " by transforming the context, " +
+                           cached + " copied from " + angleCount + " cached angles (" +
+                           _cache.getRenderCount() + " rotations rendered while measuring)" );
+  }
+
+  /**
+   * Double the number of sprites drawn until drawing them takes longer than a frame.
+   *
+   * @return the number of sprites that can be drawn in a frame.
+   */
+  private int measure( final boolean cached )
+  {
+    int count = INITIAL_SPRITE_COUNT;
+    while ( true )
+    {
+      final double time = drawSprites( count, cached );
+      if ( time >= FRAME_TIME || count >= MAX_SPRITE_COUNT )
+      {
+        return (int) ( count * FRAME_TIME / time );
+      }
+      count *= 2;
+    }
+  }
+
+  /**
+   * Draw the sprites at random positions and angles.
+   *
+   * @return the fastest time, in milliseconds, taken to draw the sprites.
+   */
+  private double drawSprites( final int count, final boolean cached )
+  {
+    final double[] x = new double[ count ];
+    final double[] y = new double[ count ];
+    final double[] angle = new double[ count ];
+    // Cars cache their heading so the transform path does not evaluate trigonometric functions as it draws
+    final double[] headingX = new double[ count ];
+    final double[] headingY = new double[ count ];
+    for ( int i = 0; i < count; i++ )
+    {
+      x[ i ] = _random.nextDouble() * _renderer.getViewWidth();
+      y[ i ] = _random.nextDouble() * _renderer.getViewHeight();
+      angle[ i ] = _random.nextDouble() * TURN;
+      headingX[ i ] = Math.cos( angle[ i ] );
+      headingY[ i ] = Math.sin( angle[ i ] );
+    }
+    double fastest = Double.MAX_VALUE;
+    for ( int run = 0; run < RUNS; run++ )
+    {
+      final double start = DomGlobal.performance.now();
+      for ( int i = 0; i < count; i++ )
+      {
+        if ( cached )
+        {
+          _renderer.drawImageWithCachedRotation( _cache, _sprite, x[ i ], y[ i ], angle[ i ] );
+        }
+        else
+        {
+          _renderer.drawImageWithRotation( _sprite, x[ i ], y[ i ], headingX[ i ], headingY[ i ] );
+        }
+      }
+      // Ensure that the time is not zero when the clock is coarse
+      fastest = Math.min( fastest, Math.max( 0.001D, DomGlobal.performance.now() - start ) );
+    }
+    return fastest;
+  }
+}
@@ -0,0 +1,201 @@
+package org.realityforge.arcade.racing;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Buckets cars by the world cell that contains them so that a car only needs to be tested against the cars
+ * in its own and neighbouring cells.
+ * Only the cells that contain cars have a bucket. Buckets are kept in an open addressed hash table sized to
+ * the number of cars, so rebuilding the hash every tick costs the same on any size of track. The cars of each
+ * bucket are contiguous in a single array and rebuilding does not allocate once the arrays have grown to the
+ * size of the race.
+ */
+final class SpatialHash
+{
+  // The cell of cars that are outside the world. These cars are not bucketed.
+  static final int NO_CELL = -1;
+  // Returned by findBucket when no car is in the cell
+  static final int NO_BUCKET = -1;
+  private static final int MIN_TABLE_SIZE = 16;
+  private final int _columns;
+  private final int _rows;
+  private final double _cellWidth;
+  private final double _cellHeight;
+  // The cell of each bucket or NO_CELL if the bucket is empty. The table size is a power of two.
+  @Nonnull
+  private int[] _bucketCells = new int[ 0 ];
+  // The shift that reduces a hash to the high bits that index the table
+  private int _hashShift;
+  // The cars of bucket b are at [_bucketStart[b], _bucketEnd[b]) in _bucketCars
+  @Nonnull
+  private int[] _bucketStart = new int[ 0 ];
+  @Nonnull
+  private int[] _bucketEnd = new int[ 0 ];
+  // The buckets filled by the last build, so that only they are cleared by the next build
+  @Nonnull
+  private int[] _usedBuckets = new int[ 0 ];
+  private int _usedBucketCount;
+  @Nonnull
+  private int[] _bucketCars = new int[ 0 ];
+  @Nonnull
+  private int[] _carCells = new int[ 0 ];
+  @Nonnull
+  private int[] _carBuckets = new int[ 0 ];
+
+  SpatialHash( final int columns, final int rows, final double cellWidth, final double cellHeight )
+  {
+    _columns = columns;
+    _rows = rows;
+    _cellWidth = cellWidth;
+    _cellHeight = cellHeight;
+  }
+
+  int getColumns()
+  {
+    return _columns;
+  }
+
+  int getRows()
+  {
+    return _rows;
+  }
+
+  /**
+   * Bucket every car by its current position.
+   */
+  void build( @Nonnull final Cars cars )
+  {
+    final int count = cars.getCount();
+    ensureCapacity( count );
+    for ( int i = 0; i < _usedBucketCount; i++ )
+    {
+      _bucketCells[ _usedBuckets[ i ] ] = NO_CELL;
+    }
+    _usedBucketCount = 0;
+
+    // Count the cars in each bucket, using the end of each bucket as its counter
+    for ( int car = 0; car < count; car++ )
+    {
+      final int cell = toCell( cars.getX( car ), cars.getY( car ) );
+      _carCells[ car ] = cell;
+      if ( NO_CELL != cell )
+      {
+        final int bucket = findSlot( cell );
+        if ( NO_CELL == _bucketCells[ bucket ] )
+        {
+          _bucketCells[ bucket ] = cell;
+          _bucketEnd[ bucket ] = 0;
+          _usedBuckets[ _usedBucketCount++ ] = bucket;
+        }
+        _bucketEnd[ bucket ]++;
+        _carBuckets[ car ] = bucket;
+      }
+    }
+
+    // Allocate a contiguous range to each bucket and then fill the ranges in ascending car order
+    int start = 0;
+    for ( int i = 0; i < _usedBucketCount; i++ )
+    {
+      final int bucket = _usedBuckets[ i ];
+      final int size = _bucketEnd[ bucket ];
+      _bucketStart[ bucket ] = start;
+      _bucketEnd[ bucket ] = start;
+      start += size;
+    }
+    for ( int car = 0; car < count; car++ )
+    {
+      if ( NO_CELL != _carCells[ car ] )
+      {
+        _bucketCars[ _bucketEnd[ _carBuckets[ car ] ]++ ] = car;
+      }
+    }
+  }
+
+  /**
+   * Return the cell that the car was in when the hash was built, or {@link #NO_CELL}.
+   */
+  int getCarCell( final int car )
+  {
+    return _carCells[ car ];
+  }
+
+  /**
+   * Return the bucket containing the cars in the cell, or {@link #NO_BUCKET} if no car is in the cell.
+   */
+  int findBucket( final int cell )
+  {
+    if ( 0 == _usedBucketCount )
+    {
+      return NO_BUCKET;
+    }
+    final int bucket = findSlot( cell );
+    return NO_CELL == _bucketCells[ bucket ] ? NO_BUCKET : bucket;
+  }
+
+  int getBucketStart( final int bucket )
+  {
+    return _bucketStart[ bucket ];
+  }
+
+  int getBucketEnd( final int bucket )
+  {
+    return _bucketEnd[ bucket ];
+  }
+
+  /**
+   * Return the car at the specified position in the bucketed cars.
+   */
+  int getCar( final int position )
+  {
+    return _bucketCars[ position ];
+  }
+
+  /**
+   * Return the bucket that holds the cell, or the empty bucket where it would be inserted.
+   */
+  private int findSlot( final int cell )
+  {
+    final int mask = _bucketCells.length - 1;
+    // Multiplicative hashing spreads neighbouring cells across the table
+    int bucket = ( cell * 0x9E3779B1 ) >>> _hashShift;
+    while ( NO_CELL != _bucketCells[ bucket ] && cell != _bucketCells[ bucket ] )
+    {
+      bucket = ( bucket + 1 ) & mask;
+    }
+    return bucket;
+  }
+
+  private void ensureCapacity( final int count )
+  {
+    if ( _carCells.length < count )
+    {
+      _carCells = new int[ count ];
+      _carBuckets = new int[ count ];
+      _bucketCars = new int[ count ];
+    }
+    // Keep the table at most half full so that probe sequences stay short
+    int tableSize = MIN_TABLE_SIZE;
+    while ( tableSize < count * 2 )
+    {
+      tableSize *= 2;
+    }
+    if ( _bucketCells.length < tableSize )
+    {
+      _bucketCells = new int[ tableSize ];
+      Arrays.fill( _bucketCells, NO_CELL );
+      _bucketStart = new int[ tableSize ];
+      _bucketEnd = new int[ tableSize ];
+      _usedBuckets = new int[ tableSize ];
+      _usedBucketCount = 0;
+      _hashShift = Integer.numberOfLeadingZeros( tableSize ) + 1;
+    }
+  }
+
+  private int toCell( final double x, final double y )
+  {
+    final int column = (int) Math.floor( x / _cellWidth );
+    final int row = (int) Math.floor( y / _cellHeight );
+    return column >= 0 && column < _columns && row >= 0 && row < _rows ? row * _columns + column : NO_CELL;
+  }
+}
@@ -0,0 +1,36 @@
+package org.realityforge.arcade.racing;
+
+/**
+ * The first contact found when sweeping a box through the world.
+ * A single result is reused for every sweep so that moving cars does not allocate.
+ */
+final class SweepResult
+{
+  // The fraction of the movement completed before contact
+  private double _time;
+  // The unit normal of the face of the cell that was hit
+  private double _normalX;
+  private double _normalY;
+
+  double getTime()
+  {
+    return _time;
+  }
+
+  double getNormalX()
+  {
+    return _normalX;
+  }
+
+  double getNormalY()
+  {
+    return _normalY;
+  }
+
+  void set( final double time, final double normalX, final double normalY )
+  {
+    _time = time;
+    _normalX = normalX;
+    _normalY = normalY;
+  }
+}
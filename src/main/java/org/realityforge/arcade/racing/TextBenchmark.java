@@ -0,0 +1,114 @@
+package org.realityforge.arcade.racing;
+
+import elemental2.dom.CanvasRenderingContext2D;
+import elemental2.dom.DomGlobal;
+import java.util.Random;
+import javax.annotation.Nonnull;
+import jsinterop.base.Js;
+import org.realityforge.arcade.render.GlyphAtlas;
+
+/**
+ * Measures how many lines of debug coordinates can be drawn in the time available for a frame, both by
+ * formatting each line into a string and calling fillText and by copying glyphs from a {@link GlyphAtlas},
+ * and logs the results to the console.
+ *
+ * <p>The benchmark draws to the screen so it runs in the browser, in place of the game, when Racing is
+ * loaded with ?benchmark=text. The time measured is the time taken to format and issue the draw calls,
+ * which is the time spent on the main thread each frame.</p>
+ */
+final class TextBenchmark
+{
+  private static final double FRAME_TIME = 1000D / 30D;
+  private static final int INITIAL_LINE_COUNT = 64;
+  private static final int MAX_LINE_COUNT = 1 << 20;
+  // Each measurement is repeated and the fastest run kept to reduce the noise from garbage collection
+  private static final int RUNS = 5;
+  private static final long SEED = 42;
+  private static final String TEXT_COLOR = "yellow";
+  // The largest coordinate drawn, which gives lines of a similar length to the coordinates of a large track
+  private static final int MAX_COORDINATE = 100_000;
+  @Nonnull
+  private final Renderer _renderer;
+  @Nonnull
+  private final CanvasRenderingContext2D _context;
+  @Nonnull
+  private final GlyphAtlas _atlas = new GlyphAtlas( TEXT_COLOR );
+  @Nonnull
+  private final Random _random = new Random( SEED );
+
+  TextBenchmark( @Nonnull final Renderer renderer )
+  {
+    _renderer = renderer;
+    _context = Js.uncheckedCast( renderer.getCanvas().getContext( "2d" ) );
+  }
+
+  void run()
+  {
+    // Draw anything buffered by the renderer so that it is not included in the measurements
+    _renderer.flush();
+    final int filled = measure( false );
+    final int atlas = measure( true );
+    DomGlobal.console.log( "Lines of coordinates drawn per " + Math.round( FRAME_TIME ) + "ms frame: " +
+                           filled + " with fillText, " + atlas + " from a glyph atlas" );
+  }
+
+  /**
+   * Double the number of lines drawn until drawing them takes longer than a frame.
+   *
+   * @return the number of lines that can be drawn in a frame.
+   */
+  private int measure( final boolean useAtlas )
+  {
+    int count = INITIAL_LINE_COUNT;
+    while ( true )
+    {
+      final double time = drawLines( count, useAtlas );
+      if ( time >= FRAME_TIME || count >= MAX_LINE_COUNT )
+      {
+        return (int) ( count * FRAME_TIME / time );
+      }
+      count *= 2;
+    }
+  }
+
+  /**
+   * Draw lines of coordinates at random positions.
+   *
+   * @return the fastest time, in milliseconds, taken to draw the lines.
+   */
+  private double drawLines( final int count, final boolean useAtlas )
+  {
+    final double[] x = new double[ count ];
+    final double[] y = new double[ count ];
+    final int[] first = new int[ count ];
+    final int[] second = new int[ count ];
+    for ( int i = 0; i < count; i++ )
+    {
+      x[ i ] = _random.nextDouble() * _renderer.getViewWidth();
+      y[ i ] = _random.nextDouble() * _renderer.getViewHeight();
+      first[ i ] = _random.nextInt( MAX_COORDINATE );
+      second[ i ] = _random.nextInt( MAX_COORDINATE );
+    }
+    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( TEXT_COLOR );
+    double fastest = Double.MAX_VALUE;
+    for ( int run = 0; run < RUNS; run++ )
+    {
+      final double start = DomGlobal.performance.now();
+      for ( int i = 0; i < count; i++ )
+      {
+        if ( useAtlas )
+        {
+          final double next = _atlas.drawInt( _context, x[ i ], y[ i ], first[ i ] );
+          _atlas.drawInt( _context, _atlas.drawChar( _context, next, y[ i ], ',' ), y[ i ], second[ i ] );
+        }
+        else
+        {
+          _context.fillText( first[ i ] + "," + second[ i ], x[ i ], y[ i ] );
+        }
+      }
+      // Ensure that the time is not zero when the clock is coarse
+      fastest = Math.min( fastest, Math.max( 0.001D, DomGlobal.performance.now() - start ) );
+    }
+    return fastest;
+  }
+}
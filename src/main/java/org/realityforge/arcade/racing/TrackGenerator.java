@@ -0,0 +1,78 @@
+package org.realityforge.arcade.racing;
+
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+/**
+ * Generates square tracks of any size: open road inside a wall, scattered with blocks of wall and trees
+ * and dotted with flags. The players start in the top left corner and the goal is in the bottom right.
+ */
+final class TrackGenerator
+{
+  // The smallest track that leaves room for the start, the goal and the walls around them
+  static final int MIN_SIZE = 12;
+  // The number of cells per block of wall or trees
+  private static final int CELLS_PER_BLOCK = 40;
+  // The fraction of blocks that are trees rather than wall
+  private static final double TREE_BLOCKS = 0.25D;
+  private static final int MAX_BLOCK_SIZE = 4;
+  private static final int CELLS_PER_FLAG = 200;
+  // The distance around the start and goal cells that is kept clear of blocks
+  private static final int CLEAR_DISTANCE = 3;
+
+  private TrackGenerator()
+  {
+  }
+
+  @Nonnull
+  static World generate( final int size, final long seed )
+  {
+    if ( size < MIN_SIZE )
+    {
+      throw new IllegalArgumentException( "Track size " + size + " is less than " + MIN_SIZE );
+    }
+    final Random random = new Random( seed );
+    final World world = new World( size, size, World.CELL_WALL_TYPE );
+    fill( world, 1, 1, size - 2, size - 2, World.CELL_ROAD_TYPE );
+
+    final int blocks = size * size / CELLS_PER_BLOCK;
+    for ( int i = 0; i < blocks; i++ )
+    {
+      final int width = 1 + random.nextInt( MAX_BLOCK_SIZE );
+      final int height = 1 + random.nextInt( MAX_BLOCK_SIZE );
+      final int column = 1 + random.nextInt( size - 1 - width );
+      final int row = 1 + random.nextInt( size - 1 - height );
+      final int type = random.nextDouble() < TREE_BLOCKS ? World.CELL_TREE_TYPE : World.CELL_WALL_TYPE;
+      fill( world, column, row, width, height, type );
+    }
+    final int flags = size * size / CELLS_PER_FLAG;
+    for ( int i = 0; i < flags; i++ )
+    {
+      world.setCell( 1 + random.nextInt( size - 2 ), 1 + random.nextInt( size - 2 ), World.CELL_FLAG_TYPE );
+    }
+
+    final int clearSize = CLEAR_DISTANCE * 2;
+    fill( world, 1, 1, clearSize, clearSize, World.CELL_ROAD_TYPE );
+    fill( world, size - 1 - clearSize, size - 1 - clearSize, clearSize, clearSize, World.CELL_ROAD_TYPE );
+    world.setCell( 2, 2, World.CELL_PLAYER1_START_TYPE );
+    world.setCell( 3, 2, World.CELL_PLAYER2_START_TYPE );
+    fill( world, size - 4, size - 4, 2, 2, World.CELL_GOAL_TYPE );
+    return world;
+  }
+
+  private static void fill( @Nonnull final World world,
+                            final int column,
+                            final int row,
+                            final int width,
+                            final int height,
+                            final int type )
+  {
+    for ( int r = row; r < row + height; r++ )
+    {
+      for ( int c = column; c < column + width; c++ )
+      {
+        world.setCell( c, r, type );
+      }
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package org.realityforge.arcade.racing;
+
+import elemental2.dom.CanvasRenderingContext2D;
+import elemental2.dom.DomGlobal;
+import elemental2.dom.HTMLCanvasElement;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import jsinterop.base.Js;
+import org.realityforge.arcade.render.Sprite;
+
+/**
+ * Offscreen canvases containing the tiles of the track.
+ * The track is split into square chunks of cells and only the chunks that are in view have a canvas, so the
+ * cost of drawing the track depends upon the size of the view rather than the size of the track. Each chunk
+ * is drawn once when it comes into view and each frame copies the chunks rather than drawing every tile.
+ * Chunks that leave the view release their canvas for reuse by chunks that come into view.
+ * Cells that change are invalidated and the resident chunks containing them are redrawn on the next update.
+ */
+final class TrackLayer
+{
+  // The number of cells along each side of a chunk
+  private static final int CHUNK_CELLS = 8;
+  private static final int CHUNK_WIDTH = (int) ( CHUNK_CELLS * World.CELL_WIDTH );
+  private static final int CHUNK_HEIGHT = (int) ( CHUNK_CELLS * World.CELL_HEIGHT );
+  @Nonnull
+  private final World _world;
+  @Nonnull
+  private final Sprite[] _tiles;
+  private final int _chunkColumnCount;
+  private final int _chunkRowCount;
+  // The canvas of each chunk or null if the chunk is not in view
+  @Nonnull
+  private final HTMLCanvasElement[] _chunkCanvases;
+  // The chunks that currently have a canvas
+  @Nonnull
+  private int[] _residentChunks = new int[ 0 ];
+  private int _residentChunkCount;
+  // Resident chunks containing cells that changed since the last update
+  @Nonnull
+  private int[] _dirtyChunks = new int[ 0 ];
+  private int _dirtyChunkCount;
+  // Canvases released by chunks that left the view
+  @Nonnull
+  private HTMLCanvasElement[] _freeCanvases = new HTMLCanvasElement[ 0 ];
+  private int _freeCanvasCount;
+  // The range of chunks in view at the last update
+  private int _minChunkColumn;
+  private int _maxChunkColumn = -1;
+  private int _minChunkRow;
+  private int _maxChunkRow = -1;
+  // The number of drawImage calls made by the last update
+  private int _drawCalls;
+
+  TrackLayer( @Nonnull final World world, @Nonnull final Sprite[] tiles )
+  {
+    _world = world;
+    _tiles = tiles;
+    _chunkColumnCount = ( world.getColumnCount() + CHUNK_CELLS - 1 ) / CHUNK_CELLS;
+    _chunkRowCount = ( world.getRowCount() + CHUNK_CELLS - 1 ) / CHUNK_CELLS;
+    _chunkCanvases = new HTMLCanvasElement[ _chunkColumnCount * _chunkRowCount ];
+  }
+
+  /**
+   * Mark the cell as needing to be redrawn because its type has changed.
+   * Only a chunk that has a canvas needs to be redrawn as other chunks are drawn when they come into view.
+   */
+  void invalidateCell( final int column, final int row )
+  {
+    assert _world.isValidCell( column, row );
+    final int chunk = ( row / CHUNK_CELLS ) * _chunkColumnCount + column / CHUNK_CELLS;
+    if ( null != _chunkCanvases[ chunk ] )
+    {
+      // Cells rarely change so a chunk is only listed once by scanning the short list of dirty chunks
+      for ( int i = 0; i < _dirtyChunkCount; i++ )
+      {
+        if ( chunk == _dirtyChunks[ i ] )
+        {
+          return;
+        }
+      }
+      if ( _dirtyChunkCount == _dirtyChunks.length )
+      {
+        _dirtyChunks = Arrays.copyOf( _dirtyChunks, Math.max( 8, _dirtyChunkCount * 2 ) );
+      }
+      _dirtyChunks[ _dirtyChunkCount++ ] = chunk;
+    }
+  }
+
+  /**
+   * Prepare the chunks that overlap the view, specified in world coordinates, and release the rest.
+   */
+  void update( final double viewX, final double viewY, final double viewWidth, final double viewHeight )
+  {
+    _drawCalls = 0;
+    _minChunkColumn = Math.max( 0, (int) Math.floor( viewX / CHUNK_WIDTH ) );
+    _maxChunkColumn = Math.min( _chunkColumnCount - 1, (int) Math.ceil( ( viewX + viewWidth ) / CHUNK_WIDTH ) - 1 );
+    _minChunkRow = Math.max( 0, (int) Math.floor( viewY / CHUNK_HEIGHT ) );
+    _maxChunkRow = Math.min( _chunkRowCount - 1, (int) Math.ceil( ( viewY + viewHeight ) / CHUNK_HEIGHT ) - 1 );
+
+    // Release chunks that are no longer in view before claiming canvases for chunks coming into view
+    int residentCount = 0;
+    for ( int i = 0; i < _residentChunkCount; i++ )
+    {
+      final int chunk = _residentChunks[ i ];
+      if ( isChunkInView( chunk % _chunkColumnCount, chunk / _chunkColumnCount ) )
+      {
+        _residentChunks[ residentCount++ ] = chunk;
+      }
+      else
+      {
+        releaseCanvas( _chunkCanvases[ chunk ] );
+        _chunkCanvases[ chunk ] = null;
+      }
+    }
+    _residentChunkCount = residentCount;
+
+    // Redraw the chunks with changed cells that are still resident. Released chunks are drawn again when they
+    // next come into view.
+    for ( int i = 0; i < _dirtyChunkCount; i++ )
+    {
+      final int chunk = _dirtyChunks[ i ];
+      if ( null != _chunkCanvases[ chunk ] )
+      {
+        drawChunk( chunk, chunk % _chunkColumnCount, chunk / _chunkColumnCount );
+      }
+    }
+    _dirtyChunkCount = 0;
+
+    for ( int chunkRow = _minChunkRow; chunkRow <= _maxChunkRow; chunkRow++ )
+    {
+      for ( int chunkColumn = _minChunkColumn; chunkColumn <= _maxChunkColumn; chunkColumn++ )
+      {
+        final int chunk = chunkRow * _chunkColumnCount + chunkColumn;
+        if ( null == _chunkCanvases[ chunk ] )
+        {
+          _chunkCanvases[ chunk ] = claimCanvas();
+          addResidentChunk( chunk );
+          drawChunk( chunk, chunkColumn, chunkRow );
+        }
+      }
+    }
+  }
+
+  /**
+   * Draw the chunks in view at the last update.
+   */
+  void draw( @Nonnull final Renderer renderer )
+  {
+    for ( int chunkRow = _minChunkRow; chunkRow <= _maxChunkRow; chunkRow++ )
+    {
+      for ( int chunkColumn = _minChunkColumn; chunkColumn <= _maxChunkColumn; chunkColumn++ )
+      {
+        renderer.drawCanvas( _chunkCanvases[ chunkRow * _chunkColumnCount + chunkColumn ],
+                             chunkColumn * CHUNK_WIDTH,
+                             chunkRow * CHUNK_HEIGHT );
+      }
+    }
+  }
+
+  int getDrawCalls()
+  {
+    return _drawCalls;
+  }
+
+  private boolean isChunkInView( final int chunkColumn, final int chunkRow )
+  {
+    return chunkColumn >= _minChunkColumn &&
+           chunkColumn <= _maxChunkColumn &&
+           chunkRow >= _minChunkRow &&
+           chunkRow <= _maxChunkRow;
+  }
+
+  private void drawChunk( final int chunk, final int chunkColumn, final int chunkRow )
+  {
+    final CanvasRenderingContext2D context = Js.uncheckedCast( _chunkCanvases[ chunk ].getContext( "2d" ) );
+    // Chunks at the edge of the track are only partially covered by cells
+    final int firstColumn = chunkColumn * CHUNK_CELLS;
+    final int firstRow = chunkRow * CHUNK_CELLS;
+    final int endColumn = Math.min( firstColumn + CHUNK_CELLS, _world.getColumnCount() );
+    final int endRow = Math.min( firstRow + CHUNK_CELLS, _world.getRowCount() );
+    if ( endColumn - firstColumn < CHUNK_CELLS || endRow - firstRow < CHUNK_CELLS )
+    {
+      context.clearRect( 0, 0, CHUNK_WIDTH, CHUNK_HEIGHT );
+    }
+    double cellY = 0;
+    for ( int row = firstRow; row < endRow; row++ )
+    {
+      double cellX = 0;
+      for ( int column = firstColumn; column < endColumn; column++ )
+      {
+        Renderer.drawSprite( context, _tiles[ _world.getCell( column, row ) ], cellX, cellY );
+        _drawCalls++;
+        cellX += World.CELL_WIDTH;
+      }
+      cellY += World.CELL_HEIGHT;
+    }
+  }
+
+  private void addResidentChunk( final int chunk )
+  {
+    if ( _residentChunkCount == _residentChunks.length )
+    {
+      _residentChunks = Arrays.copyOf( _residentChunks, Math.max( 8, _residentChunkCount * 2 ) );
+    }
+    _residentChunks[ _residentChunkCount++ ] = chunk;
+  }
+
+  @Nonnull
+  private HTMLCanvasElement claimCanvas()
+  {
+    if ( _freeCanvasCount > 0 )
+    {
+      final HTMLCanvasElement canvas = _freeCanvases[ --_freeCanvasCount ];
+      _freeCanvases[ _freeCanvasCount ] = null;
+      return canvas;
+    }
+    else
+    {
+      final HTMLCanvasElement canvas = (HTMLCanvasElement) DomGlobal.document.createElement( "canvas" );
+      canvas.width = CHUNK_WIDTH;
+      canvas.height = CHUNK_HEIGHT;
+      return canvas;
+    }
+  }
+
+  private void releaseCanvas( @Nonnull final HTMLCanvasElement canvas )
+  {
+    if ( _freeCanvasCount == _freeCanvases.length )
+    {
+      _freeCanvases = Arrays.copyOf( _freeCanvases, Math.max( 8, _freeCanvasCount * 2 ) );
+    }
+    _freeCanvases[ _freeCanvasCount++ ] = canvas;
+  }
+}
@@ -0,0 +1,207 @@
+package org.realityforge.arcade.racing;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * The position and angle of a car at each tick of a race, stored as a compact stream of bytes.
+ * Positions are quantized to fractions of a pixel and angles to fractions of a turn. Each tick stores the
+ * change in velocity from the previous tick, which is usually zero or close to it as cars move smoothly, as
+ * variable length integers. A keyframe containing the absolute values is written at a regular interval so
+ * that a {@link TrajectoryPlayer} can start decoding from near any tick rather than from the start.
+ *
+ * <p>The buffers only grow when the trajectory is longer than any previously recorded into it, so recording
+ * a race does not allocate once the trajectory is as long as a typical race.</p>
+ */
+final class Trajectory
+{
+  // The number of ticks between keyframes
+  static final int KEYFRAME_INTERVAL = 64;
+  // Positions are stored in units of 1/POSITION_SCALE of a pixel
+  static final double POSITION_SCALE = 8D;
+  // Angles are stored in units of 1/ANGLE_STEPS of a turn. This must be a power of two.
+  static final int ANGLE_STEPS = 4096;
+  static final int ANGLE_MASK = ANGLE_STEPS - 1;
+  private static final double TURN = Math.PI * 2D;
+  @Nonnull
+  private byte[] _data;
+  private int _size;
+  // The offset into the data of the keyframe at the start of each interval
+  @Nonnull
+  private int[] _keyframeOffsets;
+  private int _tickCount;
+  // The quantized values of the last recorded tick and the change from the tick before that
+  private int _x;
+  private int _y;
+  private int _angle;
+  private int _deltaX;
+  private int _deltaY;
+  private int _deltaAngle;
+
+  /**
+   * Create a trajectory with space for a race of the specified number of ticks.
+   */
+  Trajectory( final int initialTicks )
+  {
+    // Most ticks encode as a single byte per value
+    _data = new byte[ Math.max( 16, initialTicks * 3 ) ];
+    _keyframeOffsets = new int[ Math.max( 1, initialTicks / KEYFRAME_INTERVAL + 1 ) ];
+  }
+
+  int getTickCount()
+  {
+    return _tickCount;
+  }
+
+  /**
+   * Return the number of bytes used to store the trajectory, including the keyframe index.
+   */
+  int getEncodedSize()
+  {
+    return _size + ( ( _tickCount + KEYFRAME_INTERVAL - 1 ) / KEYFRAME_INTERVAL ) * Integer.BYTES;
+  }
+
+  @Nonnull
+  byte[] getData()
+  {
+    return _data;
+  }
+
+  int getKeyframeOffset( final int keyframe )
+  {
+    return _keyframeOffsets[ keyframe ];
+  }
+
+  /**
+   * Remove every tick so that the trajectory can be recorded again, retaining the buffers.
+   */
+  void clear()
+  {
+    _size = 0;
+    _tickCount = 0;
+  }
+
+  /**
+   * Replace the contents of this trajectory with a copy of the other trajectory.
+   */
+  void copyFrom( @Nonnull final Trajectory other )
+  {
+    if ( _data.length < other._size )
+    {
+      _data = new byte[ other._data.length ];
+    }
+    System.arraycopy( other._data, 0, _data, 0, other._size );
+    final int keyframes = ( other._tickCount + KEYFRAME_INTERVAL - 1 ) / KEYFRAME_INTERVAL;
+    if ( _keyframeOffsets.length < keyframes )
+    {
+      _keyframeOffsets = new int[ other._keyframeOffsets.length ];
+    }
+    System.arraycopy( other._keyframeOffsets, 0, _keyframeOffsets, 0, keyframes );
+    _size = other._size;
+    _tickCount = other._tickCount;
+    _x = other._x;
+    _y = other._y;
+    _angle = other._angle;
+    _deltaX = other._deltaX;
+    _deltaY = other._deltaY;
+    _deltaAngle = other._deltaAngle;
+  }
+
+  /**
+   * Append the position and angle of the car at the next tick.
+   */
+  void record( final double x, final double y, final double angle )
+  {
+    final int quantizedX = quantizePosition( x );
+    final int quantizedY = quantizePosition( y );
+    final int quantizedAngle = quantizeAngle( angle );
+    // A tick needs at most 5 bytes for each value
+    ensureCapacity( _size + 15 );
+    if ( 0 == _tickCount % KEYFRAME_INTERVAL )
+    {
+      final int keyframe = _tickCount / KEYFRAME_INTERVAL;
+      if ( keyframe == _keyframeOffsets.length )
+      {
+        _keyframeOffsets = Arrays.copyOf( _keyframeOffsets, keyframe * 2 );
+      }
+      _keyframeOffsets[ keyframe ] = _size;
+      writeSigned( quantizedX );
+      writeSigned( quantizedY );
+      writeSigned( quantizedAngle );
+      _deltaX = 0;
+      _deltaY = 0;
+      _deltaAngle = 0;
+    }
+    else
+    {
+      final int deltaX = quantizedX - _x;
+      final int deltaY = quantizedY - _y;
+      final int deltaAngle = wrapAngle( quantizedAngle - _angle );
+      writeSigned( deltaX - _deltaX );
+      writeSigned( deltaY - _deltaY );
+      writeSigned( wrapAngle( deltaAngle - _deltaAngle ) );
+      _deltaX = deltaX;
+      _deltaY = deltaY;
+      _deltaAngle = deltaAngle;
+    }
+    _x = quantizedX;
+    _y = quantizedY;
+    _angle = quantizedAngle;
+    _tickCount++;
+  }
+
+  static int quantizePosition( final double position )
+  {
+    return (int) Math.round( position * POSITION_SCALE );
+  }
+
+  static double toPosition( final int quantizedPosition )
+  {
+    return quantizedPosition / POSITION_SCALE;
+  }
+
+  /**
+   * Return the angle as a number of steps in the range [0, ANGLE_STEPS).
+   */
+  static int quantizeAngle( final double angle )
+  {
+    return ( (int) Math.round( angle / TURN * ANGLE_STEPS ) ) & ANGLE_MASK;
+  }
+
+  static double toAngle( final int quantizedAngle )
+  {
+    return quantizedAngle * TURN / ANGLE_STEPS;
+  }
+
+  /**
+   * Return the difference between two angles in steps as the equivalent difference in the range
+   * [-ANGLE_STEPS/2, ANGLE_STEPS/2) so that turning past zero is a small change.
+   */
+  static int wrapAngle( final int angleDifference )
+  {
+    return ( ( angleDifference + ANGLE_STEPS / 2 ) & ANGLE_MASK ) - ANGLE_STEPS / 2;
+  }
+
+  /**
+   * Write the value as a variable length integer, 7 bits per byte, with the sign in the lowest bit so
+   * that small negative values are as short as small positive values.
+   */
+  private void writeSigned( final int value )
+  {
+    int bits = ( value << 1 ) ^ ( value >> 31 );
+    while ( 0 != ( bits & ~0x7F ) )
+    {
+      _data[ _size++ ] = (byte) ( ( bits & 0x7F ) | 0x80 );
+      bits >>>= 7;
+    }
+    _data[ _size++ ] = (byte) bits;
+  }
+
+  private void ensureCapacity( final int size )
+  {
+    if ( size > _data.length )
+    {
+      _data = Arrays.copyOf( _data, Math.max( size, _data.length * 2 ) );
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package org.realityforge.arcade.racing;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the size of recorded trajectories and the cost of decoding them, both when replaying a race
+ * from start to finish and when seeking to random ticks. Trajectories are recorded from computer cars
+ * racing on a generated track so that they contain realistic turns, slides and collisions.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. The number of ticks to record
+ * is passed as an argument and defaults to 20000, for example:</p>
+ *
+ * <pre>java org.realityforge.arcade.racing.TrajectoryBenchmark 20000</pre>
+ */
+final class TrajectoryBenchmark
+{
+  private static final long SEED = 42;
+  private static final int TRACK_SIZE = 100;
+  private static final int CAR_COUNT = 16;
+  private static final int SEEKS = 1_000_000;
+  // The size of a tick stored as the x, y and angle doubles that the simulation uses
+  private static final int RAW_TICK_SIZE = 3 * Double.BYTES;
+
+  private TrajectoryBenchmark()
+  {
+  }
+
+  public static void main( final String[] args )
+  {
+    final int ticks = 0 == args.length ? 20_000 : Integer.parseInt( args[ 0 ] );
+    final RacingSimulation simulation = new RacingSimulation( TrackGenerator.generate( TRACK_SIZE, SEED ) );
+    for ( int i = 0; i < CAR_COUNT; i++ )
+    {
+      simulation.addComputerCar( "Computer " + ( i + 1 ),
+                                 0 == i % 2 ? World.CELL_PLAYER1_START_TYPE : World.CELL_PLAYER2_START_TYPE );
+    }
+
+    // Keep the raw values to measure the error introduced by quantization
+    final Cars cars = simulation.getCars();
+    final double[][] raw = new double[ CAR_COUNT ][ ticks * 3 ];
+    final Trajectory[] trajectories = new Trajectory[ CAR_COUNT ];
+    for ( int car = 0; car < CAR_COUNT; car++ )
+    {
+      trajectories[ car ] = new Trajectory( ticks );
+    }
+    for ( int tick = 0; tick < ticks; tick++ )
+    {
+      for ( int car = 0; car < CAR_COUNT; car++ )
+      {
+        trajectories[ car ].record( cars.getX( car ), cars.getY( car ), cars.getAngle( car ) );
+        raw[ car ][ tick * 3 ] = cars.getX( car );
+        raw[ car ][ tick * 3 + 1 ] = cars.getY( car );
+        raw[ car ][ tick * 3 + 2 ] = cars.getAngle( car );
+      }
+      simulation.tick();
+    }
+
+    long encodedSize = 0;
+    for ( final Trajectory trajectory : trajectories )
+    {
+      encodedSize += trajectory.getEncodedSize();
+    }
+    final long rawSize = (long) CAR_COUNT * ticks * RAW_TICK_SIZE;
+    System.out.printf( Locale.ROOT, "%d cars x %d ticks%n", CAR_COUNT, ticks );
+    System.out.printf( Locale.ROOT, "  raw doubles  %10d bytes (%5.2f bytes/tick)%n",
+                       rawSize, (double) RAW_TICK_SIZE );
+    System.out.printf( Locale.ROOT, "  encoded      %10d bytes (%5.2f bytes/tick, %.1fx smaller)%n",
+                       encodedSize, encodedSize / (double) ( CAR_COUNT * ticks ), rawSize / (double) encodedSize );
+
+    final TrajectoryPlayer[] players = new TrajectoryPlayer[ CAR_COUNT ];
+    double maxPositionError = 0;
+    double maxAngleError = 0;
+    for ( int car = 0; car < CAR_COUNT; car++ )
+    {
+      players[ car ] = new TrajectoryPlayer( trajectories[ car ] );
+      for ( int tick = 0; tick < ticks; tick++ )
+      {
+        players[ car ].seek( tick );
+        maxPositionError = Math.max( maxPositionError, Math.abs( players[ car ].getX() - raw[ car ][ tick * 3 ] ) );
+        maxPositionError =
+          Math.max( maxPositionError, Math.abs( players[ car ].getY() - raw[ car ][ tick * 3 + 1 ] ) );
+        final double angleError = Math.IEEEremainder( players[ car ].getAngle() - raw[ car ][ tick * 3 + 2 ],
+                                                      Math.PI * 2 );
+        maxAngleError = Math.max( maxAngleError, Math.abs( angleError ) );
+      }
+    }
+    System.out.printf( Locale.ROOT, "  max error    %10.4f px, %.5f radians%n", maxPositionError, maxAngleError );
+
+    // Run each measurement twice and report the second so that the first includes compilation
+    double sequentialRate = 0;
+    double seekRate = 0;
+    final SplittableRandom random = new SplittableRandom( SEED );
+    for ( int run = 0; run < 2; run++ )
+    {
+      double checksum = 0;
+      long start = System.nanoTime();
+      for ( int car = 0; car < CAR_COUNT; car++ )
+      {
+        final TrajectoryPlayer player = players[ car ];
+        player.rewind();
+        for ( int tick = 0; tick < ticks; tick++ )
+        {
+          player.seek( tick );
+          checksum += player.getX();
+        }
+      }
+      sequentialRate = (double) CAR_COUNT * ticks / ( ( System.nanoTime() - start ) / 1_000_000_000D );
+
+      start = System.nanoTime();
+      for ( int i = 0; i < SEEKS; i++ )
+      {
+        final TrajectoryPlayer player = players[ i % CAR_COUNT ];
+        player.seek( random.nextInt( ticks ) );
+        checksum += player.getX();
+      }
+      seekRate = SEEKS / ( ( System.nanoTime() - start ) / 1_000_000_000D );
+      consume( checksum );
+    }
+    System.out.printf( Locale.ROOT, "  sequential   %10.1fM ticks/s%n", sequentialRate / 1_000_000D );
+    System.out.printf( Locale.ROOT, "  random seek  %10.1fM seeks/s%n", seekRate / 1_000_000D );
+  }
+
+  private static void consume( final double checksum )
+  {
+    if ( Double.isNaN( checksum ) )
+    {
+      throw new IllegalStateException( "Decoded a position that is not a number" );
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package org.realityforge.arcade.racing;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Decodes the ticks of a trajectory on demand.
+ * Moving forward decodes only the ticks since the last tick requested, while moving backwards or far
+ * forwards starts from the nearest keyframe at or before the requested tick.
+ */
+final class TrajectoryPlayer
+{
+  @Nonnull
+  private final Trajectory _trajectory;
+  // The last tick decoded or -1 if decoding must start from a keyframe
+  private int _tick = -1;
+  // The offset into the data of the next tick
+  private int _offset;
+  private int _x;
+  private int _y;
+  private int _angle;
+  private int _deltaX;
+  private int _deltaY;
+  private int _deltaAngle;
+
+  TrajectoryPlayer( @Nonnull final Trajectory trajectory )
+  {
+    _trajectory = trajectory;
+  }
+
+  /**
+   * Discard the decoding state. This must be invoked when the trajectory is cleared or replaced.
+   */
+  void rewind()
+  {
+    _tick = -1;
+  }
+
+  /**
+   * Decode the position and angle at the specified tick.
+   */
+  void seek( final int tick )
+  {
+    assert tick >= 0 && tick < _trajectory.getTickCount();
+    final int keyframe = tick / Trajectory.KEYFRAME_INTERVAL;
+    if ( tick < _tick || _tick < 0 || keyframe > _tick / Trajectory.KEYFRAME_INTERVAL )
+    {
+      _offset = _trajectory.getKeyframeOffset( keyframe );
+      _tick = keyframe * Trajectory.KEYFRAME_INTERVAL - 1;
+    }
+    final byte[] data = _trajectory.getData();
+    while ( _tick < tick )
+    {
+      _tick++;
+      if ( 0 == _tick % Trajectory.KEYFRAME_INTERVAL )
+      {
+        _x = readSigned( data );
+        _y = readSigned( data );
+        _angle = readSigned( data );
+        _deltaX = 0;
+        _deltaY = 0;
+        _deltaAngle = 0;
+      }
+      else
+      {
+        _deltaX += readSigned( data );
+        _deltaY += readSigned( data );
+        _deltaAngle = Trajectory.wrapAngle( _deltaAngle + readSigned( data ) );
+        _x += _deltaX;
+        _y += _deltaY;
+        _angle = ( _angle + _deltaAngle ) & Trajectory.ANGLE_MASK;
+      }
+    }
+  }
+
+  double getX()
+  {
+    return Trajectory.toPosition( _x );
+  }
+
+  double getY()
+  {
+    return Trajectory.toPosition( _y );
+  }
+
+  double getAngle()
+  {
+    return Trajectory.toAngle( _angle );
+  }
+
+  private int readSigned( @Nonnull final byte[] data )
+  {
+    int bits = 0;
+    int shift = 0;
+    int b;
+    do
+    {
+      b = data[ _offset++ ];
+      bits |= ( b & 0x7F ) << shift;
+      shift += 7;
+    }
+    while ( 0 != ( b & 0x80 ) );
+    return ( bits >>> 1 ) ^ -( bits & 1 );
+  }
+}
@@ -1,20 +1,28 @@
 package org.realityforge.arcade.racing;
 
+import java.util.Arrays;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+/**
+ * The cells of a track.
+ * Cells are stored as bytes in fixed size chunks so that large tracks are compact, and chunks that only
+ * contain the fill type are not allocated. The cells of rare types such as the start, goal and flag cells
+ * are indexed by type so they can be found without scanning the track.
+ */
 final class World
 {
   private static final int CELL_INVALID_TYPE = -1;
-  private static final int CELL_ROAD_TYPE = 0;
-  private static final int CELL_WALL_TYPE = 1;
+  static final int CELL_ROAD_TYPE = 0;
+  static final int CELL_WALL_TYPE = 1;
   static final int CELL_GOAL_TYPE = 2;
-  private static final int CELL_TREE_TYPE = 3;
-  private static final int CELL_FLAG_TYPE = 4;
+  static final int CELL_TREE_TYPE = 3;
+  static final int CELL_FLAG_TYPE = 4;
   static final int CELL_PLAYER1_START_TYPE = 5;
   static final int CELL_PLAYER2_START_TYPE = 6;
   static final int MAX_CELL_TYPE_COUNT = 7;
-  private static final int[] world = new int[]{
+  // The track used when a world is created without specifying the cells
+  private static final int[] DEFAULT_TRACK = new int[]{
     1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1,
     1, 0, 0, 0, 0, 0, 0, 0, 1, 5, 6, 1, 0, 0, 0, 0, 0, 0, 0, 1,
     1, 0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 1,
@@ -31,10 +39,111 @@ final class World
     1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 0, 0, 1,
     1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 0, 0, 1,
     };
-  static final int COLUMN_COUNT = 20;
-  static final int ROW_COUNT = 15;
-  static final double CELL_WIDTH = 800D / COLUMN_COUNT;
+  private static final int DEFAULT_COLUMN_COUNT = 20;
+  private static final int DEFAULT_ROW_COUNT = 15;
+  static final double CELL_WIDTH = 800D / DEFAULT_COLUMN_COUNT;
   static final double CELL_HEIGHT = 40D;
+  // Cells are stored as bytes in square chunks of this many cells along each side
+  private static final int CHUNK_SHIFT = 5;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+  private static final int INITIAL_INDEX_CAPACITY = 4;
+  private final int _columnCount;
+  private final int _rowCount;
+  private final int _chunkColumnCount;
+  // The chunks of each row of chunks in turn. A chunk is null until a cell in it differs from the fill type.
+  @Nonnull
+  private final byte[][] _chunks;
+  private final int _fillType;
+  // The index of every cell of each type that is indexed, in the order that the cells were added
+  @Nonnull
+  private final int[][] _typeCells = new int[ MAX_CELL_TYPE_COUNT ][];
+  @Nonnull
+  private final int[] _typeCellCounts = new int[ MAX_CELL_TYPE_COUNT ];
+
+  World()
+  {
+    this( DEFAULT_COLUMN_COUNT, DEFAULT_ROW_COUNT, DEFAULT_TRACK );
+  }
+
+  /**
+   * Create a world where every cell has the fill type.
+   * The fill type must not be one of the indexed types as every cell would need to be indexed.
+   */
+  World( final int columnCount, final int rowCount, final int fillType )
+  {
+    if ( isIndexedType( fillType ) )
+    {
+      throw new IllegalArgumentException( "Fill type " + fillType + " is an indexed type" );
+    }
+    _columnCount = columnCount;
+    _rowCount = rowCount;
+    _chunkColumnCount = ( columnCount + CHUNK_MASK ) >> CHUNK_SHIFT;
+    _chunks = new byte[ _chunkColumnCount * ( ( rowCount + CHUNK_MASK ) >> CHUNK_SHIFT ) ][];
+    _fillType = fillType;
+    for ( int type = 0; type < MAX_CELL_TYPE_COUNT; type++ )
+    {
+      if ( isIndexedType( type ) )
+      {
+        _typeCells[ type ] = new int[ INITIAL_INDEX_CAPACITY ];
+      }
+    }
+  }
+
+  /**
+   * Create a world from the cell types of each row in turn.
+   */
+  World( final int columnCount, final int rowCount, @Nonnull final int[] cells )
+  {
+    this( columnCount, rowCount, CELL_WALL_TYPE );
+    if ( cells.length != columnCount * rowCount )
+    {
+      throw new IllegalArgumentException( "Expected " + ( columnCount * rowCount ) + " cells but got " +
+                                          cells.length );
+    }
+    // Cells are added column by column so that the first indexed cell of a type is the first found by
+    // scanning the columns in turn, as the start cells have always been chosen
+    for ( int column = 0; column < columnCount; column++ )
+    {
+      for ( int row = 0; row < rowCount; row++ )
+      {
+        setCell( column, row, cells[ row * columnCount + column ] );
+      }
+    }
+  }
+
+  int getColumnCount()
+  {
+    return _columnCount;
+  }
+
+  int getRowCount()
+  {
+    return _rowCount;
+  }
+
+  int getCellCount()
+  {
+    return _columnCount * _rowCount;
+  }
+
+  /**
+   * Return the number of cells of the type. Only the goal, flag and start types are indexed and can be counted.
+   */
+  int getCellCountOfType( final int type )
+  {
+    assert isIndexedType( type );
+    return _typeCellCounts[ type ];
+  }
+
+  /**
+   * Return the index of a cell of the type, where the position is less than {@link #getCellCountOfType(int)}.
+   */
+  int getCellOfType( final int type, final int position )
+  {
+    assert position >= 0 && position < _typeCellCounts[ type ];
+    return _typeCells[ type ][ position ];
+  }
 
   @Nullable
   WorldPosition toPosition( final double x, final double y )
@@ -46,18 +155,111 @@ final class World
 
   int getCell( final int column, final int row )
   {
-    return getCellAtIndex( cellIndex( column, row ) );
+    final byte[] chunk = _chunks[ chunkIndex( column, row ) ];
+    return null == chunk ? _fillType : chunk[ chunkOffset( column, row ) ];
   }
 
+  /**
+   * Return the type of the cell with the index, where cells are numbered along each row in turn.
+   */
   int getCellAtIndex( final int index )
   {
-    return world[ index ];
+    return getCell( index % _columnCount, index / _columnCount );
+  }
+
+  /**
+   * Change the type of a cell. Layers and flow fields derived from the world must be invalidated by the caller,
+   * as {@link RacingSimulation#setCell(int, int, int)} and {@link TrackLayer#invalidateCell(int, int)} do.
+   */
+  void setCell( final int column, final int row, final int type )
+  {
+    assert isValidCell( column, row );
+    assert type >= 0 && type < MAX_CELL_TYPE_COUNT;
+    final int previousType = getCell( column, row );
+    if ( previousType != type )
+    {
+      final int chunkIndex = chunkIndex( column, row );
+      byte[] chunk = _chunks[ chunkIndex ];
+      if ( null == chunk )
+      {
+        chunk = new byte[ CHUNK_SIZE * CHUNK_SIZE ];
+        Arrays.fill( chunk, (byte) _fillType );
+        _chunks[ chunkIndex ] = chunk;
+      }
+      chunk[ chunkOffset( column, row ) ] = (byte) type;
+      final int cell = cellIndex( column, row );
+      if ( isIndexedType( previousType ) )
+      {
+        removeFromIndex( previousType, cell );
+      }
+      if ( isIndexedType( type ) )
+      {
+        addToIndex( type, cell );
+      }
+    }
+  }
+
+  /**
+   * Return the number of bytes used to store the cells, excluding the index of cell types.
+   */
+  long getCellStorageSize()
+  {
+    long size = 0;
+    for ( final byte[] chunk : _chunks )
+    {
+      if ( null != chunk )
+      {
+        size += chunk.length;
+      }
+    }
+    return size;
+  }
+
+  private void addToIndex( final int type, final int cell )
+  {
+    int[] cells = _typeCells[ type ];
+    final int count = _typeCellCounts[ type ];
+    if ( count == cells.length )
+    {
+      cells = Arrays.copyOf( cells, count * 2 );
+      _typeCells[ type ] = cells;
+    }
+    cells[ count ] = cell;
+    _typeCellCounts[ type ] = count + 1;
   }
 
-  int getCell( @Nonnull final Body body )
+  private void removeFromIndex( final int type, final int cell )
   {
-    final int column = toCellColumn( body.getX() );
-    final int row = toCellRow( body.getY() );
+    final int[] cells = _typeCells[ type ];
+    final int count = _typeCellCounts[ type ];
+    for ( int i = 0; i < count; i++ )
+    {
+      if ( cell == cells[ i ] )
+      {
+        // Shift rather than swap with the last cell so that the remaining cells keep their order
+        System.arraycopy( cells, i + 1, cells, i, count - i - 1 );
+        _typeCellCounts[ type ] = count - 1;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Return true for the types that are rare enough that they can be indexed and that are looked up by type.
+   * Scenery such as trees can cover large parts of a track so it is not indexed.
+   */
+  private static boolean isIndexedType( final int type )
+  {
+    return CELL_GOAL_TYPE == type ||
+           CELL_FLAG_TYPE == type ||
+           CELL_PLAYER1_START_TYPE == type ||
+           CELL_PLAYER2_START_TYPE == type;
+  }
+
+  int getCellAtPosition( final double x, final double y )
+  {
+    final int column = toCellColumn( x );
+    final int row = toCellRow( y );
     return isValidCell( column, row ) ? getCell( column, row ) : CELL_INVALID_TYPE;
   }
 
@@ -66,12 +268,183 @@ final class World
     return !( CELL_ROAD_TYPE == flag || CELL_PLAYER1_START_TYPE == flag || CELL_PLAYER2_START_TYPE == flag );
   }
 
+  /**
+   * Return true if a car is stopped by the cell. Cars drive into goal cells and the area outside the world
+   * stops cars like a wall.
+   */
+  boolean isBlocking( final int column, final int row )
+  {
+    if ( !isValidCell( column, row ) )
+    {
+      return true;
+    }
+    final int type = getCell( column, row );
+    return CELL_GOAL_TYPE != type && isSolid( type );
+  }
+
+  /**
+   * Return true if a square of the specified half size centered on the position does not overlap any cell
+   * that blocks cars.
+   */
+  boolean isBoxClear( final double x, final double y, final double halfSize )
+  {
+    final int maxColumn = toCellColumn( x + halfSize );
+    final int maxRow = toCellRow( y + halfSize );
+    for ( int row = toCellRow( y - halfSize ); row <= maxRow; row++ )
+    {
+      for ( int column = toCellColumn( x - halfSize ); column <= maxColumn; column++ )
+      {
+        if ( isBlocking( column, row ) )
+        {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sweep a square of the specified half size centered on the position through the world and find the
+   * first cell that blocks the movement. Every cell that the swept square could touch is tested so a fast
+   * moving square can not pass through a thin wall.
+   *
+   * <p>Cells that the square already overlaps are ignored so that a square pushed into a wall can escape.
+   * Faces shared with a neighbouring blocking cell are also ignored as the square must hit the neighbour
+   * first, which stops a square sliding along a wall from catching on the seams between cells. This does not
+   * apply when the square already overlaps the neighbour, as the neighbour is ignored and a square that
+   * starts inside a wall would otherwise pass through the rest of the wall.</p>
+   *
+   * @return true if the movement is blocked, in which case the result describes the first contact.
+   */
+  boolean sweepBox( final double x,
+                    final double y,
+                    final double halfSize,
+                    final double dx,
+                    final double dy,
+                    @Nonnull final SweepResult result )
+  {
+    final int minColumn = toCellColumn( Math.min( x, x + dx ) - halfSize );
+    final int maxColumn = toCellColumn( Math.max( x, x + dx ) + halfSize );
+    final int minRow = toCellRow( Math.min( y, y + dy ) - halfSize );
+    final int maxRow = toCellRow( Math.max( y, y + dy ) + halfSize );
+    double firstTime = Double.POSITIVE_INFINITY;
+    double normalX = 0;
+    double normalY = 0;
+    for ( int row = minRow; row <= maxRow; row++ )
+    {
+      // The cell expanded by the half size of the square, so that the square can be treated as a point
+      final double top = row * CELL_HEIGHT - halfSize;
+      final double bottom = ( row + 1 ) * CELL_HEIGHT + halfSize;
+      for ( int column = minColumn; column <= maxColumn; column++ )
+      {
+        final double left = column * CELL_WIDTH - halfSize;
+        final double right = ( column + 1 ) * CELL_WIDTH + halfSize;
+        if ( isBlocking( column, row ) && !overlapsCell( x, y, halfSize, column, row ) )
+        {
+          double entryX = Double.NEGATIVE_INFINITY;
+          double exitX = Double.POSITIVE_INFINITY;
+          if ( 0 != dx )
+          {
+            entryX = ( ( dx > 0 ? left : right ) - x ) / dx;
+            exitX = ( ( dx > 0 ? right : left ) - x ) / dx;
+          }
+          else if ( x <= left || x >= right )
+          {
+            continue;
+          }
+          double entryY = Double.NEGATIVE_INFINITY;
+          double exitY = Double.POSITIVE_INFINITY;
+          if ( 0 != dy )
+          {
+            entryY = ( ( dy > 0 ? top : bottom ) - y ) / dy;
+            exitY = ( ( dy > 0 ? bottom : top ) - y ) / dy;
+          }
+          else if ( y <= top || y >= bottom )
+          {
+            continue;
+          }
+          final double entry = Math.max( entryX, entryY );
+          if ( entry >= 0 && entry <= 1 && entry < Math.min( exitX, exitY ) && entry < firstTime )
+          {
+            if ( entryX > entryY )
+            {
+              if ( !isSharedFace( x, y, halfSize, dx > 0 ? column - 1 : column + 1, row ) )
+              {
+                firstTime = entry;
+                normalX = dx > 0 ? -1 : 1;
+                normalY = 0;
+              }
+            }
+            else if ( !isSharedFace( x, y, halfSize, column, dy > 0 ? row - 1 : row + 1 ) )
+            {
+              firstTime = entry;
+              normalX = 0;
+              normalY = dy > 0 ? -1 : 1;
+            }
+          }
+        }
+      }
+    }
+    if ( Double.POSITIVE_INFINITY == firstTime )
+    {
+      return false;
+    }
+    else
+    {
+      result.set( firstTime, normalX, normalY );
+      return true;
+    }
+  }
+
+  /**
+   * Return true if the face of a cell that is next to the neighbouring cell is hidden by the neighbour, in which
+   * case a square centered on the position will hit the neighbour before the face.
+   */
+  private boolean isSharedFace( final double x,
+                                final double y,
+                                final double halfSize,
+                                final int neighbourColumn,
+                                final int neighbourRow )
+  {
+    return isBlocking( neighbourColumn, neighbourRow ) &&
+           !overlapsCell( x, y, halfSize, neighbourColumn, neighbourRow );
+  }
+
+  /**
+   * Return true if a square of the specified half size centered on the position overlaps the cell.
+   * Touching the edge of the cell is not an overlap.
+   */
+  private boolean overlapsCell( final double x,
+                                final double y,
+                                final double halfSize,
+                                final int column,
+                                final int row )
+  {
+    return x > column * CELL_WIDTH - halfSize &&
+           x < ( column + 1 ) * CELL_WIDTH + halfSize &&
+           y > row * CELL_HEIGHT - halfSize &&
+           y < ( row + 1 ) * CELL_HEIGHT + halfSize;
+  }
+
+  /**
+   * Return the first cell of the type.
+   * Indexed types return the first cell in the index so this is a constant time lookup.
+   */
   @Nullable
   WorldPosition getFirstCellMatching( final int type )
   {
-    for ( int i = 0; i < COLUMN_COUNT; i++ )
+    if ( type >= 0 && type < MAX_CELL_TYPE_COUNT && isIndexedType( type ) )
+    {
+      if ( 0 == _typeCellCounts[ type ] )
+      {
+        return null;
+      }
+      final int cell = _typeCells[ type ][ 0 ];
+      return new WorldPosition( cell % _columnCount, cell / _columnCount );
+    }
+    for ( int i = 0; i < _columnCount; i++ )
     {
-      for ( int j = 0; j < ROW_COUNT; j++ )
+      for ( int j = 0; j < _rowCount; j++ )
       {
         if ( type == getCell( i, j ) )
         {
@@ -84,7 +457,7 @@ final class World
 
   boolean isValidCell( final double column, final double row )
   {
-    return column >= 0 && column < COLUMN_COUNT && row >= 0 && row < ROW_COUNT;
+    return column >= 0 && column < _columnCount && row >= 0 && row < _rowCount;
   }
 
   int toCellRow( final double mouseY )
@@ -99,6 +472,16 @@ final class World
 
   private int cellIndex( final int column, final int row )
   {
-    return row * COLUMN_COUNT + column;
+    return row * _columnCount + column;
+  }
+
+  private int chunkIndex( final int column, final int row )
+  {
+    return ( row >> CHUNK_SHIFT ) * _chunkColumnCount + ( column >> CHUNK_SHIFT );
+  }
+
+  private int chunkOffset( final int column, final int row )
+  {
+    return ( ( row & CHUNK_MASK ) << CHUNK_SHIFT ) | ( column & CHUNK_MASK );
   }
 }
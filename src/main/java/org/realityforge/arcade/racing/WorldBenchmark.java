@@ -0,0 +1,166 @@
+package org.realityforge.arcade.racing;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import javax.annotation.Nonnull;
+
+/**
+ * Compares the memory used by, and the cost of looking up cells in, a world against the layout that
+ * worlds previously used, a single int per cell that was scanned column by column to find a cell type.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. The track sizes, in cells
+ * along each side, are passed as arguments and default to 200, 1000 and 2000, for example:</p>
+ *
+ * <pre>java org.realityforge.arcade.racing.WorldBenchmark 200 1000 2000</pre>
+ *
+ * <p>Generated tracks are a band of road around the edge of a walled area, as large tracks are mostly
+ * scenery, with the start cells placed at the far end of the scan order.</p>
+ */
+final class WorldBenchmark
+{
+  private static final long SEED = 42;
+  // The width, in cells, of the road that runs around the track
+  private static final int ROAD_WIDTH = 8;
+  private static final int CELL_LOOKUPS = 20_000_000;
+  private static final int TYPE_LOOKUPS = 100;
+
+  private WorldBenchmark()
+  {
+  }
+
+  public static void main( final String[] args )
+  {
+    final int[] sizes = 0 == args.length ? new int[]{ 200, 1000, 2000 } : new int[ args.length ];
+    for ( int i = 0; i < args.length; i++ )
+    {
+      sizes[ i ] = Integer.parseInt( args[ i ] );
+    }
+    for ( final int size : sizes )
+    {
+      run( size );
+    }
+  }
+
+  private static void run( final int size )
+  {
+    final int[] cells = generateTrack( size );
+    final FlatWorld flatWorld = new FlatWorld( size, size, cells );
+    final World world = new World( size, size, cells );
+
+    final SplittableRandom random = new SplittableRandom( SEED );
+    final int[] columns = new int[ 1024 ];
+    final int[] rows = new int[ columns.length ];
+    for ( int i = 0; i < columns.length; i++ )
+    {
+      columns[ i ] = random.nextInt( size );
+      rows[ i ] = random.nextInt( size );
+    }
+
+    System.out.printf( Locale.ROOT, "%dx%d track%n", size, size );
+    System.out.printf( Locale.ROOT, "  cell storage:      int[] %10d bytes  chunked %10d bytes%n",
+                       (long) cells.length * Integer.BYTES, world.getCellStorageSize() );
+
+    // Run each measurement twice and report the second so that the first includes compilation
+    double flatRate = 0;
+    double chunkedRate = 0;
+    for ( int run = 0; run < 2; run++ )
+    {
+      long start = System.nanoTime();
+      long checksum = 0;
+      for ( int i = 0; i < CELL_LOOKUPS; i++ )
+      {
+        checksum += flatWorld.getCell( columns[ i & 1023 ], rows[ i & 1023 ] );
+      }
+      flatRate = CELL_LOOKUPS / ( ( System.nanoTime() - start ) / 1_000_000_000D );
+      start = System.nanoTime();
+      for ( int i = 0; i < CELL_LOOKUPS; i++ )
+      {
+        checksum -= world.getCell( columns[ i & 1023 ], rows[ i & 1023 ] );
+      }
+      chunkedRate = CELL_LOOKUPS / ( ( System.nanoTime() - start ) / 1_000_000_000D );
+      if ( 0 != checksum )
+      {
+        throw new IllegalStateException( "Layouts disagree on the cells of the track" );
+      }
+    }
+    System.out.printf( Locale.ROOT, "  random cell:       int[] %10.1fM/s      chunked %10.1fM/s%n",
+                       flatRate / 1_000_000D, chunkedRate / 1_000_000D );
+
+    double flatMicros = 0;
+    double indexedMicros = 0;
+    for ( int run = 0; run < 2; run++ )
+    {
+      long start = System.nanoTime();
+      for ( int i = 0; i < TYPE_LOOKUPS; i++ )
+      {
+        flatWorld.getFirstCellMatching( 0 == i % 2 ? World.CELL_PLAYER1_START_TYPE : World.CELL_GOAL_TYPE );
+      }
+      flatMicros = ( System.nanoTime() - start ) / 1_000D / TYPE_LOOKUPS;
+      start = System.nanoTime();
+      for ( int i = 0; i < TYPE_LOOKUPS; i++ )
+      {
+        world.getFirstCellMatching( 0 == i % 2 ? World.CELL_PLAYER1_START_TYPE : World.CELL_GOAL_TYPE );
+      }
+      indexedMicros = ( System.nanoTime() - start ) / 1_000D / TYPE_LOOKUPS;
+    }
+    System.out.printf( Locale.ROOT, "  first cell of type: scan %10.3f us        index %10.3f us%n",
+                       flatMicros, indexedMicros );
+  }
+
+  @Nonnull
+  private static int[] generateTrack( final int size )
+  {
+    final int[] cells = new int[ size * size ];
+    for ( int row = 0; row < size; row++ )
+    {
+      for ( int column = 0; column < size; column++ )
+      {
+        final int distanceToEdge = Math.min( Math.min( row, column ), Math.min( size - 1 - row, size - 1 - column ) );
+        cells[ row * size + column ] =
+          distanceToEdge >= 1 && distanceToEdge <= ROAD_WIDTH ? World.CELL_ROAD_TYPE : World.CELL_WALL_TYPE;
+      }
+    }
+    // The scan visits each column in turn so the start and goal cells in the last column are found last
+    cells[ ( size - 3 ) * size + size - 2 ] = World.CELL_PLAYER1_START_TYPE;
+    cells[ ( size - 2 ) * size + size - 2 ] = World.CELL_GOAL_TYPE;
+    return cells;
+  }
+
+  /**
+   * The layout that worlds used before cells were chunked and indexed.
+   */
+  private static final class FlatWorld
+  {
+    private final int _columnCount;
+    private final int _rowCount;
+    @Nonnull
+    private final int[] _cells;
+
+    FlatWorld( final int columnCount, final int rowCount, @Nonnull final int[] cells )
+    {
+      _columnCount = columnCount;
+      _rowCount = rowCount;
+      _cells = cells;
+    }
+
+    int getCell( final int column, final int row )
+    {
+      return _cells[ row * _columnCount + column ];
+    }
+
+    int getFirstCellMatching( final int type )
+    {
+      for ( int i = 0; i < _columnCount; i++ )
+      {
+        for ( int j = 0; j < _rowCount; j++ )
+        {
+          if ( type == getCell( i, j ) )
+          {
+            return j * _columnCount + i;
+          }
+        }
+      }
+      return -1;
+    }
+  }
+}
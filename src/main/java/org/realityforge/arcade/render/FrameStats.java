@@ -0,0 +1,93 @@
+package org.realityforge.arcade.render;
+
+import elemental2.dom.DomGlobal;
+
+/**
+ * Measures the time spent producing frames and the number of draw calls and context state changes they make.
+ * Samples are averaged over a fixed window of frames so the reported values are stable enough to read.
+ */
+public final class FrameStats
+{
+  private static final int DEFAULT_WINDOW_SIZE = 60;
+  private final int _windowSize;
+  private double _frameStart;
+  private int _sampleCount;
+  private double _totalFrameTime;
+  private double _maxFrameTime;
+  private long _totalDrawCalls;
+  private long _totalStateChanges;
+  // The values reported for the last complete window
+  private double _averageFrameTime;
+  private double _peakFrameTime;
+  private double _averageDrawCalls;
+  private double _averageStateChanges;
+
+  public FrameStats()
+  {
+    this( DEFAULT_WINDOW_SIZE );
+  }
+
+  public FrameStats( final int windowSize )
+  {
+    assert windowSize > 0;
+    _windowSize = windowSize;
+  }
+
+  public void beginFrame()
+  {
+    _frameStart = DomGlobal.performance.now();
+  }
+
+  /**
+   * Complete the frame started by the last call to {@link #beginFrame()}.
+   *
+   * @param drawCalls the number of draw calls made while producing the frame.
+   * @param stateChanges the number of context state changes made while producing the frame.
+   */
+  public void endFrame( final int drawCalls, final int stateChanges )
+  {
+    final double frameTime = DomGlobal.performance.now() - _frameStart;
+    _totalFrameTime += frameTime;
+    _maxFrameTime = Math.max( _maxFrameTime, frameTime );
+    _totalDrawCalls += drawCalls;
+    _totalStateChanges += stateChanges;
+    if ( ++_sampleCount == _windowSize )
+    {
+      _averageFrameTime = _totalFrameTime / _sampleCount;
+      _peakFrameTime = _maxFrameTime;
+      _averageDrawCalls = _totalDrawCalls / (double) _sampleCount;
+      _averageStateChanges = _totalStateChanges / (double) _sampleCount;
+      _sampleCount = 0;
+      _totalFrameTime = 0;
+      _maxFrameTime = 0;
+      _totalDrawCalls = 0;
+      _totalStateChanges = 0;
+    }
+  }
+
+  /**
+   * Return the average time in milliseconds taken to produce a frame.
+   */
+  public double getAverageFrameTime()
+  {
+    return _averageFrameTime;
+  }
+
+  /**
+   * Return the longest time in milliseconds taken to produce a frame.
+   */
+  public double getPeakFrameTime()
+  {
+    return _peakFrameTime;
+  }
+
+  public double getAverageDrawCalls()
+  {
+    return _averageDrawCalls;
+  }
+
+  public double getAverageStateChanges()
+  {
+    return _averageStateChanges;
+  }
+}
@@ -0,0 +1,215 @@
+package org.realityforge.arcade.render;
+
+import elemental2.dom.CanvasRenderingContext2D;
+import elemental2.dom.DomGlobal;
+import elemental2.dom.HTMLCanvasElement;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import jsinterop.base.Js;
+
+/**
+ * The printable ASCII characters of a font rendered once into an offscreen canvas so that text can be drawn
+ * by copying glyphs rather than calling fillText every frame. Numbers are drawn digit by digit so drawing a
+ * score or a coordinate does not allocate a string.
+ *
+ * <p>Glyphs are blitted directly to the context so callers that also record into a {@link RenderCommandBuffer}
+ * must flush the buffer before drawing text that should appear above the recorded commands.</p>
+ */
+public final class GlyphAtlas
+{
+  // The default font of a canvas context
+  public static final int DEFAULT_FONT_SIZE = 10;
+  @Nonnull
+  public static final String DEFAULT_FONT_FAMILY = "sans-serif";
+  private static final char FIRST_CHAR = ' ';
+  private static final char LAST_CHAR = '~';
+  private static final int GLYPH_COUNT = LAST_CHAR - FIRST_CHAR + 1;
+  // Space left between glyphs so that anti-aliased edges do not bleed into neighbouring glyphs
+  private static final int GLYPH_PADDING = 2;
+  @Nonnull
+  private final HTMLCanvasElement _canvas;
+  // The position of each glyph in the atlas
+  @Nonnull
+  private final int[] _glyphX = new int[ GLYPH_COUNT ];
+  @Nonnull
+  private final int[] _glyphWidth = new int[ GLYPH_COUNT ];
+  // The distance the pen moves after each glyph, as reported by the font
+  @Nonnull
+  private final double[] _advance = new double[ GLYPH_COUNT ];
+  private final int _glyphHeight;
+  // The distance from the top of a glyph cell to the baseline
+  private final int _baseline;
+  // Scratch space for the digits of a number, most significant digit last
+  @Nonnull
+  private final char[] _digits = new char[ 11 ];
+
+  public GlyphAtlas( @Nonnull final String color )
+  {
+    this( DEFAULT_FONT_SIZE, DEFAULT_FONT_FAMILY, color );
+  }
+
+  public GlyphAtlas( final int fontSize, @Nonnull final String fontFamily, @Nonnull final String color )
+  {
+    final String font = fontSize + "px " + Objects.requireNonNull( fontFamily );
+    // Leave room for ascenders and descenders. Fonts rarely extend past these proportions of their size.
+    _baseline = (int) Math.ceil( fontSize * 1.2D );
+    _glyphHeight = _baseline + (int) Math.ceil( fontSize * 0.4D );
+
+    _canvas = (HTMLCanvasElement) DomGlobal.document.createElement( "canvas" );
+    CanvasRenderingContext2D context = Js.uncheckedCast( _canvas.getContext( "2d" ) );
+    context.font = font;
+    int x = 0;
+    for ( int i = 0; i < GLYPH_COUNT; i++ )
+    {
+      final double advance = context.measureText( String.valueOf( (char) ( FIRST_CHAR + i ) ) ).width;
+      _advance[ i ] = advance;
+      _glyphX[ i ] = x;
+      // Italic and overhanging glyphs can extend a little past their advance
+      _glyphWidth[ i ] = (int) Math.ceil( advance ) + GLYPH_PADDING;
+      x += _glyphWidth[ i ] + GLYPH_PADDING;
+    }
+
+    // Resizing the canvas resets the state of the context
+    _canvas.width = x;
+    _canvas.height = _glyphHeight;
+    context = Js.uncheckedCast( _canvas.getContext( "2d" ) );
+    context.font = font;
+    context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( Objects.requireNonNull( color ) );
+    for ( int i = 0; i < GLYPH_COUNT; i++ )
+    {
+      context.fillText( String.valueOf( (char) ( FIRST_CHAR + i ) ), _glyphX[ i ], _baseline );
+    }
+  }
+
+  /**
+   * Draw the text with the start of its baseline at the specified position.
+   * Characters that are not in the atlas are drawn as spaces.
+   *
+   * @return the x coordinate at which following text should be drawn.
+   */
+  public double drawText( @Nonnull final CanvasRenderingContext2D context,
+                          final double bottomLeftX,
+                          final double bottomLeftY,
+                          @Nonnull final String text )
+  {
+    double x = bottomLeftX;
+    final int length = text.length();
+    for ( int i = 0; i < length; i++ )
+    {
+      x = drawChar( context, x, bottomLeftY, text.charAt( i ) );
+    }
+    return x;
+  }
+
+  /**
+   * Draw the decimal representation of the value without allocating a string.
+   *
+   * @return the x coordinate at which following text should be drawn.
+   */
+  public double drawInt( @Nonnull final CanvasRenderingContext2D context,
+                         final double bottomLeftX,
+                         final double bottomLeftY,
+                         final int value )
+  {
+    double x = bottomLeftX;
+    // Work with the negative value as the magnitude of Integer.MIN_VALUE is not representable
+    int remaining = value > 0 ? -value : value;
+    int digitCount = 0;
+    do
+    {
+      _digits[ digitCount++ ] = (char) ( '0' - remaining % 10 );
+      remaining /= 10;
+    }
+    while ( 0 != remaining );
+
+    if ( value < 0 )
+    {
+      x = drawChar( context, x, bottomLeftY, '-' );
+    }
+    while ( digitCount > 0 )
+    {
+      x = drawChar( context, x, bottomLeftY, _digits[ --digitCount ] );
+    }
+    return x;
+  }
+
+  /**
+   * Draw the value rounded to the specified number of decimal places without allocating a string.
+   *
+   * @return the x coordinate at which following text should be drawn.
+   */
+  public double drawDecimal( @Nonnull final CanvasRenderingContext2D context,
+                             final double bottomLeftX,
+                             final double bottomLeftY,
+                             final double value,
+                             final int decimalPlaces )
+  {
+    assert decimalPlaces >= 0 && decimalPlaces < 10;
+    int scale = 1;
+    for ( int i = 0; i < decimalPlaces; i++ )
+    {
+      scale *= 10;
+    }
+    final double scaled = Math.round( Math.abs( value ) * scale );
+    double x = bottomLeftX;
+    if ( value < 0 && 0 != scaled )
+    {
+      x = drawChar( context, x, bottomLeftY, '-' );
+    }
+    x = drawInt( context, x, bottomLeftY, (int) Math.floor( scaled / scale ) );
+    if ( decimalPlaces > 0 )
+    {
+      x = drawChar( context, x, bottomLeftY, '.' );
+      int fraction = (int) ( scaled % scale );
+      for ( int divisor = scale / 10; divisor > 0; divisor /= 10 )
+      {
+        x = drawChar( context, x, bottomLeftY, (char) ( '0' + fraction / divisor ) );
+        fraction %= divisor;
+      }
+    }
+    return x;
+  }
+
+  /**
+   * Draw a single character.
+   *
+   * @return the x coordinate at which following text should be drawn.
+   */
+  public double drawChar( @Nonnull final CanvasRenderingContext2D context,
+                          final double bottomLeftX,
+                          final double bottomLeftY,
+                          final char ch )
+  {
+    final int glyph = ch >= FIRST_CHAR && ch <= LAST_CHAR ? ch - FIRST_CHAR : 0;
+    // Nothing to draw for a space
+    if ( 0 != glyph )
+    {
+      final int width = _glyphWidth[ glyph ];
+      context.drawImage( _canvas,
+                         _glyphX[ glyph ],
+                         0,
+                         width,
+                         _glyphHeight,
+                         bottomLeftX,
+                         bottomLeftY - _baseline,
+                         width,
+                         _glyphHeight );
+    }
+    return bottomLeftX + _advance[ glyph ];
+  }
+
+  /**
+   * Return the width of the text when drawn with this atlas.
+   */
+  public double measureText( @Nonnull final String text )
+  {
+    double width = 0;
+    final int length = text.length();
+    for ( int i = 0; i < length; i++ )
+    {
+      final char ch = text.charAt( i );
+      width += _advance[ ch >= FIRST_CHAR && ch <= LAST_CHAR ? ch - FIRST_CHAR : 0 ];
+    }
+    return width;
+  }
+}
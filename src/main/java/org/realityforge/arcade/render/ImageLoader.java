@@ -0,0 +1,113 @@
+package org.realityforge.arcade.render;
+
+import elemental2.dom.DomGlobal;
+import elemental2.dom.HTMLImageElement;
+import elemental2.promise.Promise;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+
+/**
+ * Loads and decodes images concurrently before a game starts.
+ * Each image is decoded as soon as it is loaded so that the first frame that draws it does not stall while
+ * the browser decodes it. Images that fail to load are retried after a delay that grows with each attempt
+ * and the load fails, rather than waiting forever, if an image can not be loaded.
+ */
+public final class ImageLoader
+{
+  /**
+   * Notified as each image finishes loading.
+   */
+  @FunctionalInterface
+  public interface ProgressListener
+  {
+    void onProgress( int loadedCount, int totalCount );
+  }
+
+  private static final int DEFAULT_MAX_ATTEMPTS = 3;
+  private static final int DEFAULT_RETRY_DELAY = 500;
+  private final int _maxAttempts;
+  // The delay in milliseconds before the first retry. Later retries wait proportionally longer.
+  private final int _retryDelay;
+
+  public ImageLoader()
+  {
+    this( DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY );
+  }
+
+  public ImageLoader( final int maxAttempts, final int retryDelay )
+  {
+    assert maxAttempts > 0;
+    assert retryDelay >= 0;
+    _maxAttempts = maxAttempts;
+    _retryDelay = retryDelay;
+  }
+
+  /**
+   * Start loading every image at once.
+   *
+   * @return a promise that resolves to the decoded images, in the same order as the urls, or is rejected
+   * once any image has failed every attempt.
+   */
+  @Nonnull
+  public Promise<HTMLImageElement[]> loadAll( @Nonnull final String[] urls, @Nonnull final ProgressListener listener )
+  {
+    Objects.requireNonNull( listener );
+    return new Promise<>( ( resolve, reject ) -> {
+      final HTMLImageElement[] images = new HTMLImageElement[ urls.length ];
+      final Progress progress = new Progress();
+      listener.onProgress( 0, urls.length );
+      if ( 0 == urls.length )
+      {
+        resolve.onInvoke( images );
+      }
+      for ( int i = 0; i < urls.length; i++ )
+      {
+        final int index = i;
+        load( urls[ i ], 1 ).then( image -> {
+          images[ index ] = image;
+          progress._loadedCount++;
+          listener.onProgress( progress._loadedCount, urls.length );
+          if ( urls.length == progress._loadedCount )
+          {
+            resolve.onInvoke( images );
+          }
+          return null;
+        }, error -> {
+          reject.onInvoke( error );
+          return null;
+        } );
+      }
+    } );
+  }
+
+  @Nonnull
+  private Promise<HTMLImageElement> load( @Nonnull final String url, final int attempt )
+  {
+    final HTMLImageElement image = (HTMLImageElement) DomGlobal.document.createElement( "img" );
+    image.src = url;
+    // Decoding rejects if the image can not be fetched or is not a valid image
+    return image.decode().then( v -> Promise.resolve( image ), error -> {
+      if ( attempt < _maxAttempts )
+      {
+        DomGlobal.console.warn( "Failed to load " + url + ". Retrying.", error );
+        return delay( _retryDelay * attempt ).then( v -> load( url, attempt + 1 ) );
+      }
+      else
+      {
+        DomGlobal.console.error( "Failed to load " + url + " after " + attempt + " attempts.", error );
+        return Promise.reject( error );
+      }
+    } );
+  }
+
+  @Nonnull
+  private static Promise<Void> delay( final int millis )
+  {
+    return new Promise<>( ( resolve, reject ) -> DomGlobal.setTimeout( v -> resolve.onInvoke( null ), millis ) );
+  }
+
+  private static final class Progress
+  {
+    private int _loadedCount;
+  }
+}
@@ -0,0 +1,57 @@
+package org.realityforge.arcade.render;
+
+import elemental2.core.Global;
+import elemental2.dom.DomGlobal;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Reads the query parameters of the page, which are used to select levels, settings and benchmarks.
+ */
+public final class QueryParameters
+{
+  private QueryParameters()
+  {
+  }
+
+  /**
+   * Return the decoded value of the first query parameter with the name, or null if there is no such parameter.
+   */
+  @Nullable
+  public static String get( @Nonnull final String name )
+  {
+    final String search = DomGlobal.location.search;
+    if ( null != search && search.length() > 1 )
+    {
+      for ( final String parameter : search.substring( 1 ).split( "&" ) )
+      {
+        if ( parameter.startsWith( name + "=" ) )
+        {
+          return Global.decodeURIComponent( parameter.substring( name.length() + 1 ) );
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the value of the query parameter as an integer, or the default value if there is no such parameter.
+   * Values that are not integers are logged and ignored.
+   */
+  public static int getInt( @Nonnull final String name, final int defaultValue )
+  {
+    final String value = get( name );
+    if ( null != value )
+    {
+      try
+      {
+        return Integer.parseInt( value );
+      }
+      catch ( final NumberFormatException nfe )
+      {
+        DomGlobal.console.log( "Ignoring invalid " + name + " parameter: " + value );
+      }
+    }
+    return defaultValue;
+  }
+}
@@ -0,0 +1,247 @@
+package org.realityforge.arcade.render;
+
+import elemental2.dom.CanvasRenderingContext2D;
+import java.util.Arrays;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+
+/**
+ * Records fill commands and replays them against a canvas with as few context state changes as possible.
+ * Commands recorded between flushes are grouped by fill style, in the order that each style was first used,
+ * and the rectangles and circles of a style are drawn as a single path with a single fill. Callers must flush
+ * whenever later commands need to be painted over earlier commands of a different style. Commands are stored
+ * in parallel arrays so recording does not allocate once the buffer has grown to the size of a frame.
+ */
+public final class RenderCommandBuffer
+{
+  private static final int INITIAL_CAPACITY = 64;
+  private static final int COMMAND_RECT = 0;
+  private static final int COMMAND_CIRCLE = 1;
+  private static final int COMMAND_TEXT = 2;
+  private static final int NO_COMMAND = -1;
+  private static final int NO_STYLE = -1;
+  @Nonnull
+  private final CanvasRenderingContext2D _context;
+  // Every style seen by the buffer. Styles are identified by their index in these arrays.
+  @Nonnull
+  private String[] _styles = new String[ 8 ];
+  @Nonnull
+  private CanvasRenderingContext2D.FillStyleUnionType[] _fillStyles =
+    new CanvasRenderingContext2D.FillStyleUnionType[ 8 ];
+  private int _styleCount;
+  // Per-style linked list of the commands recorded since the last flush
+  @Nonnull
+  private int[] _styleHead = new int[ 8 ];
+  @Nonnull
+  private int[] _styleTail = new int[ 8 ];
+  // The styles used since the last flush in order of first use
+  @Nonnull
+  private int[] _batchStyles = new int[ 8 ];
+  private int _batchStyleCount;
+  @Nonnull
+  private int[] _type = new int[ INITIAL_CAPACITY ];
+  @Nonnull
+  private int[] _next = new int[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _x = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _y = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _width = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private double[] _height = new double[ INITIAL_CAPACITY ];
+  @Nonnull
+  private String[] _text = new String[ INITIAL_CAPACITY ];
+  private int _commandCount;
+  // The style last applied to the context or NO_STYLE if unknown
+  private int _currentStyle = NO_STYLE;
+  private int _stateChanges;
+  private int _drawCalls;
+
+  public RenderCommandBuffer( @Nonnull final CanvasRenderingContext2D context )
+  {
+    _context = Objects.requireNonNull( context );
+  }
+
+  public void fillRect( final double topLeftX,
+                        final double topLeftY,
+                        final double width,
+                        final double height,
+                        @Nonnull final String color )
+  {
+    final int command = addCommand( COMMAND_RECT, color );
+    _x[ command ] = topLeftX;
+    _y[ command ] = topLeftY;
+    _width[ command ] = width;
+    _height[ command ] = height;
+  }
+
+  public void fillCircle( final double centerX, final double centerY, final double radius, @Nonnull final String color )
+  {
+    final int command = addCommand( COMMAND_CIRCLE, color );
+    _x[ command ] = centerX;
+    _y[ command ] = centerY;
+    _width[ command ] = radius;
+  }
+
+  public void fillText( final double bottomLeftX,
+                        final double bottomLeftY,
+                        @Nonnull final String text,
+                        @Nonnull final String color )
+  {
+    final int command = addCommand( COMMAND_TEXT, color );
+    _x[ command ] = bottomLeftX;
+    _y[ command ] = bottomLeftY;
+    _text[ command ] = text;
+  }
+
+  /**
+   * Draw all the commands recorded since the last flush.
+   */
+  public void flush()
+  {
+    for ( int i = 0; i < _batchStyleCount; i++ )
+    {
+      final int style = _batchStyles[ i ];
+      applyStyle( style );
+
+      boolean hasShapes = false;
+      for ( int command = _styleHead[ style ]; NO_COMMAND != command; command = _next[ command ] )
+      {
+        final int type = _type[ command ];
+        if ( COMMAND_RECT == type )
+        {
+          if ( !hasShapes )
+          {
+            _context.beginPath();
+            hasShapes = true;
+          }
+          _context.rect( _x[ command ], _y[ command ], _width[ command ], _height[ command ] );
+        }
+        else if ( COMMAND_CIRCLE == type )
+        {
+          if ( !hasShapes )
+          {
+            _context.beginPath();
+            hasShapes = true;
+          }
+          final double centerX = _x[ command ];
+          final double centerY = _y[ command ];
+          final double radius = _width[ command ];
+          // Start a new sub-path so that the circle is not joined to the previous shape
+          _context.moveTo( centerX + radius, centerY );
+          _context.arc( centerX, centerY, radius, 0, Math.PI * 2 );
+        }
+      }
+      if ( hasShapes )
+      {
+        _context.fill();
+        _drawCalls++;
+      }
+
+      for ( int command = _styleHead[ style ]; NO_COMMAND != command; command = _next[ command ] )
+      {
+        if ( COMMAND_TEXT == _type[ command ] )
+        {
+          _context.fillText( _text[ command ], _x[ command ], _y[ command ] );
+          _drawCalls++;
+          // Release the string
+          _text[ command ] = null;
+        }
+      }
+      _styleHead[ style ] = NO_COMMAND;
+      _styleTail[ style ] = NO_COMMAND;
+    }
+    _batchStyleCount = 0;
+    _commandCount = 0;
+  }
+
+  /**
+   * Return the number of times the fill style of the context was changed since the counters were last reset.
+   */
+  public int getStateChanges()
+  {
+    return _stateChanges;
+  }
+
+  /**
+   * Return the number of fill and fillText calls made against the context since the counters were last reset.
+   */
+  public int getDrawCalls()
+  {
+    return _drawCalls;
+  }
+
+  public void resetCounters()
+  {
+    _stateChanges = 0;
+    _drawCalls = 0;
+  }
+
+  private void applyStyle( final int style )
+  {
+    if ( _currentStyle != style )
+    {
+      _context.fillStyle = _fillStyles[ style ];
+      _currentStyle = style;
+      _stateChanges++;
+    }
+  }
+
+  private int addCommand( final int type, @Nonnull final String color )
+  {
+    if ( _commandCount == _type.length )
+    {
+      final int capacity = _commandCount * 2;
+      _type = Arrays.copyOf( _type, capacity );
+      _next = Arrays.copyOf( _next, capacity );
+      _x = Arrays.copyOf( _x, capacity );
+      _y = Arrays.copyOf( _y, capacity );
+      _width = Arrays.copyOf( _width, capacity );
+      _height = Arrays.copyOf( _height, capacity );
+      _text = Arrays.copyOf( _text, capacity );
+    }
+    final int command = _commandCount++;
+    _type[ command ] = type;
+    _next[ command ] = NO_COMMAND;
+
+    final int style = toStyle( color );
+    if ( NO_COMMAND == _styleHead[ style ] )
+    {
+      _styleHead[ style ] = command;
+      _batchStyles[ _batchStyleCount++ ] = style;
+    }
+    else
+    {
+      _next[ _styleTail[ style ] ] = command;
+    }
+    _styleTail[ style ] = command;
+    return command;
+  }
+
+  private int toStyle( @Nonnull final String color )
+  {
+    for ( int i = 0; i < _styleCount; i++ )
+    {
+      if ( _styles[ i ].equals( color ) )
+      {
+        return i;
+      }
+    }
+    if ( _styleCount == _styles.length )
+    {
+      final int capacity = _styleCount * 2;
+      _styles = Arrays.copyOf( _styles, capacity );
+      _fillStyles = Arrays.copyOf( _fillStyles, capacity );
+      _styleHead = Arrays.copyOf( _styleHead, capacity );
+      _styleTail = Arrays.copyOf( _styleTail, capacity );
+      _batchStyles = Arrays.copyOf( _batchStyles, capacity );
+    }
+    final int style = _styleCount++;
+    _styles[ style ] = color;
+    _fillStyles[ style ] = CanvasRenderingContext2D.FillStyleUnionType.of( color );
+    _styleHead[ style ] = NO_COMMAND;
+    _styleTail[ style ] = NO_COMMAND;
+    return style;
+  }
+}
@@ -0,0 +1,201 @@
+package org.realityforge.arcade.render;
+
+import elemental2.dom.CanvasRenderingContext2D;
+import elemental2.dom.DomGlobal;
+import elemental2.dom.HTMLCanvasElement;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import jsinterop.base.Js;
+
+/**
+ * Sprites pre-rendered at a fixed number of angles into offscreen canvases so that a rotated sprite is drawn
+ * with a plain copy rather than by transforming the context for every draw. Angles are rounded to the
+ * nearest of the fixed angles, so more angles give smoother rotation at the cost of more memory.
+ *
+ * <p>Rotations are rendered the first time they are requested and the least recently used rotation is
+ * discarded, and its canvas reused, once the cache holds its maximum number of rotations.</p>
+ */
+public final class RotatedSpriteCache
+{
+  public static final int DEFAULT_ANGLE_COUNT = 128;
+  public static final int DEFAULT_MAX_ROTATIONS = 512;
+  private static final double TURN = Math.PI * 2D;
+  private final int _angleCount;
+  private final int _maxRotations;
+  // The rotations of each sprite, indexed by angle, with null for rotations that are not cached
+  @Nonnull
+  private final Map<Sprite, Rotation[]> _rotations = new HashMap<>();
+  // The cached rotations from the most to the least recently used
+  private Rotation _mostRecentlyUsed;
+  private Rotation _leastRecentlyUsed;
+  private int _rotationCount;
+  // The number of rotations rendered since the counters were last reset
+  private int _renderCount;
+
+  public RotatedSpriteCache()
+  {
+    this( DEFAULT_ANGLE_COUNT, DEFAULT_MAX_ROTATIONS );
+  }
+
+  /**
+   * @param angleCount   the number of angles, evenly spaced around a full turn, that sprites are rendered at.
+   * @param maxRotations the maximum number of rotated sprites that are kept.
+   */
+  public RotatedSpriteCache( final int angleCount, final int maxRotations )
+  {
+    assert angleCount > 0;
+    assert maxRotations > 0;
+    _angleCount = angleCount;
+    _maxRotations = maxRotations;
+  }
+
+  public int getAngleCount()
+  {
+    return _angleCount;
+  }
+
+  public int getRotationCount()
+  {
+    return _rotationCount;
+  }
+
+  /**
+   * Return the number of rotations rendered since the counters were last reset.
+   * A count that stays high suggests the cache is too small for the sprites in view.
+   */
+  public int getRenderCount()
+  {
+    return _renderCount;
+  }
+
+  public void resetCounters()
+  {
+    _renderCount = 0;
+  }
+
+  /**
+   * Return a square canvas containing the sprite, centered, rotated to the nearest of the cached angles.
+   */
+  @Nonnull
+  public HTMLCanvasElement getRotation( @Nonnull final Sprite sprite, final double angle )
+  {
+    int angleIndex = (int) ( Math.round( angle / TURN * _angleCount ) % _angleCount );
+    if ( angleIndex < 0 )
+    {
+      angleIndex += _angleCount;
+    }
+    Rotation[] rotations = _rotations.get( sprite );
+    if ( null == rotations )
+    {
+      rotations = new Rotation[ _angleCount ];
+      _rotations.put( sprite, rotations );
+    }
+    Rotation rotation = rotations[ angleIndex ];
+    if ( null == rotation )
+    {
+      rotation = createRotation( sprite, angleIndex );
+      rotations[ angleIndex ] = rotation;
+    }
+    else
+    {
+      unlink( rotation );
+    }
+    linkAsMostRecentlyUsed( rotation );
+    return rotation._canvas;
+  }
+
+  @Nonnull
+  private Rotation createRotation( @Nonnull final Sprite sprite, final int angleIndex )
+  {
+    final HTMLCanvasElement canvas;
+    if ( _rotationCount < _maxRotations )
+    {
+      canvas = (HTMLCanvasElement) DomGlobal.document.createElement( "canvas" );
+      _rotationCount++;
+    }
+    else
+    {
+      final Rotation evicted = _leastRecentlyUsed;
+      unlink( evicted );
+      _rotations.get( evicted._sprite )[ evicted._angleIndex ] = null;
+      canvas = evicted._canvas;
+    }
+
+    // The canvas is large enough for the sprite at any angle. Resizing the canvas also clears it.
+    final int size = (int) Math.ceil( Math.sqrt( sprite.getWidth() * sprite.getWidth() +
+                                                 sprite.getHeight() * sprite.getHeight() ) );
+    canvas.width = size;
+    canvas.height = size;
+    final CanvasRenderingContext2D context = Js.uncheckedCast( canvas.getContext( "2d" ) );
+    final double angle = angleIndex * TURN / _angleCount;
+    final double cos = Math.cos( angle );
+    final double sin = Math.sin( angle );
+    context.setTransform( cos, sin, -sin, cos, size / 2D, size / 2D );
+    context.drawImage( sprite.getImage(),
+                       sprite.getX(),
+                       sprite.getY(),
+                       sprite.getWidth(),
+                       sprite.getHeight(),
+                       -sprite.getWidth() / 2D,
+                       -sprite.getHeight() / 2D,
+                       sprite.getWidth(),
+                       sprite.getHeight() );
+    _renderCount++;
+    return new Rotation( sprite, angleIndex, canvas );
+  }
+
+  private void unlink( @Nonnull final Rotation rotation )
+  {
+    if ( null == rotation._moreRecentlyUsed )
+    {
+      _mostRecentlyUsed = rotation._lessRecentlyUsed;
+    }
+    else
+    {
+      rotation._moreRecentlyUsed._lessRecentlyUsed = rotation._lessRecentlyUsed;
+    }
+    if ( null == rotation._lessRecentlyUsed )
+    {
+      _leastRecentlyUsed = rotation._moreRecentlyUsed;
+    }
+    else
+    {
+      rotation._lessRecentlyUsed._moreRecentlyUsed = rotation._moreRecentlyUsed;
+    }
+    rotation._moreRecentlyUsed = null;
+    rotation._lessRecentlyUsed = null;
+  }
+
+  private void linkAsMostRecentlyUsed( @Nonnull final Rotation rotation )
+  {
+    rotation._lessRecentlyUsed = _mostRecentlyUsed;
+    if ( null == _mostRecentlyUsed )
+    {
+      _leastRecentlyUsed = rotation;
+    }
+    else
+    {
+      _mostRecentlyUsed._moreRecentlyUsed = rotation;
+    }
+    _mostRecentlyUsed = rotation;
+  }
+
+  private static final class Rotation
+  {
+    @Nonnull
+    private final Sprite _sprite;
+    private final int _angleIndex;
+    @Nonnull
+    private final HTMLCanvasElement _canvas;
+    private Rotation _moreRecentlyUsed;
+    private Rotation _lessRecentlyUsed;
+
+    Rotation( @Nonnull final Sprite sprite, final int angleIndex, @Nonnull final HTMLCanvasElement canvas )
+    {
+      _sprite = sprite;
+      _angleIndex = angleIndex;
+      _canvas = canvas;
+    }
+  }
+}
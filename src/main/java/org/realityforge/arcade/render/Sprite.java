@@ -0,0 +1,56 @@
+package org.realityforge.arcade.render;
+
+import elemental2.dom.HTMLImageElement;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+
+/**
+ * A rectangular region of an image, typically one of the images packed into a {@link SpriteAtlas}.
+ */
+public final class Sprite
+{
+  @Nonnull
+  private final HTMLImageElement _image;
+  private final int _x;
+  private final int _y;
+  private final int _width;
+  private final int _height;
+
+  public Sprite( @Nonnull final HTMLImageElement image, final int x, final int y, final int width, final int height )
+  {
+    _image = Objects.requireNonNull( image );
+    _x = x;
+    _y = y;
+    _width = width;
+    _height = height;
+  }
+
+  /**
+   * Return the image that contains the sprite.
+   */
+  @Nonnull
+  public HTMLImageElement getImage()
+  {
+    return _image;
+  }
+
+  public int getX()
+  {
+    return _x;
+  }
+
+  public int getY()
+  {
+    return _y;
+  }
+
+  public int getWidth()
+  {
+    return _width;
+  }
+
+  public int getHeight()
+  {
+    return _height;
+  }
+}
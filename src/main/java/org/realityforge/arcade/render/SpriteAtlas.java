@@ -0,0 +1,48 @@
+package org.realityforge.arcade.render;
+
+import elemental2.dom.HTMLImageElement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+
+/**
+ * The images of a module packed into a single image so that they are loaded with one request.
+ * The atlas and the index of the position of each image within it are generated from the module's public
+ * directory by the AtlasPacker tool.
+ */
+public final class SpriteAtlas
+{
+  @Nonnull
+  private final Map<String, Sprite> _sprites = new HashMap<>();
+
+  /**
+   * Create an atlas from a loaded image.
+   *
+   * @param image      the atlas image.
+   * @param names      the name of each image in the atlas.
+   * @param rectangles the x, y, width and height of each image in the atlas.
+   */
+  public SpriteAtlas( @Nonnull final HTMLImageElement image,
+                      @Nonnull final String[] names,
+                      @Nonnull final int[] rectangles )
+  {
+    assert rectangles.length == names.length * 4;
+    Objects.requireNonNull( image );
+    for ( int i = 0; i < names.length; i++ )
+    {
+      _sprites.put( names[ i ],
+                    new Sprite( image,
+                                rectangles[ i * 4 ],
+                                rectangles[ i * 4 + 1 ],
+                                rectangles[ i * 4 + 2 ],
+                                rectangles[ i * 4 + 3 ] ) );
+    }
+  }
+
+  @Nonnull
+  public Sprite getSprite( @Nonnull final String name )
+  {
+    return Objects.requireNonNull( _sprites.get( name ) );
+  }
+}
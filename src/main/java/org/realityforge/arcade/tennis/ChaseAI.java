@@ -0,0 +1,52 @@
+package org.realityforge.arcade.tennis;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A computer player that moves its paddle a fixed step toward the ball every tick.
+ * The same rules work for either paddle as they only depend on the vertical position of the ball.
+ */
+final class ChaseAI
+  implements PaddleController
+{
+  // The zone inside the paddle that the computer player targets
+  static final double DEFAULT_TARGET_ZONE = TennisSimulation.PADDLE_HEIGHT * 0.7D;
+  static final double DEFAULT_PADDLE_STEP = 6D;
+  private final double _halfTargetZone;
+  private final double _paddleStep;
+
+  ChaseAI()
+  {
+    this( DEFAULT_TARGET_ZONE, DEFAULT_PADDLE_STEP );
+  }
+
+  ChaseAI( final double targetZone, final double paddleStep )
+  {
+    _halfTargetZone = targetZone / 2D;
+    _paddleStep = paddleStep;
+  }
+
+  @Override
+  public double computePaddleY( @Nonnull final TennisSimulation simulation, final double paddleY )
+  {
+    // The computer player aims to get the ball in the center of it's target
+    // zone but once the ball is in the target zone it will not move the paddle.
+    // This creates more realistic movement and stops paddle jitter as step size
+    // is constant  and otherwise the AI would constantly be adjusting
+    final double paddleCenter = paddleY + TennisSimulation.HALF_PADDLE_HEIGHT;
+    final double ballY = simulation.getBallY();
+
+    if ( paddleCenter < ballY - _halfTargetZone )
+    {
+      return simulation.limitPaddleToScreen( paddleY + _paddleStep );
+    }
+    else if ( paddleCenter > ballY + _halfTargetZone )
+    {
+      return simulation.limitPaddleToScreen( paddleY - _paddleStep );
+    }
+    else
+    {
+      return paddleY;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package org.realityforge.arcade.tennis;
+
+import elemental2.dom.CanvasRenderingContext2D;
+import elemental2.dom.DomGlobal;
+import elemental2.dom.HTMLCanvasElement;
+import javax.annotation.Nonnull;
+import jsinterop.base.Js;
+import org.realityforge.arcade.render.RenderCommandBuffer;
+
+/**
+ * An offscreen canvas containing the parts of the court that never change, the background and the net.
+ * The layer is drawn once and copied to the screen at the start of every frame.
+ */
+final class CourtLayer
+{
+  private static final double NET_WIDTH = 2D;
+  private static final double NET_SEGMENT_HEIGHT = 20D;
+  private static final double NET_SEGMENT_SPACING = 40D;
+  @Nonnull
+  private final HTMLCanvasElement _canvas;
+
+  CourtLayer( final int width, final int height )
+  {
+    _canvas = (HTMLCanvasElement) DomGlobal.document.createElement( "canvas" );
+    _canvas.width = width;
+    _canvas.height = height;
+    final CanvasRenderingContext2D context = Js.uncheckedCast( _canvas.getContext( "2d" ) );
+    final RenderCommandBuffer commands = new RenderCommandBuffer( context );
+
+    // Background
+    commands.fillRect( 0D, 0D, width, height, "black" );
+
+    // Draw net
+    for ( double y = 0D; y < height; y += NET_SEGMENT_SPACING )
+    {
+      commands.fillRect( width / 2D - NET_WIDTH / 2D, y, NET_WIDTH, NET_SEGMENT_HEIGHT, "white" );
+    }
+    commands.flush();
+  }
+
+  @Nonnull
+  HTMLCanvasElement getCanvas()
+  {
+    return _canvas;
+  }
+}
@@ -0,0 +1,14 @@
+package org.realityforge.arcade.tennis;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Moves a paddle under computer control.
+ */
+interface PaddleController
+{
+  /**
+   * Return the position the paddle moves to this tick.
+   */
+  double computePaddleY( @Nonnull TennisSimulation simulation, double paddleY );
+}
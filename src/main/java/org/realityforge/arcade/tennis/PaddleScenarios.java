@@ -0,0 +1,142 @@
+package org.realityforge.arcade.tennis;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Runs a table of scenarios in which the ball is stepped once towards a paddle, and checks whether the ball
+ * hit the paddle and how it bounced. The scenarios cover hits on the face, on the end caps and around the
+ * corners of the paddles, by fast balls and by moving paddles.
+ *
+ * <p>This class only runs on the JVM so it is excluded from the GWT module. It exits with a non-zero status
+ * if any scenario fails:</p>
+ *
+ * <pre>java -ea org.realityforge.arcade.tennis.PaddleScenarios</pre>
+ *
+ * <p>Scenarios are played on an 800x600 court. The face of the left paddle is hit when the ball's center
+ * reaches x = 10 and the face of the right paddle when it reaches x = 790. Unless stated, each paddle covers
+ * y from 250 to 350.</p>
+ */
+final class PaddleScenarios
+{
+  private static final double COURT_WIDTH = 800D;
+  private static final double COURT_HEIGHT = 600D;
+  private static final double PADDLE_Y = 250D;
+  // The direction of the ball expected along an axis after the tick
+  private static final int ANY = 2;
+  private static final int UNCHANGED = 0;
+  private static final int POSITIVE = 1;
+  private static final int NEGATIVE = -1;
+  private static int c_failures;
+
+  private PaddleScenarios()
+  {
+  }
+
+  public static void main( final String[] args )
+  {
+    run( "ball hitting the middle of the face returns level",
+         PADDLE_Y, PADDLE_Y, PADDLE_Y, 30, 300, -25, 0,
+         false, POSITIVE, UNCHANGED );
+    run( "ball hitting the face near the top is sent upwards",
+         PADDLE_Y, PADDLE_Y, PADDLE_Y, 30, 255, -25, 0,
+         false, POSITIVE, NEGATIVE );
+    run( "ball clipping the top end cap bounces back and up",
+         PADDLE_Y, PADDLE_Y, PADDLE_Y, 30, 245, -25, 0,
+         false, POSITIVE, NEGATIVE );
+    run( "ball passing further than its radius above the paddle is a point",
+         PADDLE_Y, PADDLE_Y, PADDLE_Y, 30, 238, -25, 0,
+         true, ANY, ANY );
+    run( "ball heading up and away past the top corner misses the rounded end cap",
+         PADDLE_Y, PADDLE_Y, PADDLE_Y, 30, 262, -30, -30,
+         true, ANY, ANY );
+    run( "ball falling steeply onto the top end cap is deflected back into the court",
+         PADDLE_Y, PADDLE_Y, PADDLE_Y, 12, 220, -4, 30,
+         false, POSITIVE, POSITIVE );
+    run( "very fast ball does not pass through the paddle between ticks",
+         PADDLE_Y, PADDLE_Y, PADDLE_Y, 100, 300, -120, 0,
+         false, POSITIVE, UNCHANGED );
+    run( "paddle moving up during the tick catches a ball that was above it",
+         PADDLE_Y, 190, PADDLE_Y, 30, 240, -25, 0,
+         false, POSITIVE, NEGATIVE );
+    run( "ball clipping the bottom end cap of the right paddle bounces back and down",
+         PADDLE_Y, PADDLE_Y, PADDLE_Y, 770, 355, 25, 0,
+         false, NEGATIVE, POSITIVE );
+    run( "ball passing further than its radius below the paddle is a point",
+         PADDLE_Y, PADDLE_Y, PADDLE_Y, 30, 361, -25, 0,
+         true, ANY, ANY );
+
+    if ( 0 != c_failures )
+    {
+      System.out.println( c_failures + " scenarios failed" );
+      System.exit( 1 );
+    }
+  }
+
+  /**
+   * Play a single tick of a scenario and report whether the ball bounced as expected.
+   *
+   * @param paddle1StartY the top of the left paddle at the start of the tick.
+   * @param paddle1EndY   the top of the left paddle at the end of the tick.
+   * @param paddle2Y      the top of the right paddle.
+   * @param expectedPoint true if the ball is expected to miss the paddle and score a point.
+   * @param expectedSignX the expected direction of the ball along the x axis after the tick.
+   * @param expectedSignY the expected direction of the ball along the y axis after the tick.
+   */
+  private static void run( @Nonnull final String name,
+                           final double paddle1StartY,
+                           final double paddle1EndY,
+                           final double paddle2Y,
+                           final double x,
+                           final double y,
+                           final double speedX,
+                           final double speedY,
+                           final boolean expectedPoint,
+                           final int expectedSignX,
+                           final int expectedSignY )
+  {
+    final TennisSimulation simulation = new TennisSimulation( COURT_WIDTH, COURT_HEIGHT );
+    // Tick once with a stationary ball in the middle of the court so that the paddles start at these positions
+    simulation.setPaddle1Y( paddle1StartY );
+    simulation.setPaddle2Y( paddle2Y );
+    simulation.setBall( COURT_WIDTH / 2D, COURT_HEIGHT / 2D, 0D, 0D );
+    simulation.tick();
+
+    simulation.setPaddle1Y( paddle1EndY );
+    simulation.setBall( x, y, speedX, speedY );
+    simulation.tick();
+
+    final StringBuilder problems = new StringBuilder();
+    final boolean point = 0 != simulation.getPlayer1Score() || 0 != simulation.getPlayer2Score();
+    if ( expectedPoint != point )
+    {
+      problems.append( point ? " a point was scored;" : " no point was scored;" );
+    }
+    checkDirection( problems, "x", speedX, simulation.getBallSpeedX(), expectedSignX );
+    checkDirection( problems, "y", speedY, simulation.getBallSpeedY(), expectedSignY );
+
+    if ( 0 == problems.length() )
+    {
+      System.out.println( "PASS " + name );
+    }
+    else
+    {
+      c_failures++;
+      System.out.println( "FAIL " + name + ":" + problems );
+    }
+  }
+
+  private static void checkDirection( @Nonnull final StringBuilder problems,
+                                      @Nonnull final String axis,
+                                      final double initialSpeed,
+                                      final double speed,
+                                      final int expectedSign )
+  {
+    final boolean matches =
+      ANY == expectedSign ||
+      ( UNCHANGED == expectedSign ? speed == initialSpeed : Math.signum( speed ) == expectedSign );
+    if ( !matches )
+    {
+      problems.append( " " ).append( axis ).append( " speed is " ).append( speed ).append( ";" );
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package org.realityforge.arcade.tennis;
+
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+/**
+ * A computer player that predicts where the ball will reach its paddle once per volley and then steps toward
+ * the predicted point. The prediction folds the straight line path of the ball back into the court to account
+ * for reflections off the top and bottom walls. While the ball is travelling away the paddle returns to the
+ * center of the court.
+ *
+ * <p>The difficulty is controlled by a deliberate error added to each prediction. An error of 0 produces a
+ * player that reaches every ball it has time to reach.</p>
+ */
+final class PredictiveAI
+  implements PaddleController
+{
+  // The maximum error, in pixels, added to each prediction at each difficulty level
+  static final double EASY_PREDICTION_ERROR = 150D;
+  static final double NORMAL_PREDICTION_ERROR = 70D;
+  static final double HARD_PREDICTION_ERROR = 0D;
+  private final boolean _rightPaddle;
+  private final double _predictionError;
+  private final double _paddleStep;
+  @Nonnull
+  private final Random _random;
+  // True when the target has been predicted for the volley currently approaching the paddle
+  private boolean _hasPrediction;
+  private double _targetY;
+
+  PredictiveAI( final boolean rightPaddle, final double predictionError, final long seed )
+  {
+    this( rightPaddle, predictionError, ChaseAI.DEFAULT_PADDLE_STEP, seed );
+  }
+
+  PredictiveAI( final boolean rightPaddle, final double predictionError, final double paddleStep, final long seed )
+  {
+    _rightPaddle = rightPaddle;
+    _predictionError = predictionError;
+    _paddleStep = paddleStep;
+    _random = new Random( seed );
+  }
+
+  @Override
+  public double computePaddleY( @Nonnull final TennisSimulation simulation, final double paddleY )
+  {
+    final double speedX = simulation.getBallSpeedX();
+    final boolean approaching = _rightPaddle ? speedX > 0 : speedX < 0;
+    if ( !approaching )
+    {
+      _hasPrediction = false;
+      _targetY = simulation.getHeight() / 2D;
+    }
+    else if ( !_hasPrediction )
+    {
+      _hasPrediction = true;
+      _targetY = predictInterceptY( simulation ) + ( _random.nextDouble() * 2 - 1 ) * _predictionError;
+    }
+
+    final double delta = _targetY - ( paddleY + TennisSimulation.HALF_PADDLE_HEIGHT );
+    return simulation.limitPaddleToScreen( paddleY + Math.max( -_paddleStep, Math.min( _paddleStep, delta ) ) );
+  }
+
+  /**
+   * Return the y coordinate of the center of the ball when it reaches the face of this player's paddle.
+   */
+  private double predictInterceptY( @Nonnull final TennisSimulation simulation )
+  {
+    final double radius = TennisSimulation.BALL_RADIUS;
+    final double interceptX = _rightPaddle ? simulation.getWidth() - radius : radius;
+    final double ticks = ( interceptX - simulation.getBallX() ) / simulation.getBallSpeedX();
+    final double unboundedY = simulation.getBallY() + simulation.getBallSpeedY() * Math.max( 0D, ticks );
+
+    // The center of the ball moves between the walls inset by the radius. Reflections turn the unbounded
+    // path into a triangle wave with a period of twice the distance between the walls.
+    final double range = simulation.getHeight() - 2 * radius;
+    if ( range <= 0 )
+    {
+      return simulation.getHeight() / 2D;
+    }
+    final double period = 2 * range;
+    double offset = ( unboundedY - radius ) % period;
+    if ( offset < 0 )
+    {
+      offset += period;
+    }
+    return radius + ( offset <= range ? offset : period - offset );
+  }
+}
@@ -8,58 +8,118 @@ import elemental2.dom.HTMLCanvasElement;
 import elemental2.dom.HTMLHtmlElement;
 import elemental2.dom.MouseEvent;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import jsinterop.base.Js;
+import org.realityforge.arcade.render.GlyphAtlas;
+import org.realityforge.arcade.render.QueryParameters;
+import org.realityforge.arcade.render.RenderCommandBuffer;
 
 public class Tennis
   implements EntryPoint
 {
-  private static final int WINNING_SCORE = 3;
-  private static final int FRAMES_PER_SECOND = 60;
-  private static final int MILLIS_PER_SECOND = 1000;
-  private static final int FRAME_DELAY = MILLIS_PER_SECOND / FRAMES_PER_SECOND;
-  private static final double BALL_RADIUS = 10D;
-  private static final double PADDLE_HEIGHT = 100D;
-  private static final double HALF_PADDLE_HEIGHT = PADDLE_HEIGHT / 2;
-  private static final double PADDLE_WIDTH = 10D;
-  // The zone inside panel that the computer player targets
-  private static final double AI_PADDLE_TARGET_ZONE = PADDLE_HEIGHT * 0.7D;
-  //
-  private static final double MAX_REFLECT_SPEED = 12.5D;
-  private static final double VERTICAL_REFLECT_FORCE_TRANSFER = ( 2 * MAX_REFLECT_SPEED ) / PADDLE_HEIGHT;
-  private static final double INITIAL_X_SPEED = 5D;
-  private static final double INITIAL_Y_SPEED = 3D;
+  // The simulation advances in fixed steps independent of the display refresh rate
+  private static final int TICKS_PER_SECOND = 60;
+  private static final double MILLIS_PER_SECOND = 1000D;
+  private static final double TICK_DURATION = MILLIS_PER_SECOND / TICKS_PER_SECOND;
+  // Frames longer than this are clamped so a stall does not trigger a burst of catch up ticks
+  private static final double MAX_FRAME_DURATION = 250D;
+  // The query parameter that selects the computer player. One of chase, easy, normal or hard.
+  private static final String AI_PARAMETER = "ai";
+  private PaddleController _computerPlayer;
   private HTMLCanvasElement _canvas;
+  private RenderCommandBuffer _commands;
   private CanvasRenderingContext2D _context;
-  private double _ballX = 50D;
-  private double _ballY = 50D;
-  private double _ballSpeedX = INITIAL_X_SPEED;
-  private double _ballSpeedY = INITIAL_Y_SPEED;
-  private double _paddle1Y = 200D;
-  private double _paddle2Y = 200D;
-  private int _player1Score;
-  private int _player2Score;
-  private boolean _showingWinScreen;
+  // Text is drawn from an atlas so that the scores are not formatted into strings every frame
+  private GlyphAtlas _text;
+  private CourtLayer _court;
+  // True while the win screen on the canvas is up to date, as it does not change until the player clicks
+  private boolean _winScreenDrawn;
+  private TennisSimulation _simulation;
+  // The paddle position requested by the player, applied at the start of the next tick
+  private double _playerPaddleY;
+  // Positions at the start of the most recent tick, used to interpolate between ticks when rendering
+  private double _previousBallX;
+  private double _previousBallY;
+  private double _previousPaddle2Y;
+  // Time accumulated since the last tick that has not yet been simulated
+  private double _accumulator;
+  private double _lastFrameTime = Double.NaN;
+  private double _animationFrameId = Double.NaN;
 
   @Override
   public void onModuleLoad()
   {
     _canvas = (HTMLCanvasElement) DomGlobal.document.getElementById( "gameCanvas" );
     _context = Js.uncheckedCast( _canvas.getContext( "2d" ) );
+    _commands = new RenderCommandBuffer( _context );
+    _text = new GlyphAtlas( "white" );
+    _court = new CourtLayer( _canvas.width, _canvas.height );
+    _simulation = new TennisSimulation( _canvas.width, _canvas.height );
+    _computerPlayer = createComputerPlayer( QueryParameters.get( AI_PARAMETER ) );
 
     _canvas.addEventListener( "mousedown", e -> onMouseClick() );
     _canvas.addEventListener( "mousemove", e -> calculateMousePosition( (MouseEvent) e ) );
+    DomGlobal.document.addEventListener( "visibilitychange", e -> onVisibilityChange() );
 
-    runFrame();
-    DomGlobal.setInterval( v -> runFrame(), FRAME_DELAY );
+    _playerPaddleY = _simulation.getPaddle1Y();
+    savePreviousPositions();
+    requestFrame();
+  }
+
+  private void requestFrame()
+  {
+    _animationFrameId = DomGlobal.requestAnimationFrame( this::onAnimationFrame );
+  }
+
+  /**
+   * Stop animating while the page is hidden and restart from the current time when it is shown again,
+   * rather than simulating the time that passed while hidden.
+   */
+  private void onVisibilityChange()
+  {
+    if ( DomGlobal.document.hidden )
+    {
+      if ( !Double.isNaN( _animationFrameId ) )
+      {
+        DomGlobal.cancelAnimationFrame( _animationFrameId );
+        _animationFrameId = Double.NaN;
+      }
+    }
+    else if ( Double.isNaN( _animationFrameId ) )
+    {
+      _lastFrameTime = Double.NaN;
+      requestFrame();
+    }
+  }
+
+  @Nonnull
+  private PaddleController createComputerPlayer( @Nullable final String mode )
+  {
+    final long seed = (long) ( Math.random() * Integer.MAX_VALUE );
+    if ( "easy".equals( mode ) )
+    {
+      return new PredictiveAI( true, PredictiveAI.EASY_PREDICTION_ERROR, seed );
+    }
+    else if ( "normal".equals( mode ) )
+    {
+      return new PredictiveAI( true, PredictiveAI.NORMAL_PREDICTION_ERROR, seed );
+    }
+    else if ( "hard".equals( mode ) )
+    {
+      return new PredictiveAI( true, PredictiveAI.HARD_PREDICTION_ERROR, seed );
+    }
+    else
+    {
+      return new ChaseAI();
+    }
   }
 
   private void onMouseClick()
   {
-    if ( _showingWinScreen )
+    if ( _simulation.isShowingWinScreen() )
     {
-      _player1Score = 0;
-      _player2Score = 0;
-      _showingWinScreen = false;
+      _simulation.resetMatch();
+      savePreviousPositions();
     }
   }
 
@@ -76,144 +136,115 @@ public class Tennis
     final double mouseY = event.clientY - rect.top - root.scrollTop;
 
     // Our pointer should be center of paddle and the paddle can not go outside bounds
-    _paddle1Y = limitPaddleToScreen( mouseY - HALF_PADDLE_HEIGHT );
-  }
-
-  // Make sure paddle never goes off screen
-  private double limitPaddleToScreen( final double paddlePosition )
-  {
-    return Math.min( Math.max( 0, paddlePosition ), _canvas.height - PADDLE_HEIGHT );
+    _playerPaddleY = _simulation.limitPaddleToScreen( mouseY - TennisSimulation.HALF_PADDLE_HEIGHT );
   }
 
-  private void runFrame()
+  private void onAnimationFrame( final double timestamp )
   {
-    if ( _showingWinScreen )
-    {
-      renderWinScreen();
-    }
-    else
+    final double elapsed = Double.isNaN( _lastFrameTime ) ? 0D : timestamp - _lastFrameTime;
+    _lastFrameTime = timestamp;
+    if ( _simulation.isShowingWinScreen() )
     {
-      simulateWorld();
-      renderWorld();
-    }
-  }
-
-  private void simulateWorld()
-  {
-    computerPlayer();
-    _ballX += _ballSpeedX;
-    _ballY += _ballSpeedY;
-    if ( _ballX - BALL_RADIUS < 0 )
-    {
-      if ( ( _ballY + BALL_RADIUS < _paddle1Y ) || ( _ballY - BALL_RADIUS > _paddle1Y + PADDLE_HEIGHT ) )
-      {
-        // Score changed before ballReset as winning condition check occurs inside ballReset
-        _player2Score++;
-        ballReset();
-      }
-      else
+      _accumulator = 0D;
+      if ( !_winScreenDrawn )
       {
-        _ballSpeedX = -_ballSpeedX;
-
-        // Gives some ball control so that depending on where you hit the ball wil depend on what angle
-        // and speed the ball returns to other side.
-        _ballSpeedY = ( _ballY - ( _paddle1Y + HALF_PADDLE_HEIGHT ) ) * VERTICAL_REFLECT_FORCE_TRANSFER;
+        renderWinScreen();
+        _winScreenDrawn = true;
       }
     }
-    if ( ( _ballX + BALL_RADIUS ) > _canvas.width )
+    else
     {
-      if ( ( _ballY + BALL_RADIUS < _paddle2Y ) || ( _ballY - BALL_RADIUS > _paddle2Y + PADDLE_HEIGHT ) )
-      {
-        // Score changed before ballReset as winning condition check occurs inside ballReset
-        _player1Score++;
-        ballReset();
-      }
-      else
+      _winScreenDrawn = false;
+      _accumulator += Math.min( elapsed, MAX_FRAME_DURATION );
+      while ( _accumulator >= TICK_DURATION && !_simulation.isShowingWinScreen() )
       {
-        _ballSpeedX = -_ballSpeedX;
-
-        // Ball control for player 2
-        _ballSpeedY = ( _ballY - ( _paddle2Y + HALF_PADDLE_HEIGHT ) ) * VERTICAL_REFLECT_FORCE_TRANSFER;
+        simulateWorld();
+        _accumulator -= TICK_DURATION;
       }
+      renderWorld( _accumulator / TICK_DURATION );
     }
-
-    if ( ( _ballY + BALL_RADIUS ) > _canvas.height || _ballY < BALL_RADIUS )
-    {
-      _ballSpeedY = -_ballSpeedY;
-    }
+    _commands.flush();
+    requestFrame();
   }
 
-  private void computerPlayer()
+  private void simulateWorld()
   {
-    // The computer player aims to get the ball in the center of it's target
-    // zone but once the ball is in the target zone it will not move the paddle.
-    // This creates more realistic movement and stops paddle jitter as step size
-    // is constant  and otherwise the AI would constantly be adjusting
-    final double paddle2Center = _paddle2Y + HALF_PADDLE_HEIGHT;
+    savePreviousPositions();
+    final int player1Score = _simulation.getPlayer1Score();
+    final int player2Score = _simulation.getPlayer2Score();
 
-    if ( paddle2Center < _ballY - ( AI_PADDLE_TARGET_ZONE / 2D ) )
-    {
-      _paddle2Y = limitPaddleToScreen( _paddle2Y + 6 );
-    }
-    else if ( paddle2Center > _ballY + ( AI_PADDLE_TARGET_ZONE / 2D ) )
+    _simulation.setPaddle1Y( _playerPaddleY );
+    _simulation.setPaddle2Y( _computerPlayer.computePaddleY( _simulation, _simulation.getPaddle2Y() ) );
+    _simulation.tick();
+
+    if ( player1Score != _simulation.getPlayer1Score() || player2Score != _simulation.getPlayer2Score() )
     {
-      _paddle2Y = limitPaddleToScreen( _paddle2Y - 6 );
+      // The ball was served from the center so do not interpolate across the court
+      savePreviousPositions();
     }
   }
 
-  private void ballReset()
+  private void savePreviousPositions()
   {
-    if ( _player1Score >= WINNING_SCORE || _player2Score >= WINNING_SCORE )
-    {
-      _showingWinScreen = true;
-    }
-    _ballSpeedX = -Math.min( _ballSpeedX, INITIAL_X_SPEED );
-    _ballSpeedY = Math.min( _ballSpeedY / _ballSpeedX, 2 ) * -INITIAL_Y_SPEED;
-    _ballX = _canvas.width / 2D;
-    _ballY = _canvas.height / 2D;
+    _previousBallX = _simulation.getBallX();
+    _previousBallY = _simulation.getBallY();
+    _previousPaddle2Y = _simulation.getPaddle2Y();
   }
 
   private void renderWinScreen()
   {
     clearBackground();
 
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( "white" );
-    if ( _player1Score >= WINNING_SCORE )
+    if ( _simulation.getPlayer1Score() >= TennisSimulation.WINNING_SCORE )
     {
-      _context.fillText( "Player 1 is the winner! Huzzah!", 120D, 300D );
+      drawText( 120D, 300D, "Player 1 is the winner! Huzzah!" );
     }
     else
     {
-      _context.fillText( "Player 2 is the winner! Huzzah!", 500D, 300D );
+      drawText( 500D, 300D, "Player 2 is the winner! Huzzah!" );
     }
-    _context.fillText( "Click to continue", 350D, 500D );
+    drawText( 350D, 500D, "Click to continue" );
   }
 
-  private void renderWorld()
+  /**
+   * Render the world between the previous and the current tick.
+   *
+   * @param alpha the fraction of a tick that has elapsed since the current tick.
+   */
+  private void renderWorld( final double alpha )
   {
-    // Background
-    clearBackground();
+    // Background and net
+    _context.drawImage( _court.getCanvas(), 0D, 0D );
 
-    // Player Paddle
-    drawRect( 0D, _paddle1Y, PADDLE_WIDTH, PADDLE_HEIGHT, "white" );
+    // Player Paddle is drawn where the player has placed it to minimise latency
+    drawRect( 0D,
+              _playerPaddleY,
+              TennisSimulation.PADDLE_WIDTH,
+              TennisSimulation.PADDLE_HEIGHT,
+              "white" );
 
     // Computer Paddle
-    drawRect( _canvas.width - PADDLE_WIDTH, _paddle2Y, PADDLE_WIDTH, PADDLE_HEIGHT, "white" );
+    drawRect( _canvas.width - TennisSimulation.PADDLE_WIDTH,
+              interpolate( _previousPaddle2Y, _simulation.getPaddle2Y(), alpha ),
+              TennisSimulation.PADDLE_WIDTH,
+              TennisSimulation.PADDLE_HEIGHT,
+              "white" );
 
     // Ball
-    drawCircle( _ballX, _ballY, BALL_RADIUS, "red" );
-
-    // Draw net
-    for ( int i = 0; i < _canvas.height; i += 40 )
-    {
-      drawRect( _canvas.width / 2D - 1D, i, 2, 20, "white" );
-    }
+    drawCircle( interpolate( _previousBallX, _simulation.getBallX(), alpha ),
+                interpolate( _previousBallY, _simulation.getBallY(), alpha ),
+                TennisSimulation.BALL_RADIUS,
+                "red" );
 
     // Draw scores
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( "white" );
-    _context.fillText( "P1 Score: " + _player1Score, 100D, 100D );
+    drawScore( 100D, 100D, "P1 Score: ", _simulation.getPlayer1Score() );
     // Assume 120 pixels to represent text
-    _context.fillText( "P2 Score: " + _player2Score, _canvas.width - 100D - 120D, 100D );
+    drawScore( _canvas.width - 100D - 120D, 100D, "P2 Score: ", _simulation.getPlayer2Score() );
+  }
+
+  private static double interpolate( final double previous, final double current, final double alpha )
+  {
+    return previous + ( current - previous ) * alpha;
   }
 
   private void clearBackground()
@@ -227,10 +258,7 @@ public class Tennis
                            final double radius,
                            @Nonnull final String color )
   {
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( color );
-    _context.beginPath();
-    _context.arc( centerX, centerY, radius, 0, Math.PI * 2 );
-    _context.fill();
+    _commands.fillCircle( centerX, centerY, radius, color );
   }
 
   @SuppressWarnings( "SameParameterValue" )
@@ -240,7 +268,26 @@ public class Tennis
                          final double height,
                          @Nonnull final String color )
   {
-    _context.fillStyle = CanvasRenderingContext2D.FillStyleUnionType.of( color );
-    _context.fillRect( x, y, width, height );
+    _commands.fillRect( x, y, width, height, color );
+  }
+
+  /**
+   * Draw text above everything drawn so far.
+   */
+  private void drawText( final double bottomLeftX, final double bottomLeftY, @Nonnull final String text )
+  {
+    // Glyphs are copied straight to the canvas so pending shapes must be drawn first
+    _commands.flush();
+    _text.drawText( _context, bottomLeftX, bottomLeftY, text );
+  }
+
+  private void drawScore( final double bottomLeftX,
+                          final double bottomLeftY,
+                          @Nonnull final String label,
+                          final int score )
+  {
+    _commands.flush();
+    final double x = _text.drawText( _context, bottomLeftX, bottomLeftY, label );
+    _text.drawInt( _context, x, bottomLeftY, score );
   }
 }
@@ -0,0 +1,325 @@
+package org.realityforge.arcade.tennis;
+
+/**
+ * The state and rules of the tennis game.
+ * The simulation has no dependency on the DOM so that it can also be run on the JVM.
+ * Player 1 controls the left paddle and player 2 controls the right paddle.
+ */
+final class TennisSimulation
+{
+  static final int WINNING_SCORE = 3;
+  static final double BALL_RADIUS = 10D;
+  static final double PADDLE_HEIGHT = 100D;
+  static final double HALF_PADDLE_HEIGHT = PADDLE_HEIGHT / 2;
+  static final double PADDLE_WIDTH = 10D;
+  private static final double MAX_REFLECT_SPEED = 12.5D;
+  // This is multiplied by the distance from the center of the paddle. So maximum force is transferred when you
+  // hit the edges of the paddle while hitting the center of the paddle results in an almost horizontal reflection
+  static final double VERTICAL_REFLECT_FORCE_TRANSFER = ( 2 * MAX_REFLECT_SPEED ) / PADDLE_HEIGHT;
+  static final double INITIAL_X_SPEED = 5D;
+  static final double INITIAL_Y_SPEED = 3D;
+  private final double _width;
+  private final double _height;
+  private final double _verticalReflectForceTransfer;
+  private double _ballX = 50D;
+  private double _ballY = 50D;
+  private double _ballSpeedX = INITIAL_X_SPEED;
+  private double _ballSpeedY = INITIAL_Y_SPEED;
+  private double _paddle1Y = 200D;
+  private double _paddle2Y = 200D;
+  // The paddle positions at the end of the previous tick. Paddles are assumed to move linearly
+  // from these positions to their current positions during a tick.
+  private double _previousPaddle1Y = _paddle1Y;
+  private double _previousPaddle2Y = _paddle2Y;
+  private int _player1Score;
+  private int _player2Score;
+  private boolean _showingWinScreen;
+
+  TennisSimulation( final double width, final double height )
+  {
+    this( width, height, VERTICAL_REFLECT_FORCE_TRANSFER );
+  }
+
+  TennisSimulation( final double width, final double height, final double verticalReflectForceTransfer )
+  {
+    _width = width;
+    _height = height;
+    _verticalReflectForceTransfer = verticalReflectForceTransfer;
+  }
+
+  double getWidth()
+  {
+    return _width;
+  }
+
+  double getHeight()
+  {
+    return _height;
+  }
+
+  double getBallX()
+  {
+    return _ballX;
+  }
+
+  double getBallY()
+  {
+    return _ballY;
+  }
+
+  double getBallSpeedX()
+  {
+    return _ballSpeedX;
+  }
+
+  double getBallSpeedY()
+  {
+    return _ballSpeedY;
+  }
+
+  /**
+   * Place the ball. This is used to start rallies from arbitrary positions when running the simulation headless.
+   */
+  void setBall( final double x, final double y, final double speedX, final double speedY )
+  {
+    _ballX = x;
+    _ballY = y;
+    _ballSpeedX = speedX;
+    _ballSpeedY = speedY;
+  }
+
+  /**
+   * Serve the ball from the center of the court in the same way as after a point is scored.
+   * This is used to restart play when running the simulation headless.
+   */
+  void serveBall()
+  {
+    ballReset();
+  }
+
+  double getPaddle1Y()
+  {
+    return _paddle1Y;
+  }
+
+  void setPaddle1Y( final double paddle1Y )
+  {
+    _paddle1Y = limitPaddleToScreen( paddle1Y );
+  }
+
+  double getPaddle2Y()
+  {
+    return _paddle2Y;
+  }
+
+  void setPaddle2Y( final double paddle2Y )
+  {
+    _paddle2Y = limitPaddleToScreen( paddle2Y );
+  }
+
+  int getPlayer1Score()
+  {
+    return _player1Score;
+  }
+
+  int getPlayer2Score()
+  {
+    return _player2Score;
+  }
+
+  boolean isShowingWinScreen()
+  {
+    return _showingWinScreen;
+  }
+
+  /**
+   * Clear the scores and leave the win screen so that a new match starts.
+   */
+  void resetMatch()
+  {
+    _player1Score = 0;
+    _player2Score = 0;
+    _showingWinScreen = false;
+  }
+
+  // Make sure paddle never goes off screen
+  double limitPaddleToScreen( final double paddlePosition )
+  {
+    return Math.min( Math.max( 0, paddlePosition ), _height - PADDLE_HEIGHT );
+  }
+
+  /**
+   * Advance the ball by a single step, bouncing it off the paddles and walls or scoring a point.
+   * The paddles should be positioned before the tick.
+   */
+  void tick()
+  {
+    final double startX = _ballX;
+    final double startY = _ballY;
+    _ballX += _ballSpeedX;
+    _ballY += _ballSpeedY;
+    if ( _ballX - BALL_RADIUS < 0 )
+    {
+      if ( !collideWithPaddle( startX, startY, 0D, 1D, _previousPaddle1Y, _paddle1Y ) )
+      {
+        // Score changed before ballReset as winning condition check occurs inside ballReset
+        _player2Score++;
+        ballReset();
+      }
+    }
+    if ( ( _ballX + BALL_RADIUS ) > _width )
+    {
+      if ( !collideWithPaddle( startX, startY, _width, -1D, _previousPaddle2Y, _paddle2Y ) )
+      {
+        // Score changed before ballReset as winning condition check occurs inside ballReset
+        _player1Score++;
+        ballReset();
+      }
+    }
+
+    if ( ( _ballY + BALL_RADIUS ) > _height || _ballY < BALL_RADIUS )
+    {
+      _ballSpeedY = -_ballSpeedY;
+    }
+    _previousPaddle1Y = _paddle1Y;
+    _previousPaddle2Y = _paddle2Y;
+  }
+
+  /**
+   * Sweep the ball from its position at the start of the tick against a paddle.
+   * The paddle is a vertical segment on the edge of the court and the ball hits it when the ball's center comes
+   * within the ball radius of the segment. So the ball hits the face of the paddle when its center reaches the
+   * ball radius from the edge, and hits the rounded end caps of the paddle when it clips either end. The ball
+   * is swept relative to the paddle, which is assumed to move linearly during the tick, so that fast balls and
+   * fast paddles can not pass through each other between ticks.
+   * On contact the ball is reflected from the point of impact and travels for the remainder of the tick.
+   * Balls that hit the face are given some control over their vertical speed, while balls that hit an end cap
+   * bounce off the end cap.
+   *
+   * @param edgeX     the x position of the edge of the court that the paddle is on.
+   * @param courtSide 1 if the court is in the positive x direction from the paddle, otherwise -1.
+   * @return true if the ball hit the paddle.
+   */
+  private boolean collideWithPaddle( final double startX,
+                                     final double startY,
+                                     final double edgeX,
+                                     final double courtSide,
+                                     final double previousPaddleY,
+                                     final double paddleY )
+  {
+    // Positions are relative to the top of the paddle at the start of the tick, and mirrored so that the
+    // court is in the positive x direction
+    final double x = ( startX - edgeX ) * courtSide;
+    final double y = startY - previousPaddleY;
+    final double speedX = _ballSpeedX * courtSide;
+    final double paddleSpeedY = paddleY - previousPaddleY;
+    // The speed of the ball relative to the paddle
+    final double relativeSpeedY = _ballSpeedY - paddleSpeedY;
+
+    // The fraction of the tick that elapses before the ball touches the paddle
+    double time = Double.POSITIVE_INFINITY;
+    // The end cap hit, or NaN if the face was hit
+    double capY = Double.NaN;
+    if ( speedX < 0 )
+    {
+      // A ball that starts the tick past the face, alongside the paddle, hits the face where it starts
+      final double faceTime = x >= BALL_RADIUS ? ( BALL_RADIUS - x ) / speedX : 0D;
+      final double faceY = y + relativeSpeedY * faceTime;
+      if ( faceTime <= 1D && faceY >= 0D && faceY <= PADDLE_HEIGHT )
+      {
+        time = faceTime;
+      }
+    }
+    final double topCapTime = sweepEndCap( x, y, speedX, relativeSpeedY );
+    if ( topCapTime < time )
+    {
+      time = topCapTime;
+      capY = 0D;
+    }
+    final double bottomCapTime = sweepEndCap( x, y - PADDLE_HEIGHT, speedX, relativeSpeedY );
+    if ( bottomCapTime < time )
+    {
+      time = bottomCapTime;
+      capY = PADDLE_HEIGHT;
+    }
+    if ( Double.POSITIVE_INFINITY == time )
+    {
+      return false;
+    }
+
+    final double contactX = startX + _ballSpeedX * time;
+    final double contactY = startY + _ballSpeedY * time;
+    final double paddleTop = previousPaddleY + paddleSpeedY * time;
+    if ( Double.isNaN( capY ) )
+    {
+      _ballSpeedX = -_ballSpeedX;
+
+      // Gives some ball control so that depending on where you hit the ball wil depend on what angle
+      // and speed the ball returns to other side.
+      _ballSpeedY = ( contactY - ( paddleTop + HALF_PADDLE_HEIGHT ) ) * _verticalReflectForceTransfer;
+    }
+    else
+    {
+      // Reflect about the normal from the end of the paddle to the ball's center. The ball is only closer than
+      // the ball radius to the end when it started the tick overlapping it.
+      final double offsetX = contactX - edgeX;
+      final double offsetY = contactY - ( paddleTop + capY );
+      final double distance = Math.max( Math.sqrt( offsetX * offsetX + offsetY * offsetY ), Double.MIN_VALUE );
+      final double normalX = offsetX / distance;
+      final double normalY = offsetY / distance;
+      final double speedIntoPaddle = _ballSpeedX * normalX + _ballSpeedY * normalY;
+      if ( speedIntoPaddle < 0 )
+      {
+        _ballSpeedX -= 2 * speedIntoPaddle * normalX;
+        _ballSpeedY -= 2 * speedIntoPaddle * normalY;
+      }
+    }
+
+    final double remainingTime = 1D - time;
+    _ballX = contactX + _ballSpeedX * remainingTime;
+    _ballY = contactY + _ballSpeedY * remainingTime;
+    return true;
+  }
+
+  /**
+   * Return the fraction of the tick at which the ball, starting at the specified offset from an end of the
+   * paddle and moving at the specified speed relative to it, first touches the end of the paddle, or positive
+   * infinity if it does not touch it during the tick. A ball that starts the tick touching the end of the
+   * paddle touches it immediately unless it is moving away.
+   */
+  private static double sweepEndCap( final double offsetX,
+                                     final double offsetY,
+                                     final double speedX,
+                                     final double speedY )
+  {
+    // Solve |offset + speed * t| = radius for the smallest t
+    final double a = speedX * speedX + speedY * speedY;
+    final double b = 2 * ( offsetX * speedX + offsetY * speedY );
+    final double c = offsetX * offsetX + offsetY * offsetY - BALL_RADIUS * BALL_RADIUS;
+    if ( c <= 0 )
+    {
+      return b < 0 ? 0D : Double.POSITIVE_INFINITY;
+    }
+    final double discriminant = b * b - 4 * a * c;
+    if ( 0 == a || discriminant < 0 )
+    {
+      return Double.POSITIVE_INFINITY;
+    }
+    final double time = ( -b - Math.sqrt( discriminant ) ) / ( 2 * a );
+    return time >= 0D && time <= 1D ? time : Double.POSITIVE_INFINITY;
+  }
+
+  private void ballReset()
+  {
+    if ( _player1Score >= WINNING_SCORE || _player2Score >= WINNING_SCORE )
+    {
+      _showingWinScreen = true;
+    }
+    // Serve in the opposite direction at the initial speed. Bounces off the end caps of a paddle can leave the
+    // ball crossing the court slowly, and the vertical speed of the serve is scaled by the horizontal speed.
+    _ballSpeedX = _ballSpeedX > 0 ? -INITIAL_X_SPEED : INITIAL_X_SPEED;
+    _ballSpeedY = Math.min( _ballSpeedY / _ballSpeedX, 2 ) * -INITIAL_Y_SPEED;
+    _ballX = _width / 2D;
+    _ballY = _height / 2D;
+  }
+}
@@ -0,0 +1,352 @@
+package org.realityforge.arcade.tennis;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import javax.annotation.Nonnull;
+
+/**
+ * Plays a large number of computer versus computer rallies headless, spread across all cores, and reports
+ * the win rates and rally lengths. This is used to tune the computer player and the paddle physics.
+ *
+ * <p>This class uses fork/join and only runs on the JVM so it is excluded from the GWT module.
+ * Settings are passed as name=value arguments, for example:</p>
+ *
+ * <pre>java org.realityforge.arcade.tennis.TennisTournament rallies=5000000 zone2=50 step2=7 transfer=0.3</pre>
+ *
+ * <p>Each player is either a chase player, tuned with zone and step, or a predictive player, tuned with
+ * error and step. For example ai1=predict error1=40 plays a predictive left player against a chase player.</p>
+ *
+ * <p>Rallies are played back to back as points of a game, starting from the opening state of a new game. Each
+ * rally after the first is served by the simulation when the previous point is scored, and the paddles start
+ * where the players left them. The vertical speed of each serve is varied by a random amount so that rallies
+ * differ even between two chase players, which would otherwise play the same rally over and over. Rallies are
+ * split into tasks by their index and each rally is seeded by its index, so results depend only upon the
+ * settings and not upon the number of cores.</p>
+ */
+final class TennisTournament
+{
+  private static final double COURT_WIDTH = 800D;
+  private static final double COURT_HEIGHT = 600D;
+  // Rallies that last longer than this are abandoned as neither player is ever going to miss
+  private static final int MAX_RALLY_TICKS = 20_000;
+  // Rally lengths, measured in paddle hits, at or above this are counted in the last bucket of the histogram
+  private static final int MAX_TRACKED_HITS = 256;
+  // The number of rallies played by a single task before it stops splitting
+  private static final int RALLIES_PER_TASK = 10_000;
+  // The largest amount added to or removed from the vertical speed of the serve that starts a rally
+  private static final double MAX_SERVE_Y_JITTER = TennisSimulation.INITIAL_Y_SPEED;
+  private final long _rallies;
+  private final long _seed;
+  private final double _verticalReflectForceTransfer;
+  @Nonnull
+  private final PlayerSettings _player1;
+  @Nonnull
+  private final PlayerSettings _player2;
+
+  private TennisTournament( final long rallies,
+                            final long seed,
+                            final double verticalReflectForceTransfer,
+                            @Nonnull final PlayerSettings player1,
+                            @Nonnull final PlayerSettings player2 )
+  {
+    _rallies = rallies;
+    _seed = seed;
+    _verticalReflectForceTransfer = verticalReflectForceTransfer;
+    _player1 = player1;
+    _player2 = player2;
+  }
+
+  public static void main( final String[] args )
+  {
+    long rallies = 1_000_000;
+    long seed = 42;
+    double transfer = TennisSimulation.VERTICAL_REFLECT_FORCE_TRANSFER;
+    final PlayerSettings player1 = new PlayerSettings( false );
+    final PlayerSettings player2 = new PlayerSettings( true );
+    for ( final String arg : args )
+    {
+      final int separator = arg.indexOf( '=' );
+      if ( -1 == separator )
+      {
+        throw new IllegalArgumentException( "Expected argument of the form name=value but got '" + arg + "'" );
+      }
+      final String name = arg.substring( 0, separator );
+      final String value = arg.substring( separator + 1 );
+      switch ( name )
+      {
+        case "rallies":
+          rallies = Long.parseLong( value );
+          break;
+        case "seed":
+          seed = Long.parseLong( value );
+          break;
+        case "transfer":
+          transfer = Double.parseDouble( value );
+          break;
+        default:
+          if ( name.endsWith( "1" ) )
+          {
+            player1.set( name.substring( 0, name.length() - 1 ), value );
+          }
+          else if ( name.endsWith( "2" ) )
+          {
+            player2.set( name.substring( 0, name.length() - 1 ), value );
+          }
+          else
+          {
+            throw new IllegalArgumentException( "Unknown argument '" + name + "'" );
+          }
+      }
+    }
+
+    final TennisTournament tournament = new TennisTournament( rallies, seed, transfer, player1, player2 );
+    final long start = System.nanoTime();
+    final Results results = tournament.run();
+    final long elapsed = System.nanoTime() - start;
+    results.report( elapsed );
+  }
+
+  @Nonnull
+  private Results run()
+  {
+    return ForkJoinPool.commonPool().invoke( new RallyTask( 0, _rallies ) );
+  }
+
+  @Nonnull
+  private Results playRallies( final long firstRally, final long endRally )
+  {
+    final Results results = new Results();
+    final TennisSimulation simulation =
+      new TennisSimulation( COURT_WIDTH, COURT_HEIGHT, _verticalReflectForceTransfer );
+    for ( long rally = firstRally; rally < endRally; rally++ )
+    {
+      playRally( simulation, new SplittableRandom( _seed * 31 + rally ), results );
+    }
+    return results;
+  }
+
+  private void playRally( @Nonnull final TennisSimulation simulation,
+                          @Nonnull final SplittableRandom random,
+                          @Nonnull final Results results )
+  {
+    // Only the points of this rally are counted. This leaves the ball where the last point served it.
+    simulation.resetMatch();
+    simulation.setBall( simulation.getBallX(),
+                        simulation.getBallY(),
+                        simulation.getBallSpeedX(),
+                        simulation.getBallSpeedY() + ( random.nextDouble() * 2 - 1 ) * MAX_SERVE_Y_JITTER );
+
+    // Controllers are created per rally as predictive players remember the volley they predicted
+    final PaddleController player1 = _player1.createController( random.nextLong() );
+    final PaddleController player2 = _player2.createController( random.nextLong() );
+    int hits = 0;
+    for ( int tick = 1; tick <= MAX_RALLY_TICKS; tick++ )
+    {
+      simulation.setPaddle1Y( player1.computePaddleY( simulation, simulation.getPaddle1Y() ) );
+      simulation.setPaddle2Y( player2.computePaddleY( simulation, simulation.getPaddle2Y() ) );
+      final double speedX = simulation.getBallSpeedX();
+      simulation.tick();
+      if ( 0 != simulation.getPlayer1Score() || 0 != simulation.getPlayer2Score() )
+      {
+        results.recordRally( 0 != simulation.getPlayer1Score(), hits, tick );
+        return;
+      }
+      else if ( ( speedX < 0 ) != ( simulation.getBallSpeedX() < 0 ) )
+      {
+        hits++;
+      }
+    }
+    results.recordUnfinishedRally( hits, MAX_RALLY_TICKS );
+    // Serve again as the ball would otherwise continue the abandoned rally
+    simulation.serveBall();
+  }
+
+  private static final class PlayerSettings
+  {
+    private final boolean _rightPaddle;
+    private boolean _predictive;
+    private double _targetZone = ChaseAI.DEFAULT_TARGET_ZONE;
+    private double _paddleStep = ChaseAI.DEFAULT_PADDLE_STEP;
+    private double _predictionError = PredictiveAI.NORMAL_PREDICTION_ERROR;
+
+    PlayerSettings( final boolean rightPaddle )
+    {
+      _rightPaddle = rightPaddle;
+    }
+
+    void set( @Nonnull final String name, @Nonnull final String value )
+    {
+      switch ( name )
+      {
+        case "ai":
+          if ( !"chase".equals( value ) && !"predict".equals( value ) )
+          {
+            throw new IllegalArgumentException( "Unknown player type '" + value + "'" );
+          }
+          _predictive = "predict".equals( value );
+          break;
+        case "zone":
+          _targetZone = Double.parseDouble( value );
+          break;
+        case "step":
+          _paddleStep = Double.parseDouble( value );
+          break;
+        case "error":
+          _predictionError = Double.parseDouble( value );
+          break;
+        default:
+          throw new IllegalArgumentException( "Unknown player setting '" + name + "'" );
+      }
+    }
+
+    @Nonnull
+    PaddleController createController( final long seed )
+    {
+      return _predictive ?
+             new PredictiveAI( _rightPaddle, _predictionError, _paddleStep, seed ) :
+             new ChaseAI( _targetZone, _paddleStep );
+    }
+  }
+
+  private final class RallyTask
+    extends RecursiveTask<Results>
+  {
+    private static final long serialVersionUID = 1L;
+    private final long _firstRally;
+    private final long _endRally;
+
+    RallyTask( final long firstRally, final long endRally )
+    {
+      _firstRally = firstRally;
+      _endRally = endRally;
+    }
+
+    @Override
+    protected Results compute()
+    {
+      if ( _endRally - _firstRally <= RALLIES_PER_TASK )
+      {
+        return playRallies( _firstRally, _endRally );
+      }
+      else
+      {
+        final long middle = ( _firstRally + _endRally ) >>> 1;
+        final RallyTask left = new RallyTask( _firstRally, middle );
+        left.fork();
+        final Results results = new RallyTask( middle, _endRally ).compute();
+        results.merge( left.join() );
+        return results;
+      }
+    }
+  }
+
+  /**
+   * The statistics accumulated by a task. Each task owns its results and merges them when it joins.
+   */
+  private static final class Results
+  {
+    @Nonnull
+    private final long[] _hitHistogram = new long[ MAX_TRACKED_HITS + 1 ];
+    private long _player1Wins;
+    private long _player2Wins;
+    private long _unfinished;
+    private long _totalHits;
+    private long _totalTicks;
+
+    void recordRally( final boolean player1Won, final int hits, final int ticks )
+    {
+      if ( player1Won )
+      {
+        _player1Wins++;
+      }
+      else
+      {
+        _player2Wins++;
+      }
+      recordLength( hits, ticks );
+    }
+
+    void recordUnfinishedRally( final int hits, final int ticks )
+    {
+      _unfinished++;
+      recordLength( hits, ticks );
+    }
+
+    private void recordLength( final int hits, final int ticks )
+    {
+      _hitHistogram[ Math.min( hits, MAX_TRACKED_HITS ) ]++;
+      _totalHits += hits;
+      _totalTicks += ticks;
+    }
+
+    void merge( @Nonnull final Results other )
+    {
+      for ( int i = 0; i < _hitHistogram.length; i++ )
+      {
+        _hitHistogram[ i ] += other._hitHistogram[ i ];
+      }
+      _player1Wins += other._player1Wins;
+      _player2Wins += other._player2Wins;
+      _unfinished += other._unfinished;
+      _totalHits += other._totalHits;
+      _totalTicks += other._totalTicks;
+    }
+
+    void report( final long elapsedNanos )
+    {
+      final long rallies = _player1Wins + _player2Wins + _unfinished;
+      final double seconds = elapsedNanos / 1_000_000_000D;
+      System.out.printf( Locale.ROOT, "Played %d rallies in %.2fs (%.0f rallies/s, %.0f ticks/s)%n",
+                         rallies, seconds, rallies / seconds, _totalTicks / seconds );
+      System.out.printf( Locale.ROOT, "Player 1 wins: %.2f%%  Player 2 wins: %.2f%%  Unfinished: %.2f%%%n",
+                         percent( _player1Wins, rallies ),
+                         percent( _player2Wins, rallies ),
+                         percent( _unfinished, rallies ) );
+      System.out.printf( Locale.ROOT, "Mean rally: %.2f hits, %.1f ticks%n",
+                         _totalHits / (double) rallies, _totalTicks / (double) rallies );
+      System.out.printf( Locale.ROOT, "Hits per rally: p50=%s p90=%s p99=%s max=%s%n",
+                         percentile( rallies, 0.5D ),
+                         percentile( rallies, 0.9D ),
+                         percentile( rallies, 0.99D ),
+                         percentile( rallies, 1D ) );
+      System.out.println( "Rally length distribution (hits: rallies):" );
+      for ( int i = 0; i < _hitHistogram.length; i++ )
+      {
+        if ( 0 != _hitHistogram[ i ] )
+        {
+          System.out.printf( Locale.ROOT, "%6s: %d (%.3f%%)%n",
+                             label( i ), _hitHistogram[ i ], percent( _hitHistogram[ i ], rallies ) );
+        }
+      }
+    }
+
+    @Nonnull
+    private String percentile( final long rallies, final double fraction )
+    {
+      final long threshold = Math.max( 1, (long) Math.ceil( rallies * fraction ) );
+      long count = 0;
+      for ( int i = 0; i < _hitHistogram.length; i++ )
+      {
+        count += _hitHistogram[ i ];
+        if ( count >= threshold )
+        {
+          return label( i );
+        }
+      }
+      return "-";
+    }
+
+    @Nonnull
+    private static String label( final int hits )
+    {
+      return MAX_TRACKED_HITS == hits ? MAX_TRACKED_HITS + "+" : String.valueOf( hits );
+    }
+
+    private static double percent( final long count, final long total )
+    {
+      return 0 == total ? 0D : count * 100D / total;
+    }
+  }
+}
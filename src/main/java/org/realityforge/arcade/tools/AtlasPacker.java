@@ -0,0 +1,192 @@
+package org.realityforge.arcade.tools;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nonnull;
+import javax.imageio.ImageIO;
+
+/**
+ * Packs the images in the public directory of a module into a single atlas image so that the module loads
+ * its images with one request, and generates an index of the position of each image in the atlas.
+ *
+ * <p>The atlas is written to public/atlas.png and the index to AtlasIndex.java in the module's source
+ * directory. Both are committed so that the GWT compile does not depend on the packer, and are regenerated by
+ * the pack_atlases build task whenever the images of a module change, or directly, for example:</p>
+ *
+ * <pre>
+ * java org.realityforge.arcade.tools.AtlasPacker \
+ *   src/main/java/org/realityforge/arcade/racing org.realityforge.arcade.racing
+ * </pre>
+ */
+public final class AtlasPacker
+{
+  @Nonnull
+  private static final String ATLAS_IMAGE = "atlas.png";
+  @Nonnull
+  private static final String INDEX_CLASS = "AtlasIndex";
+  // Space left between images so that filtering rotated or scaled images does not sample neighbouring images
+  private static final int PADDING = 2;
+
+  private AtlasPacker()
+  {
+  }
+
+  public static void main( final String[] args )
+    throws IOException
+  {
+    if ( 2 != args.length )
+    {
+      System.err.println( "Usage: AtlasPacker <module source directory> <module package>" );
+      System.exit( 1 );
+    }
+    pack( new File( args[ 0 ] ), args[ 1 ] );
+  }
+
+  static void pack( @Nonnull final File moduleDirectory, @Nonnull final String packageName )
+    throws IOException
+  {
+    final File publicDirectory = new File( moduleDirectory, "public" );
+    final File[] files =
+      publicDirectory.listFiles( ( dir, name ) -> name.endsWith( ".png" ) && !ATLAS_IMAGE.equals( name ) );
+    if ( null == files || 0 == files.length )
+    {
+      throw new IOException( "No images found in " + publicDirectory );
+    }
+    Arrays.sort( files );
+
+    final List<Entry> entries = new ArrayList<>();
+    for ( final File file : files )
+    {
+      final BufferedImage image = ImageIO.read( file );
+      if ( null == image )
+      {
+        throw new IOException( "Unable to read image " + file );
+      }
+      final String fileName = file.getName();
+      entries.add( new Entry( fileName.substring( 0, fileName.length() - ".png".length() ), image ) );
+    }
+
+    final int width = place( entries );
+    int height = 0;
+    for ( final Entry entry : entries )
+    {
+      height = Math.max( height, entry._y + entry._image.getHeight() );
+    }
+
+    final BufferedImage atlas = new BufferedImage( width, height, BufferedImage.TYPE_INT_ARGB );
+    final Graphics2D graphics = atlas.createGraphics();
+    for ( final Entry entry : entries )
+    {
+      graphics.drawImage( entry._image, entry._x, entry._y, null );
+    }
+    graphics.dispose();
+    ImageIO.write( atlas, "png", new File( publicDirectory, ATLAS_IMAGE ) );
+
+    writeIndex( new File( moduleDirectory, INDEX_CLASS + ".java" ), packageName, entries );
+    System.out.println( "Packed " + entries.size() + " images into a " + width + "x" + height + " atlas" );
+  }
+
+  /**
+   * Place the images in rows, tallest first, in an atlas that is roughly square.
+   *
+   * @return the width of the atlas.
+   */
+  private static int place( @Nonnull final List<Entry> entries )
+  {
+    long area = 0;
+    int maxWidth = 0;
+    for ( final Entry entry : entries )
+    {
+      area += (long) ( entry._image.getWidth() + PADDING ) * ( entry._image.getHeight() + PADDING );
+      maxWidth = Math.max( maxWidth, entry._image.getWidth() );
+    }
+    final int width = Math.max( maxWidth, (int) Math.ceil( Math.sqrt( area ) ) );
+
+    final List<Entry> tallestFirst = new ArrayList<>( entries );
+    tallestFirst.sort( Comparator.comparingInt( ( Entry entry ) -> -entry._image.getHeight() )
+                         .thenComparing( entry -> entry._name ) );
+    int x = 0;
+    int y = 0;
+    int rowHeight = 0;
+    for ( final Entry entry : tallestFirst )
+    {
+      if ( x > 0 && x + entry._image.getWidth() > width )
+      {
+        x = 0;
+        y += rowHeight + PADDING;
+        rowHeight = 0;
+      }
+      entry._x = x;
+      entry._y = y;
+      x += entry._image.getWidth() + PADDING;
+      rowHeight = Math.max( rowHeight, entry._image.getHeight() );
+    }
+    return width;
+  }
+
+  private static void writeIndex( @Nonnull final File file,
+                                  @Nonnull final String packageName,
+                                  @Nonnull final List<Entry> entries )
+    throws IOException
+  {
+    try ( PrintWriter writer = new PrintWriter( file, StandardCharsets.UTF_8.name() ) )
+    {
+      writer.println( "package " + packageName + ";" );
+      writer.println();
+      writer.println( "/**" );
+      writer.println( " * The position of each image in the atlas." );
+      writer.println( " * Generated by " + AtlasPacker.class.getName() + " from the images in the public directory." );
+      writer.println( " * Do not edit." );
+      writer.println( " */" );
+      writer.println( "final class " + INDEX_CLASS );
+      writer.println( "{" );
+      writer.println( "  static final String IMAGE = \"" + ATLAS_IMAGE + "\";" );
+      writer.println( "  static final String[] NAMES = new String[]{" );
+      for ( int i = 0; i < entries.size(); i++ )
+      {
+        writer.println( "    \"" + entries.get( i )._name + "\"" + ( i < entries.size() - 1 ? "," : "" ) );
+      }
+      writer.println( "  };" );
+      writer.println( "  // The x, y, width and height of each image in the atlas" );
+      writer.println( "  static final int[] RECTANGLES = new int[]{" );
+      for ( int i = 0; i < entries.size(); i++ )
+      {
+        final Entry entry = entries.get( i );
+        writer.println( "    " + entry._x + ", " + entry._y + ", " +
+                        entry._image.getWidth() + ", " + entry._image.getHeight() +
+                        ( i < entries.size() - 1 ? "," : "" ) );
+      }
+      writer.println( "  };" );
+      writer.println();
+      writer.println( "  private " + INDEX_CLASS + "()" );
+      writer.println( "  {" );
+      writer.println( "  }" );
+      writer.println( "}" );
+    }
+  }
+
+  private static final class Entry
+  {
+    @Nonnull
+    private final String _name;
+    @Nonnull
+    private final BufferedImage _image;
+    private int _x;
+    private int _y;
+
+    Entry( @Nonnull final String name, @Nonnull final BufferedImage image )
+    {
+      _name = Objects.requireNonNull( name );
+      _image = Objects.requireNonNull( image );
+    }
+  }
+}